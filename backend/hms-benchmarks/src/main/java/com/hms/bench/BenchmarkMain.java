@@ -0,0 +1,25 @@
+package com.hms.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH entry point that always writes machine-readable results. Accepts the usual JMH command line;
+ * results go to {@code -rff <file>} or {@code jmh-result.json} in the working directory.
+ */
+public final class BenchmarkMain {
+  private BenchmarkMain() {}
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cli = new CommandLineOptions(args);
+    Options options = new OptionsBuilder()
+        .parent(cli)
+        .resultFormat(ResultFormatType.JSON)
+        .result(cli.getResult().orElse("jmh-result.json"))
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,74 @@
+package com.hms.bench;
+
+import com.hms.dto.DoctorDto;
+import com.hms.model.Appointment;
+import com.hms.service.DelayPropagationEngine;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates an overrun of the first appointment of a day on sparse and dense schedules and reports,
+ * next to the time per plan, how many appointments the engine moves ({@code touched / plans}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DelayPropagationBenchmark {
+  @Param({"0.3", "0.95"})
+  public double density;
+
+  @Param({"5", "40"})
+  public int overrunMinutes;
+
+  private Instant newEnd;
+  private List<Appointment> following;
+
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Touched {
+    public long plans;
+    public long touched;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      plans = 0;
+      touched = 0;
+    }
+  }
+
+  @Setup
+  public void setup() {
+    DoctorDto doctor = Fixtures.doctor(15);
+    List<Appointment> day = Fixtures.schedule(doctor, LocalDate.of(2030, 1, 7), 1, density, 11);
+    Appointment trigger = day.get(0);
+    newEnd = trigger.getEndTime().plusSeconds(overrunMinutes * 60L);
+    following = day.subList(1, day.size()).stream().filter(a -> a.getEndTime().isAfter(newEnd)).toList();
+  }
+
+  @Benchmark
+  public int absorb(Touched counter) {
+    int n = DelayPropagationEngine.absorb(newEnd, following).size();
+    counter.plans++;
+    counter.touched += n;
+    return n;
+  }
+}
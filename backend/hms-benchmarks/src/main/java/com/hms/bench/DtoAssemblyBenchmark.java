@@ -0,0 +1,104 @@
+package com.hms.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hms.dto.AppointmentHistoryItem;
+import com.hms.dto.AppointmentWithPatientDto;
+import com.hms.dto.PrescriptionWithDoctorDto;
+import com.hms.model.Appointment;
+import com.hms.model.Doctor;
+import com.hms.model.Patient;
+import com.hms.model.Prescription;
+import com.hms.model.Role;
+import com.hms.model.User;
+import com.hms.repository.DoctorRepository;
+import com.hms.repository.PatientRepository;
+import com.hms.repository.UserRepository;
+import com.hms.service.EnrichmentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page assembly as the controllers do it: EnrichmentService batch lookups (against in-memory
+ * repositories, so only mapping cost is measured) plus Jackson serialization of the result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoAssemblyBenchmark {
+  @Param({"20", "200"})
+  public int rows;
+
+  private EnrichmentService enrichment;
+  private List<Appointment> appointments;
+  private List<Prescription> prescriptions;
+  private ObjectMapper mapper;
+
+  @Setup
+  public void setup() {
+    Map<String, User> users = new HashMap<>();
+    Map<String, Patient> patients = new HashMap<>();
+    Map<String, Doctor> doctors = new HashMap<>();
+    Doctor doctor = Fixtures.doctorModel(Fixtures.doctor(30));
+    doctors.put(doctor.getId(), doctor);
+    users.put(doctor.getUserId(), Fixtures.user(doctor.getUserId(), "Dr Bench", Role.DOCTOR));
+    appointments = Fixtures.schedule(Fixtures.doctor(30), LocalDate.of(2030, 1, 7), 60, 1.0, 7).subList(0, rows);
+    prescriptions = new ArrayList<>();
+    for (Appointment a : appointments) {
+      String userId = "user-" + a.getPatientId();
+      patients.putIfAbsent(a.getPatientId(), Fixtures.patient(a.getPatientId(), userId));
+      users.putIfAbsent(userId, Fixtures.user(userId, "Patient " + a.getPatientId(), Role.PATIENT));
+      Prescription p = new Prescription();
+      p.setId("rx-" + a.getId());
+      p.setAppointmentId(a.getId());
+      p.setDoctorId(a.getDoctorId());
+      p.setPatientId(a.getPatientId());
+      p.setNotes("Rest and fluids");
+      p.setMedications(List.of());
+      p.setCreatedAt(a.getEndTime());
+      prescriptions.add(p);
+    }
+    enrichment = new EnrichmentService(Fixtures.repository(UserRepository.class, users), Fixtures.repository(DoctorRepository.class, doctors), Fixtures.repository(PatientRepository.class, patients));
+    mapper = new ObjectMapper().registerModule(new JavaTimeModule()).disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+  }
+
+  @Benchmark
+  public List<AppointmentWithPatientDto> doctorAppointments() {
+    return enrichment.appointmentsWithPatient(appointments);
+  }
+
+  @Benchmark
+  public List<AppointmentHistoryItem> patientHistory() {
+    return enrichment.historyItems(appointments);
+  }
+
+  @Benchmark
+  public List<PrescriptionWithDoctorDto> patientPrescriptions() {
+    return enrichment.prescriptions(prescriptions);
+  }
+
+  @Benchmark
+  public byte[] doctorAppointmentsJson() throws Exception {
+    return mapper.writeValueAsBytes(enrichment.appointmentsWithPatient(appointments));
+  }
+}
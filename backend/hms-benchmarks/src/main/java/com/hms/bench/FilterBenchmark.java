@@ -0,0 +1,99 @@
+package com.hms.bench;
+
+import com.hms.config.JwtAuthenticationFilter;
+import com.hms.config.JwtTokenProvider;
+import com.hms.config.MongoUserDetailsService;
+import com.hms.config.TokenVersionRegistry;
+import com.hms.model.Role;
+import com.hms.model.User;
+import com.hms.repository.UserRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtAuthenticationFilter per request against an in-process Mongo. "userLookup" is the pre-claims
+ * path (the user is loaded by email on every request); "claims" builds the principal from the token
+ * with the token-version cache warm; "claimsVersionMiss" re-reads the version on every request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+  private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+  private JwtAuthenticationFilter filter;
+  private JwtAuthenticationFilter versionMissFilter;
+  private String claimsToken;
+  private String legacyToken;
+
+  @Setup
+  public void setup() {
+    MongoTemplate mongo = Fixtures.mongo();
+    User user = Fixtures.user("filter-user", "Pat Filter", Role.PATIENT);
+    mongo.save(user);
+    UserRepository users = new MongoRepositoryFactory(mongo).getRepository(UserRepository.class);
+    MongoUserDetailsService userDetails = new MongoUserDetailsService(users);
+    JwtTokenProvider provider = new JwtTokenProvider(SECRET, 86_400_000L, new TokenVersionRegistry(mongo, 30_000L, 100_000), 10_000, 300_000L);
+    JwtTokenProvider missProvider = new JwtTokenProvider(SECRET, 86_400_000L, new TokenVersionRegistry(mongo, 0L, 100_000), 10_000, 300_000L);
+    filter = new JwtAuthenticationFilter(provider, userDetails, Fixtures.METERS);
+    versionMissFilter = new JwtAuthenticationFilter(missProvider, userDetails, Fixtures.METERS);
+    claimsToken = provider.generateToken(user, "patient-1");
+    // The token shape issued before userId/domainId claims existed; the filter loads the user for it.
+    legacyToken = Jwts.builder()
+        .subject(user.getEmail())
+        .claim(JwtTokenProvider.CLAIM_ROLES, "ROLE_PATIENT")
+        .issuedAt(new Date())
+        .expiration(new Date(System.currentTimeMillis() + 86_400_000L))
+        .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+        .compact();
+  }
+
+  @Benchmark
+  public Authentication userLookup() throws Exception {
+    return run(filter, legacyToken);
+  }
+
+  @Benchmark
+  public Authentication claims() throws Exception {
+    return run(filter, claimsToken);
+  }
+
+  @Benchmark
+  public Authentication claimsVersionMiss() throws Exception {
+    return run(versionMissFilter, claimsToken);
+  }
+
+  private static Authentication run(JwtAuthenticationFilter filter, String token) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/patient/appointments");
+    request.addHeader("Authorization", "Bearer " + token);
+    filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+    SecurityContextHolder.clearContext();
+    if (auth == null) throw new IllegalStateException("token rejected");
+    return auth;
+  }
+}
@@ -0,0 +1,181 @@
+package com.hms.bench;
+
+import com.hms.dto.DoctorDto;
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.Doctor;
+import com.hms.model.Patient;
+import com.hms.model.Role;
+import com.hms.model.User;
+import com.hms.model.WorkingHoursEntry;
+import com.mongodb.client.MongoClients;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.StreamSupport;
+
+/** Synthetic schedules and in-memory stand-ins for the Mongo-backed collaborators. */
+final class Fixtures {
+  static final ZoneId UTC = ZoneId.of("UTC");
+  static final String DOCTOR_ID = "doctor-1";
+  static final MeterRegistry METERS = new SimpleMeterRegistry();
+  private static MongoTemplate mongo;
+
+  private Fixtures() {}
+
+  static DoctorDto doctor(int slotMinutes) {
+    DoctorDto d = new DoctorDto();
+    d.setId(DOCTOR_ID);
+    d.setUserId("user-doctor-1");
+    d.setName("Dr Bench");
+    d.setSpecialization("Cardiology");
+    d.setExperienceYears(10);
+    d.setSlotDuration(slotMinutes);
+    d.setWorkingHours(weekdays(LocalTime.of(9, 0), LocalTime.of(17, 0)));
+    return d;
+  }
+
+  static Doctor doctorModel(DoctorDto dto) {
+    Doctor d = new Doctor();
+    d.setId(dto.getId());
+    d.setUserId(dto.getUserId());
+    d.setSpecialization(dto.getSpecialization());
+    d.setExperienceYears(dto.getExperienceYears());
+    d.setSlotDuration(dto.getSlotDuration());
+    d.setWorkingHours(dto.getWorkingHours());
+    return d;
+  }
+
+  static List<WorkingHoursEntry> weekdays(LocalTime start, LocalTime end) {
+    List<WorkingHoursEntry> out = new ArrayList<>();
+    for (DayOfWeek day : List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY)) {
+      WorkingHoursEntry w = new WorkingHoursEntry();
+      w.setDay(day);
+      w.setStartTime(start);
+      w.setEndTime(end);
+      out.add(w);
+    }
+    return out;
+  }
+
+  /** ACCEPTED appointments filling roughly {@code density} of each working slot over {@code days}. */
+  static List<Appointment> schedule(DoctorDto doctor, LocalDate from, int days, double density, long seed) {
+    Random random = new Random(seed);
+    int slot = doctor.getSlotDuration();
+    List<Appointment> out = new ArrayList<>();
+    for (LocalDate d = from; d.isBefore(from.plusDays(days)); d = d.plusDays(1)) {
+      for (WorkingHoursEntry w : doctor.getWorkingHours()) {
+        if (w.getDay() != d.getDayOfWeek()) continue;
+        Instant t = d.atTime(w.getStartTime()).atZone(UTC).toInstant();
+        Instant end = d.atTime(w.getEndTime()).atZone(UTC).toInstant();
+        for (; !t.plusSeconds(slot * 60L).isAfter(end); t = t.plusSeconds(slot * 60L)) {
+          if (random.nextDouble() < density) out.add(appointment("a" + out.size(), "patient-" + (out.size() % 50), t, t.plusSeconds(slot * 60L)));
+        }
+      }
+    }
+    return out;
+  }
+
+  static Appointment appointment(String id, String patientId, Instant start, Instant end) {
+    Appointment a = new Appointment();
+    a.setId(id);
+    a.setDoctorId(DOCTOR_ID);
+    a.setPatientId(patientId);
+    a.setStartTime(start);
+    a.setEndTime(end);
+    a.setStatus(AppointmentStatus.ACCEPTED);
+    a.setReason("Checkup");
+    a.setCreatedAt(start.minusSeconds(86400));
+    a.setUpdatedAt(start.minusSeconds(3600));
+    return a;
+  }
+
+  static User user(String id, String name, Role role) {
+    User u = new User();
+    u.setId(id);
+    u.setName(name);
+    u.setEmail(id + "@bench.local");
+    u.setRole(role);
+    u.setPasswordHash("x");
+    return u;
+  }
+
+  static Patient patient(String id, String userId) {
+    Patient p = new Patient();
+    p.setId(id);
+    p.setUserId(userId);
+    p.setAge(40);
+    p.setGender("F");
+    return p;
+  }
+
+  /**
+   * A Spring Data repository backed by a map: findById, findAllById and findAll read the map,
+   * anything else returns an empty value of the declared type.
+   */
+  @SuppressWarnings("unchecked")
+  static <R> R repository(Class<R> type, Map<String, ?> rows) {
+    return (R) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+      switch (method.getName()) {
+        case "findById":
+          return Optional.ofNullable(rows.get((String) args[0]));
+        case "findAllById":
+          return StreamSupport.stream(((Iterable<String>) args[0]).spliterator(), false).map(rows::get).filter(r -> r != null).toList();
+        case "findAll":
+          if (args == null || args.length == 0) return new ArrayList<>(rows.values());
+          break;
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "equals":
+          return proxy == args[0];
+        case "toString":
+          return type.getSimpleName() + "Stub";
+        default:
+          break;
+      }
+      Class<?> r = method.getReturnType();
+      if (r == Optional.class) return Optional.empty();
+      if (r == List.class || r == Iterable.class) return List.of();
+      if (r == boolean.class) return false;
+      if (r == long.class) return 0L;
+      return null;
+    });
+  }
+
+  /** MongoTemplate whose find returns a fixed result set; the client is never connected. */
+  static MongoTemplate template(List<?> findResult) {
+    return new MongoTemplate(new SimpleMongoClientDatabaseFactory(MongoClients.create("mongodb://localhost:1"), "bench")) {
+      @Override
+      @SuppressWarnings("unchecked")
+      public <T> List<T> find(Query query, Class<T> entityClass) {
+        return (List<T>) findResult;
+      }
+    };
+  }
+
+  /** MongoTemplate on an in-process wire-protocol server, for benchmarks that price a real round trip. */
+  static synchronized MongoTemplate mongo() {
+    if (mongo == null) {
+      InetSocketAddress address = new MongoServer(new MemoryBackend()).bind();
+      mongo = new MongoTemplate(new SimpleMongoClientDatabaseFactory(MongoClients.create("mongodb://" + address.getHostString() + ":" + address.getPort()), "bench"));
+    }
+    return mongo;
+  }
+}
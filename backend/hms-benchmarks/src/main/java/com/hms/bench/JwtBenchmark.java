@@ -0,0 +1,70 @@
+package com.hms.bench;
+
+import com.hms.config.JwtTokenProvider;
+import com.hms.config.TokenVersionRegistry;
+import com.hms.model.Role;
+import com.hms.model.User;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Token issue and verification; "uncached" disables the verified-token cache to price a full HMAC parse. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+  private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+  private JwtTokenProvider cached;
+  private JwtTokenProvider uncached;
+  private User user;
+  private String token;
+
+  @Setup
+  public void setup() {
+    TokenVersionRegistry versions = new TokenVersionRegistry(Fixtures.mongo(), 30_000L, 100_000);
+    cached = new JwtTokenProvider(SECRET, 86_400_000L, versions, 10_000, 300_000L);
+    uncached = new JwtTokenProvider(SECRET, 86_400_000L, versions, 0, 300_000L);
+    user = Fixtures.user("user-1", "Pat Bench", Role.PATIENT);
+    Fixtures.mongo().save(user);
+    token = cached.generateToken(user, "patient-1");
+  }
+
+  @Benchmark
+  public String generateToken() {
+    return cached.generateToken(user, "patient-1");
+  }
+
+  @Benchmark
+  public boolean validateCached() {
+    return cached.validate(token);
+  }
+
+  @Benchmark
+  public boolean validateUncached() {
+    return uncached.validate(token);
+  }
+
+  @Benchmark
+  public String getUsername() {
+    return cached.getUsername(token);
+  }
+
+  @Benchmark
+  public Claims parseUncached() {
+    return uncached.parse(token);
+  }
+}
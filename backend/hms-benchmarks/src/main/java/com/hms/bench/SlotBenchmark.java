@@ -0,0 +1,96 @@
+package com.hms.bench;
+
+import com.hms.dto.DoctorDto;
+import com.hms.model.Appointment;
+import com.hms.repository.DoctorRepository;
+import com.hms.repository.PatientRepository;
+import com.hms.repository.UserRepository;
+import com.hms.service.DoctorDirectory;
+import com.hms.service.EnrichmentService;
+import com.hms.service.OccupancyIndex;
+import com.hms.service.SlotService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Slot computation over synthetic week schedules. {@code density} is the fraction of working slots
+ * already ACCEPTED. "warm" reads the occupancy index, "rebuild" re-derives each day from the rows
+ * every call, and {@code overlapsScan} is the per-appointment check the booking path used to run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlotBenchmark {
+  @Param({"0.1", "0.5", "0.9"})
+  public double density;
+
+  @Param({"15", "30"})
+  public int slotMinutes;
+
+  private final LocalDate monday = LocalDate.of(2030, 1, 7);
+  private DoctorDto doctor;
+  private List<Appointment> schedule;
+  private SlotService warm;
+  private SlotService rebuild;
+  private Instant probeStart;
+  private Instant probeEnd;
+
+  @Setup
+  public void setup() {
+    doctor = Fixtures.doctor(slotMinutes);
+    schedule = Fixtures.schedule(doctor, monday, 7, density, 42);
+    DoctorDirectory directory = new DoctorDirectory(
+        Fixtures.repository(DoctorRepository.class, Map.of(doctor.getId(), Fixtures.doctorModel(doctor))),
+        new EnrichmentService(Fixtures.repository(UserRepository.class, Map.of()), Fixtures.repository(DoctorRepository.class, Map.of()), Fixtures.repository(PatientRepository.class, Map.of())));
+    warm = new SlotService(directory, new OccupancyIndex(Fixtures.template(schedule), Long.MAX_VALUE / 4, Fixtures.METERS), Fixtures.METERS);
+    rebuild = new SlotService(directory, new OccupancyIndex(Fixtures.template(schedule), 0, Fixtures.METERS), Fixtures.METERS);
+    probeStart = monday.atTime(13, 0).atZone(Fixtures.UTC).toInstant();
+    probeEnd = probeStart.plusSeconds(slotMinutes * 60L);
+    warm.getAvailableSlots(doctor.getId(), monday, monday.plusDays(6));
+  }
+
+  @Benchmark
+  public List<Instant> daySlotsWarm() {
+    return warm.getAvailableSlots(doctor.getId(), monday);
+  }
+
+  @Benchmark
+  public List<Instant> weekSlotsWarm() {
+    return warm.getAvailableSlots(doctor.getId(), monday, monday.plusDays(6));
+  }
+
+  @Benchmark
+  public List<Instant> weekSlotsRebuild() {
+    return rebuild.getAvailableSlots(doctor.getId(), monday, monday.plusDays(6));
+  }
+
+  @Benchmark
+  public boolean overlapsScan() {
+    boolean conflict = false;
+    for (Appointment a : schedule) conflict |= warm.overlaps(probeStart, probeEnd, a.getStartTime(), a.getEndTime());
+    return conflict;
+  }
+
+  @Benchmark
+  public boolean withinWorkingHours() {
+    return SlotService.withinWorkingHours(doctor.getWorkingHours(), probeStart, probeEnd);
+  }
+}
@@ -0,0 +1,94 @@
+package com.hms.loadtest;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/** Accounts created for one run, plus appointments waiting for a prescription. */
+final class Clinic {
+  static final class Account {
+    final String email;
+    final String password;
+    volatile String token;
+    String doctorId;
+
+    Account(String email, String password) {
+      this.email = email;
+      this.password = password;
+    }
+  }
+
+  static final class Visit {
+    final Account doctor;
+    final String appointmentId;
+
+    Visit(Account doctor, String appointmentId) {
+      this.doctor = doctor;
+      this.appointmentId = appointmentId;
+    }
+  }
+
+  static final String[] SPECIALIZATIONS = {"Cardiology", "Dermatology", "General Medicine", "Pediatrics", "Orthopedics"};
+
+  final String runId = Long.toString(System.currentTimeMillis(), 36);
+  final List<Account> doctors = new ArrayList<>();
+  final List<Account> patients = new ArrayList<>();
+  final ConcurrentLinkedQueue<Visit> awaitingPrescription = new ConcurrentLinkedQueue<>();
+  String adminToken;
+
+  static LocalDate today() {
+    return LocalDate.now(ZoneOffset.UTC);
+  }
+
+  /** Logs in as admin, creates doctors (08:00-20:00 every day, 15 min slots) and signs up patients. */
+  void seed(HmsClient client, LoadConfig config) {
+    HmsClient.Response admin = client.post("POST /auth/login", "/auth/login", null, Map.of("email", config.adminEmail, "password", config.adminPassword));
+    if (!admin.ok()) throw new IllegalStateException("Admin login failed with HTTP " + admin.status);
+    adminToken = admin.body.path("token").asText();
+
+    List<Map<String, String>> hours = new ArrayList<>();
+    for (DayOfWeek d : DayOfWeek.values()) hours.add(Map.of("day", d.name(), "startTime", "08:00", "endTime", "20:00"));
+    for (int i = 0; i < config.doctors; i++) {
+      Account doctor = new Account("lt-" + runId + "-doc" + i + "@hms.test", "Doctor@123");
+      Map<String, Object> body = new LinkedHashMap<>();
+      body.put("name", "Load Doctor " + i);
+      body.put("email", doctor.email);
+      body.put("password", doctor.password);
+      body.put("specialization", SPECIALIZATIONS[i % SPECIALIZATIONS.length]);
+      body.put("experienceYears", 5 + i);
+      body.put("slotDuration", 15);
+      body.put("workingHours", hours);
+      HmsClient.Response created = client.post("POST /admin/doctors", "/admin/doctors", adminToken, body);
+      if (!created.ok()) throw new IllegalStateException("Doctor creation failed with HTTP " + created.status);
+      doctor.doctorId = created.body.path("id").asText();
+      login(client, doctor);
+      doctors.add(doctor);
+    }
+
+    for (int i = 0; i < config.patients; i++) {
+      Account patient = new Account("lt-" + runId + "-pat" + i + "@hms.test", "Patient@123");
+      Map<String, Object> body = new LinkedHashMap<>();
+      body.put("name", "Load Patient " + i);
+      body.put("email", patient.email);
+      body.put("password", patient.password);
+      body.put("age", 20 + i % 60);
+      body.put("gender", i % 2 == 0 ? "F" : "M");
+      body.put("contactInfo", "555-" + i);
+      HmsClient.Response signup = client.post("POST /auth/signup-patient", "/auth/signup-patient", null, body);
+      if (!signup.ok()) throw new IllegalStateException("Patient signup failed with HTTP " + signup.status);
+      patient.token = signup.body.path("token").asText();
+      patients.add(patient);
+    }
+  }
+
+  boolean login(HmsClient client, Account account) {
+    HmsClient.Response res = client.post("POST /auth/login", "/auth/login", null, Map.of("email", account.email, "password", account.password));
+    if (res.ok()) account.token = res.body.path("token").asText();
+    return res.ok();
+  }
+}
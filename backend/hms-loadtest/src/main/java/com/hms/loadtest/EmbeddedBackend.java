@@ -0,0 +1,40 @@
+package com.hms.loadtest;
+
+import com.hms.HmsApplication;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Starts an in-memory Mongo wire-protocol server and the backend in-process on a random port, so
+ * a run needs neither a database install nor network access. The stand-in trades Mongo's storage
+ * engine for a Java map, so absolute latencies are indicative; use --base-url for real numbers.
+ */
+final class EmbeddedBackend implements AutoCloseable {
+  private final MongoServer mongo;
+  private final ConfigurableApplicationContext app;
+  private final String baseUrl;
+
+  EmbeddedBackend() {
+    mongo = new MongoServer(new MemoryBackend());
+    InetSocketAddress address = mongo.bind();
+    app = new SpringApplicationBuilder(HmsApplication.class).run(
+        "--MONGO_URI=mongodb://" + address.getHostString() + ":" + address.getPort(),
+        "--JWT_SECRET=loadtest-secret-loadtest-secret-loadtest-secret",
+        "--spring.data.mongodb.database=hms-loadtest",
+        "--hms.indexes.ensure-on-startup=false",
+        "--server.port=0");
+    baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+  }
+
+  String baseUrl() { return baseUrl; }
+
+  @Override
+  public void close() {
+    app.close();
+    mongo.shutdownNow();
+  }
+}
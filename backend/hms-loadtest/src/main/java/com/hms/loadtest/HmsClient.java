@@ -0,0 +1,84 @@
+package com.hms.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.MissingNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/** Thin JSON-over-HTTP client; every call is timed under an endpoint label such as {@code GET /patient/doctors/{id}}. */
+final class HmsClient {
+  static final class Response {
+    final int status;
+    final JsonNode body;
+
+    Response(int status, JsonNode body) {
+      this.status = status;
+      this.body = body;
+    }
+
+    boolean ok() { return status >= 200 && status < 300; }
+  }
+
+  private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final String baseUrl;
+  private final Metrics metrics;
+
+  HmsClient(String baseUrl, Metrics metrics) {
+    this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    this.metrics = metrics;
+  }
+
+  Response get(String label, String path, String token) {
+    return send(label, HttpRequest.newBuilder(URI.create(baseUrl + path)).GET(), token);
+  }
+
+  Response post(String label, String path, String token, Object body) {
+    return send(label, json(HttpRequest.newBuilder(URI.create(baseUrl + path)), body, "POST"), token);
+  }
+
+  Response put(String label, String path, String token, Object body) {
+    return send(label, json(HttpRequest.newBuilder(URI.create(baseUrl + path)), body, "PUT"), token);
+  }
+
+  private HttpRequest.Builder json(HttpRequest.Builder b, Object body, String method) {
+    try {
+      String payload = body == null ? "" : mapper.writeValueAsString(body);
+      return b.header("Content-Type", "application/json").method(method, HttpRequest.BodyPublishers.ofString(payload));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private Response send(String label, HttpRequest.Builder b, String token) {
+    if (token != null) b.header("Authorization", "Bearer " + token);
+    b.timeout(Duration.ofSeconds(30));
+    long start = System.nanoTime();
+    try {
+      HttpResponse<byte[]> res = http.send(b.build(), HttpResponse.BodyHandlers.ofByteArray());
+      metrics.record(label, res.statusCode(), System.nanoTime() - start);
+      JsonNode body = res.body().length == 0 ? MissingNode.getInstance() : readOrMissing(res.body());
+      return new Response(res.statusCode(), body);
+    } catch (IOException e) {
+      metrics.record(label, 599, System.nanoTime() - start);
+      return new Response(599, MissingNode.getInstance());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new Response(599, MissingNode.getInstance());
+    }
+  }
+
+  private JsonNode readOrMissing(byte[] body) {
+    try {
+      return mapper.readTree(body);
+    } catch (IOException e) {
+      return MissingNode.getInstance();
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.hms.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Command-line options; every option is {@code --name=value}. */
+final class LoadConfig {
+  String baseUrl = "http://localhost:8080";
+  boolean embedded;
+  String adminEmail = "admin@hms.com";
+  String adminPassword = "Admin@123";
+  int clients = 32;
+  Duration duration = Duration.ofSeconds(60);
+  Duration warmup = Duration.ofSeconds(5);
+  int doctors = 5;
+  int patients = 100;
+  int bookingDays = 7;
+  Duration stormAt = Duration.ofSeconds(20);
+  int stormClients = 100;
+  String report = "loadtest-report.json";
+  final Map<Scenario, Integer> mix = new LinkedHashMap<>(Map.of(
+      Scenario.LOGIN, 5,
+      Scenario.BROWSE_DOCTORS, 20,
+      Scenario.SLOT_QUERY, 25,
+      Scenario.EARLIEST_SLOTS, 10,
+      Scenario.BOOK, 15,
+      Scenario.PATIENT_UPCOMING, 10,
+      Scenario.DOCTOR_DAY, 15,
+      Scenario.PRESCRIBE, 5,
+      Scenario.PATIENT_RECORDS, 5));
+
+  static LoadConfig parse(String[] args) {
+    LoadConfig c = new LoadConfig();
+    for (String arg : args) {
+      if (!arg.startsWith("--")) throw new IllegalArgumentException("Unexpected argument " + arg);
+      String[] kv = arg.substring(2).split("=", 2);
+      String v = kv.length > 1 ? kv[1] : "true";
+      switch (kv[0]) {
+        case "base-url" -> c.baseUrl = v;
+        case "embedded" -> c.embedded = Boolean.parseBoolean(v);
+        case "admin-email" -> c.adminEmail = v;
+        case "admin-password" -> c.adminPassword = v;
+        case "clients" -> c.clients = Integer.parseInt(v);
+        case "duration" -> c.duration = duration(v);
+        case "warmup" -> c.warmup = duration(v);
+        case "doctors" -> c.doctors = Integer.parseInt(v);
+        case "patients" -> c.patients = Integer.parseInt(v);
+        case "booking-days" -> c.bookingDays = Integer.parseInt(v);
+        case "storm-at" -> c.stormAt = duration(v);
+        case "storm-clients" -> c.stormClients = Integer.parseInt(v);
+        case "report" -> c.report = v;
+        case "mix" -> {
+          c.mix.clear();
+          for (String part : v.split(",")) {
+            String[] w = part.split(":");
+            c.mix.put(Scenario.valueOf(w[0].trim().toUpperCase().replace('-', '_')), Integer.parseInt(w[1].trim()));
+          }
+        }
+        default -> throw new IllegalArgumentException("Unknown option --" + kv[0]);
+      }
+    }
+    return c;
+  }
+
+  // "90s", "5m", or plain seconds
+  private static Duration duration(String v) {
+    if (v.endsWith("ms")) return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+    if (v.endsWith("m")) return Duration.ofMinutes(Long.parseLong(v.substring(0, v.length() - 1)));
+    if (v.endsWith("s")) return Duration.ofSeconds(Long.parseLong(v.substring(0, v.length() - 1)));
+    return Duration.ofSeconds(Long.parseLong(v));
+  }
+}
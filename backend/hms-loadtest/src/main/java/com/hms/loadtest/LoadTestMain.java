@@ -0,0 +1,90 @@
+package com.hms.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Replays a weighted clinic traffic mix against a running backend ({@code --base-url}) or an
+ * in-process one on embedded Mongo ({@code --embedded}), injects a booking storm part-way through,
+ * and writes per-endpoint throughput, latency percentiles and error/conflict rates as JSON.
+ */
+public final class LoadTestMain {
+  private LoadTestMain() {}
+
+  public static void main(String[] args) throws Exception {
+    LoadConfig config = LoadConfig.parse(args);
+    EmbeddedBackend embedded = config.embedded ? new EmbeddedBackend() : null;
+    try {
+      String baseUrl = embedded != null ? embedded.baseUrl() : config.baseUrl;
+      Metrics metrics = new Metrics();
+      HmsClient client = new HmsClient(baseUrl, metrics);
+      Clinic clinic = new Clinic();
+      System.out.printf("Seeding %d doctors and %d patients against %s%n", config.doctors, config.patients, baseUrl);
+      clinic.seed(client, config);
+      Traffic traffic = new Traffic(client, clinic, config);
+
+      AtomicBoolean running = new AtomicBoolean(true);
+      ExecutorService workers = Executors.newFixedThreadPool(config.clients);
+      for (int i = 0; i < config.clients; i++) {
+        Random random = new Random(i * 31L + 7);
+        workers.execute(() -> {
+          while (running.get()) traffic.runOne(random);
+        });
+      }
+      Thread.sleep(config.warmup.toMillis());
+
+      metrics.recording(true);
+      Instant started = Instant.now();
+      long t0 = System.nanoTime();
+      ScheduledExecutorService storm = Executors.newSingleThreadScheduledExecutor();
+      if (config.stormClients > 0 && config.stormAt.compareTo(config.duration) < 0) {
+        storm.schedule(() -> {
+          try {
+            traffic.bookingStorm();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }, config.stormAt.toMillis(), TimeUnit.MILLISECONDS);
+      }
+      Thread.sleep(config.duration.toMillis());
+      running.set(false);
+      workers.shutdown();
+      workers.awaitTermination(1, TimeUnit.MINUTES);
+      storm.shutdown();
+      storm.awaitTermination(2, TimeUnit.MINUTES);
+      metrics.recording(false);
+      double seconds = (System.nanoTime() - t0) / 1e9;
+
+      Map<String, Object> report = new LinkedHashMap<>();
+      report.put("startedAt", started.toString());
+      report.put("baseUrl", baseUrl);
+      report.put("embedded", config.embedded);
+      report.put("measuredSeconds", Math.round(seconds * 1000) / 1000.0);
+      report.put("clients", config.clients);
+      report.put("doctors", config.doctors);
+      report.put("patients", config.patients);
+      report.put("mix", config.mix);
+      report.put("stormClients", config.stormClients);
+      report.put("stormAtSeconds", config.stormAt.toSeconds());
+      Map<String, Long> scenarios = new LinkedHashMap<>();
+      traffic.runs().forEach((s, n) -> scenarios.put(s.name(), n.get()));
+      report.put("scenarioRuns", scenarios);
+      report.put("endpoints", metrics.summary(seconds));
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(config.report), report);
+      System.out.println("Report written to " + new File(config.report).getAbsolutePath());
+    } finally {
+      if (embedded != null) embedded.close();
+    }
+  }
+}
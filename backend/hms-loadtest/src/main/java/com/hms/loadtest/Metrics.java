@@ -0,0 +1,71 @@
+package com.hms.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Per-endpoint latency samples and status counts; only samples taken while recording is on count. */
+final class Metrics {
+  private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+  private volatile boolean recording;
+
+  void recording(boolean on) { recording = on; }
+
+  void record(String endpoint, int status, long nanos) {
+    if (!recording) return;
+    endpoints.computeIfAbsent(endpoint, k -> new Endpoint()).add(status, nanos);
+  }
+
+  Map<String, Object> summary(double seconds) {
+    Map<String, Object> out = new TreeMap<>();
+    endpoints.forEach((name, e) -> out.put(name, e.summary(seconds)));
+    return out;
+  }
+
+  private static final class Endpoint {
+    private long[] samples = new long[1024];
+    private int size;
+    private final Map<Integer, Long> statuses = new TreeMap<>();
+
+    synchronized void add(int status, long nanos) {
+      if (size == samples.length) samples = Arrays.copyOf(samples, size * 2);
+      samples[size++] = nanos;
+      statuses.merge(status, 1L, Long::sum);
+    }
+
+    synchronized Map<String, Object> summary(double seconds) {
+      long[] sorted = Arrays.copyOf(samples, size);
+      Arrays.sort(sorted);
+      long errors = statuses.entrySet().stream().filter(e -> e.getKey() != 409 && (e.getKey() < 200 || e.getKey() >= 300)).mapToLong(Map.Entry::getValue).sum();
+      long conflicts = statuses.getOrDefault(409, 0L);
+      Map<String, Object> m = new LinkedHashMap<>();
+      m.put("count", size);
+      m.put("throughputPerSec", round(size / seconds));
+      m.put("p50Ms", percentile(sorted, 50));
+      m.put("p90Ms", percentile(sorted, 90));
+      m.put("p99Ms", percentile(sorted, 99));
+      m.put("p999Ms", percentile(sorted, 99.9));
+      m.put("maxMs", size == 0 ? 0 : round(sorted[size - 1] / 1e6));
+      m.put("errors", errors);
+      m.put("errorRate", size == 0 ? 0 : round((double) errors / size));
+      m.put("conflicts", conflicts);
+      m.put("conflictRate", size == 0 ? 0 : round((double) conflicts / size));
+      Map<String, Long> byStatus = new LinkedHashMap<>();
+      statuses.forEach((k, v) -> byStatus.put(String.valueOf(k), v));
+      m.put("statusCounts", byStatus);
+      return m;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+      if (sorted.length == 0) return 0;
+      int idx = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+      return round(sorted[Math.max(0, Math.min(idx, sorted.length - 1))] / 1e6);
+    }
+
+    private static double round(double v) {
+      return Math.round(v * 1000) / 1000.0;
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.hms.loadtest;
+
+enum Scenario {
+  LOGIN,
+  BROWSE_DOCTORS,
+  SLOT_QUERY,
+  EARLIEST_SLOTS,
+  BOOK,
+  PATIENT_UPCOMING,
+  DOCTOR_DAY,
+  PRESCRIBE,
+  PATIENT_RECORDS,
+  BOOKING_STORM
+}
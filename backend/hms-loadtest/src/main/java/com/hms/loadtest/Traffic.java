@@ -0,0 +1,159 @@
+package com.hms.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/** The clinic traffic mix: one method per scenario, each a short user journey. */
+final class Traffic {
+  private final HmsClient client;
+  private final Clinic clinic;
+  private final LoadConfig config;
+  private final Map<Scenario, AtomicLong> runs = new EnumMap<>(Scenario.class);
+  private final List<Scenario> wheel = new ArrayList<>();
+
+  Traffic(HmsClient client, Clinic clinic, LoadConfig config) {
+    this.client = client;
+    this.clinic = clinic;
+    this.config = config;
+    for (Scenario s : Scenario.values()) runs.put(s, new AtomicLong());
+    config.mix.forEach((s, weight) -> {
+      for (int i = 0; i < weight; i++) wheel.add(s);
+    });
+    if (wheel.isEmpty()) throw new IllegalArgumentException("Empty traffic mix");
+  }
+
+  Map<Scenario, AtomicLong> runs() { return runs; }
+
+  void runOne(Random random) {
+    Scenario s = wheel.get(random.nextInt(wheel.size()));
+    runs.get(s).incrementAndGet();
+    switch (s) {
+      case LOGIN -> clinic.login(client, pick(clinic.patients, random));
+      case BROWSE_DOCTORS -> browse(random);
+      case SLOT_QUERY -> slots(pick(clinic.patients, random), pick(clinic.doctors, random), bookingDay(random), "");
+      case EARLIEST_SLOTS -> earliest(pick(clinic.patients, random), random);
+      case BOOK -> book(pick(clinic.patients, random), pick(clinic.doctors, random), bookingDay(random), random, "");
+      case PATIENT_UPCOMING -> client.get("GET /patient/appointments", "/patient/appointments", pick(clinic.patients, random).token);
+      case DOCTOR_DAY -> doctorDay(pick(clinic.doctors, random), random);
+      case PRESCRIBE -> prescribe();
+      case PATIENT_RECORDS -> records(pick(clinic.patients, random));
+      default -> { }
+    }
+  }
+
+  /**
+   * A popular doctor's calendar opens: {@code stormClients} patients fetch the same fresh day and
+   * book at the same instant, then the doctor accepts everything, which exercises conflict handling.
+   */
+  void bookingStorm() throws InterruptedException {
+    runs.get(Scenario.BOOKING_STORM).incrementAndGet();
+    Clinic.Account doctor = clinic.doctors.get(0);
+    LocalDate day = Clinic.today().plusDays(config.bookingDays + 1);
+    ExecutorService pool = Executors.newFixedThreadPool(config.stormClients);
+    CountDownLatch go = new CountDownLatch(1);
+    for (int i = 0; i < config.stormClients; i++) {
+      Clinic.Account patient = clinic.patients.get(i % clinic.patients.size());
+      Random random = new Random(i);
+      pool.execute(() -> {
+        try {
+          go.await();
+          book(patient, doctor, day, random, " [storm]");
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+    }
+    go.countDown();
+    pool.shutdown();
+    pool.awaitTermination(2, TimeUnit.MINUTES);
+
+    HmsClient.Response list = client.get("GET /doctor/appointments [storm]", "/doctor/appointments?date=" + day, doctor.token);
+    ExecutorService accepters = Executors.newFixedThreadPool(Math.max(1, config.stormClients / 10));
+    for (JsonNode a : list.body) {
+      if (!"PENDING".equals(a.path("status").asText())) continue;
+      String id = a.path("id").asText();
+      accepters.execute(() -> client.put("PUT /doctor/appointments/{id}/accept [storm]", "/doctor/appointments/" + id + "/accept", doctor.token, null));
+    }
+    accepters.shutdown();
+    accepters.awaitTermination(2, TimeUnit.MINUTES);
+  }
+
+  private void browse(Random random) {
+    Clinic.Account patient = pick(clinic.patients, random);
+    client.get("GET /patient/doctors", "/patient/doctors", patient.token);
+    client.get("GET /patient/doctors/{id}", "/patient/doctors/" + pick(clinic.doctors, random).doctorId, patient.token);
+  }
+
+  // Cross-doctor search: the request that fans out, over every doctor of the specialization.
+  private void earliest(Clinic.Account patient, Random random) {
+    String specialization = URLEncoder.encode(Clinic.SPECIALIZATIONS[random.nextInt(Clinic.SPECIALIZATIONS.length)], StandardCharsets.UTF_8);
+    client.get("GET /patient/slots/earliest", "/patient/slots/earliest?specialization=" + specialization + "&limit=5", patient.token);
+  }
+
+  private JsonNode slots(Clinic.Account patient, Clinic.Account doctor, LocalDate day, String tag) {
+    return client.get("GET /patient/doctors/{id}/slots" + tag, "/patient/doctors/" + doctor.doctorId + "/slots?date=" + day, patient.token).body;
+  }
+
+  private void book(Clinic.Account patient, Clinic.Account doctor, LocalDate day, Random random, String tag) {
+    JsonNode slots = slots(patient, doctor, day, tag);
+    if (!slots.isArray() || slots.isEmpty()) return;
+    // storms crowd the first few slots; regular bookings spread over the day
+    int idx = tag.isEmpty() ? random.nextInt(slots.size()) : random.nextInt(Math.min(4, slots.size()));
+    Map<String, Object> body = Map.of("doctorId", doctor.doctorId, "slotStartTime", slots.get(idx).asText(), "reason", "Load test visit");
+    client.post("POST /patient/appointments" + tag, "/patient/appointments", patient.token, body);
+  }
+
+  private void doctorDay(Clinic.Account doctor, Random random) {
+    HmsClient.Response list = client.get("GET /doctor/appointments", "/doctor/appointments?date=" + bookingDay(random), doctor.token);
+    if (!list.body.isArray() || list.body.isEmpty()) return;
+    JsonNode a = list.body.get(random.nextInt(list.body.size()));
+    String id = a.path("id").asText();
+    switch (a.path("status").asText()) {
+      case "PENDING" -> client.put("PUT /doctor/appointments/{id}/accept", "/doctor/appointments/" + id + "/accept", doctor.token, null);
+      case "ACCEPTED" -> {
+        if (random.nextInt(10) < 7) {
+          Map<String, Object> timing = Map.of("actualStartTime", a.path("startTime").asText(), "actualEndTime", a.path("endTime").asText());
+          HmsClient.Response res = client.put("PUT /doctor/appointments/{id}/visited", "/doctor/appointments/" + id + "/visited", doctor.token, timing);
+          if (res.ok()) clinic.awaitingPrescription.add(new Clinic.Visit(doctor, id));
+        } else {
+          client.put("PUT /doctor/appointments/{id}/extend", "/doctor/appointments/" + id + "/extend", doctor.token, Map.of("extraMinutes", 5));
+        }
+      }
+      default -> { }
+    }
+  }
+
+  private void prescribe() {
+    Clinic.Visit visit = clinic.awaitingPrescription.poll();
+    if (visit == null) return;
+    Map<String, Object> medication = Map.of("name", "Amoxicillin", "dosage", "500mg", "frequency", "3x daily", "duration", "7 days");
+    Map<String, Object> body = Map.of("medications", List.of(medication), "notes", "Load test prescription");
+    client.post("POST /doctor/appointments/{id}/prescription", "/doctor/appointments/" + visit.appointmentId + "/prescription", visit.doctor.token, body);
+  }
+
+  private void records(Clinic.Account patient) {
+    client.get("GET /patient/appointments/history", "/patient/appointments/history", patient.token);
+    client.get("GET /patient/prescriptions", "/patient/prescriptions", patient.token);
+  }
+
+  private LocalDate bookingDay(Random random) {
+    return Clinic.today().plusDays(1 + random.nextInt(config.bookingDays));
+  }
+
+  private static <T> T pick(List<T> list, Random random) {
+    return list.get(random.nextInt(list.size()));
+  }
+}
@@ -0,0 +1,25 @@
+package com.hms.config;
+
+import com.hms.model.Role;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+public class AuthenticatedUser implements AuthenticatedPrincipal {
+  private final String email;
+  private final String userId;
+  private final Role role;
+  private final String domainId;
+
+  public AuthenticatedUser(String email, String userId, Role role, String domainId) {
+    this.email = email;
+    this.userId = userId;
+    this.role = role;
+    this.domainId = domainId;
+  }
+
+  @Override
+  public String getName() { return email; }
+  public String getEmail() { return email; }
+  public String getUserId() { return userId; }
+  public Role getRole() { return role; }
+  public String getDomainId() { return domainId; }
+}
@@ -0,0 +1,42 @@
+package com.hms.config;
+
+import com.hms.dto.CurrentDoctor;
+import com.hms.dto.CurrentPatient;
+import com.hms.model.Role;
+import com.hms.service.IdentityService;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+@Component
+public class CurrentIdentityArgumentResolver implements HandlerMethodArgumentResolver {
+  private final IdentityService identityService;
+
+  public CurrentIdentityArgumentResolver(IdentityService identityService) {
+    this.identityService = identityService;
+  }
+
+  @Override
+  public boolean supportsParameter(MethodParameter parameter) {
+    Class<?> type = parameter.getParameterType();
+    return type == CurrentDoctor.class || type == CurrentPatient.class;
+  }
+
+  @Override
+  public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer, NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+    Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+    if (auth == null || !auth.isAuthenticated()) throw new RuntimeException("Forbidden");
+    if (auth.getPrincipal() instanceof AuthenticatedUser user && user.getDomainId() != null) {
+      if (parameter.getParameterType() == CurrentDoctor.class && user.getRole() == Role.DOCTOR) return new CurrentDoctor(user.getUserId(), user.getDomainId());
+      if (parameter.getParameterType() == CurrentPatient.class && user.getRole() == Role.PATIENT) return new CurrentPatient(user.getUserId(), user.getDomainId());
+      throw new RuntimeException("Forbidden");
+    }
+    if (parameter.getParameterType() == CurrentDoctor.class) return identityService.currentDoctor(auth.getName());
+    return identityService.currentPatient(auth.getName());
+  }
+}
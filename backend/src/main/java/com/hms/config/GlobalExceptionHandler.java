@@ -1,5 +1,7 @@
 package com.hms.config;
 
+import com.hms.service.ConflictException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -16,13 +18,19 @@ public class GlobalExceptionHandler {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", msg));
   }
 
+  @ExceptionHandler(ConflictException.class)
+  public ResponseEntity<Map<String, String>> handleConflict(ConflictException ex) {
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", ex.getMessage()));
+  }
+
   @ExceptionHandler(RuntimeException.class)
   public ResponseEntity<Map<String, String>> handleRuntime(RuntimeException ex) {
     String m = ex.getMessage();
     HttpStatus status = HttpStatus.BAD_REQUEST;
     if ("Forbidden".equals(m)) status = HttpStatus.FORBIDDEN;
-    if ("Slot not available".equals(m) || "Conflict exists".equals(m) || "Email already exists".equals(m)) status = HttpStatus.CONFLICT;
     if ("Invalid state".equals(m)) status = HttpStatus.BAD_REQUEST;
+    if ("Invalid refresh token".equals(m)) status = HttpStatus.UNAUTHORIZED;
+    if ("Server busy".equals(m)) return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(Map.of("error", m));
     return ResponseEntity.status(status).body(Map.of("error", m));
   }
 }
\ No newline at end of file
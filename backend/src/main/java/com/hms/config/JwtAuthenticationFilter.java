@@ -1,10 +1,16 @@
 package com.hms.config;
 
+import com.hms.model.Role;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -12,15 +18,18 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
   private final JwtTokenProvider jwtTokenProvider;
   private final MongoUserDetailsService userDetailsService;
+  private final MeterRegistry meterRegistry;
 
-  public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, MongoUserDetailsService userDetailsService) {
+  public JwtAuthenticationFilter(JwtTokenProvider jwtTokenProvider, MongoUserDetailsService userDetailsService, MeterRegistry meterRegistry) {
     this.jwtTokenProvider = jwtTokenProvider;
     this.userDetailsService = userDetailsService;
+    this.meterRegistry = meterRegistry;
   }
 
   @Override
@@ -28,14 +37,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     String header = request.getHeader("Authorization");
     if (header != null && header.startsWith("Bearer ")) {
       String token = header.substring(7);
-      if (jwtTokenProvider.validate(token)) {
-        String username = jwtTokenProvider.getUsername(token);
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-        auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-        SecurityContextHolder.getContext().setAuthentication(auth);
+      Timer.Sample sample = Timer.start(meterRegistry);
+      Claims claims = jwtTokenProvider.parse(token);
+      sample.stop(meterRegistry.timer("hms.auth.jwt.verify", "outcome", claims != null ? "valid" : "invalid"));
+      if (claims != null) {
+        UsernamePasswordAuthenticationToken auth = authenticationFor(claims);
+        if (auth != null) {
+          auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+          SecurityContextHolder.getContext().setAuthentication(auth);
+        }
       }
     }
     filterChain.doFilter(request, response);
   }
-}
\ No newline at end of file
+
+  private UsernamePasswordAuthenticationToken authenticationFor(Claims claims) {
+    String roles = claims.get(JwtTokenProvider.CLAIM_ROLES, String.class);
+    if (claims.get(JwtTokenProvider.CLAIM_USER_ID) == null || roles == null) {
+      // Tokens issued before userId/domainId claims existed: fall back to the user lookup.
+      UserDetails userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+      return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+    if (!jwtTokenProvider.isCurrentVersion(claims)) return null;
+    List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(roles));
+    Role role = Role.valueOf(roles.substring("ROLE_".length()));
+    AuthenticatedUser principal = new AuthenticatedUser(claims.getSubject(), claims.get(JwtTokenProvider.CLAIM_USER_ID, String.class), role, claims.get(JwtTokenProvider.CLAIM_DOMAIN_ID, String.class));
+    return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+  }
+}
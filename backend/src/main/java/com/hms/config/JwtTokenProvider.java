@@ -1,50 +1,133 @@
 package com.hms.config;
 
+import com.hms.model.Role;
+import com.hms.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import javax.crypto.SecretKey;
+import java.util.Base64;
 import java.util.Date;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtTokenProvider {
+  public static final String CLAIM_ROLES = "roles";
+  public static final String CLAIM_USER_ID = "uid";
+  public static final String CLAIM_DOMAIN_ID = "did";
+  public static final String CLAIM_VERSION = "ver";
+
   private final SecretKey key;
   private final long expiration;
+  private final TokenVersionRegistry tokenVersionRegistry;
+  private final JwtParser parser;
+  private final long verifiedTtl;
+  private final int verifiedCacheSize;
+  private final ConcurrentHashMap<String, VerifiedToken> verified = new ConcurrentHashMap<>();
 
-  public JwtTokenProvider(@Value("${jwt.secret}") String secret, @Value("${jwt.expiration}") long expiration) {
+  public JwtTokenProvider(@Value("${jwt.secret}") String secret, @Value("${jwt.expiration}") long expiration, TokenVersionRegistry tokenVersionRegistry,
+                          @Value("${jwt.verified-cache.size:10000}") int verifiedCacheSize, @Value("${jwt.verified-cache.ttl:300000}") long verifiedTtl) {
     this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
     this.expiration = expiration;
+    this.tokenVersionRegistry = tokenVersionRegistry;
+    this.parser = Jwts.parser().verifyWith(key).build();
+    this.verifiedTtl = verifiedTtl;
+    this.verifiedCacheSize = verifiedCacheSize;
+  }
+
+  public String generateToken(User user, String domainId) {
+    return generateToken(user.getEmail(), user.getRole(), user.getId(), domainId);
   }
 
-  public String generateToken(Authentication authentication) {
-    String authorities = authentication.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(","));
+  public String generateToken(String email, Role role, String userId, String domainId) {
     Date now = new Date();
     Date exp = new Date(now.getTime() + expiration);
     return Jwts.builder()
-        .subject(authentication.getName())
-        .claim("roles", authorities)
+        .subject(email)
+        .claim(CLAIM_ROLES, "ROLE_" + role.name())
+        .claim(CLAIM_USER_ID, userId)
+        .claim(CLAIM_DOMAIN_ID, domainId)
+        .claim(CLAIM_VERSION, tokenVersionRegistry.current(userId))
         .issuedAt(now)
         .expiration(exp)
         .signWith(key)
         .compact();
   }
 
+  /**
+   * Verifies the token and returns its claims, or null when the signature or expiry check fails.
+   * Successful verifications are cached by token digest until the earlier of the token's
+   * expiry and the configured TTL. Lookups are lock-free; a full cache first drops expired
+   * entries and is cleared if that frees nothing.
+   */
+  public Claims parse(String token) {
+    String digest = digest(token);
+    long now = System.currentTimeMillis();
+    VerifiedToken cached = verified.get(digest);
+    if (cached != null) {
+      if (cached.expiresAt > now) return cached.claims;
+      verified.remove(digest, cached);
+    }
+    Claims claims;
+    try {
+      claims = parser.parseSignedClaims(token).getPayload();
+    } catch (JwtException | IllegalArgumentException e) {
+      return null;
+    }
+    long expiresAt = now + verifiedTtl;
+    if (claims.getExpiration() != null) expiresAt = Math.min(expiresAt, claims.getExpiration().getTime());
+    if (verifiedCacheSize > 0) {
+      if (verified.size() >= verifiedCacheSize) evictExpired(now);
+      verified.put(digest, new VerifiedToken(claims, expiresAt));
+    }
+    return claims;
+  }
+
   public String getUsername(String token) {
-    return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload().getSubject();
+    Claims claims = parse(token);
+    if (claims == null) throw new JwtException("Invalid token");
+    return claims.getSubject();
   }
 
   public boolean validate(String token) {
+    return parse(token) != null;
+  }
+
+  public boolean isCurrentVersion(Claims claims) {
+    String userId = claims.get(CLAIM_USER_ID, String.class);
+    Number version = claims.get(CLAIM_VERSION, Number.class);
+    return userId != null && version != null && version.longValue() >= tokenVersionRegistry.current(userId);
+  }
+
+  private void evictExpired(long now) {
+    verified.values().removeIf(v -> v.expiresAt <= now);
+    if (verified.size() >= verifiedCacheSize) verified.clear();
+  }
+
+  private static String digest(String token) {
     try {
-      Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
-      return true;
-    } catch (Exception e) {
-      return false;
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class VerifiedToken {
+    private final Claims claims;
+    private final long expiresAt;
+
+    private VerifiedToken(Claims claims, long expiresAt) {
+      this.claims = claims;
+      this.expiresAt = expiresAt;
     }
   }
 }
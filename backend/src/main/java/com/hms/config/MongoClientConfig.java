@@ -0,0 +1,13 @@
+package com.hms.config;
+
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MongoClientConfig {
+  @Bean
+  public MongoClientSettingsBuilderCustomizer queryRecordingCustomizer() {
+    return builder -> builder.addCommandListener(new QueryRecordingCommandListener());
+  }
+}
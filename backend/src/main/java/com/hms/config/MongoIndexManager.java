@@ -0,0 +1,192 @@
+package com.hms.config;
+
+import com.hms.dto.IndexReport;
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentChange;
+import com.hms.model.Doctor;
+import com.hms.model.MedicationIndexEntry;
+import com.hms.model.MedicationName;
+import com.hms.model.Patient;
+import com.hms.model.Prescription;
+import com.hms.model.RefreshToken;
+import com.hms.model.SlotReservation;
+import com.hms.model.TimelineEntry;
+import com.hms.model.User;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Owns the Mongo indexes declared on the model: creates them at startup and reports indexes that
+ * are missing, undeclared or never used, plus any known query shape whose winning plan is a
+ * collection scan. The query shapes mirror the repository methods and MongoTemplate queries.
+ */
+@Component
+public class MongoIndexManager {
+  private static final Logger log = LoggerFactory.getLogger(MongoIndexManager.class);
+  static final List<Class<?>> ENTITIES = List.of(User.class, Doctor.class, Patient.class, Appointment.class, Prescription.class, SlotReservation.class, RefreshToken.class, TimelineEntry.class, MedicationIndexEntry.class, MedicationName.class, AppointmentChange.class);
+
+  private final MongoTemplate mongoTemplate;
+  private final boolean ensureOnStartup;
+  private final List<QueryShape> shapes = queryShapes();
+
+  public MongoIndexManager(MongoTemplate mongoTemplate, @Value("${hms.indexes.ensure-on-startup:true}") boolean ensureOnStartup) {
+    this.mongoTemplate = mongoTemplate;
+    this.ensureOnStartup = ensureOnStartup;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onStartup() {
+    if (!ensureOnStartup) return;
+    try {
+      ensureIndexes();
+      IndexReport report = report();
+      if (report.isHealthy()) log.info("Mongo indexes verified");
+      else log.warn("Mongo index problems: missing={} collectionScans={}", report.getMissing(), report.getCollectionScans());
+    } catch (RuntimeException e) {
+      log.warn("Mongo index verification skipped: {}", e.getMessage());
+    }
+  }
+
+  public void ensureIndexes() {
+    for (Class<?> entity : ENTITIES) {
+      for (IndexDefinition def : declared(entity)) mongoTemplate.indexOps(entity).ensureIndex(def);
+    }
+  }
+
+  public IndexReport report() {
+    IndexReport report = new IndexReport();
+    for (Class<?> entity : ENTITIES) {
+      String collection = mongoTemplate.getCollectionName(entity);
+      Map<String, String> existing = new LinkedHashMap<>();
+      for (Document ix : mongoTemplate.getCollection(collection).listIndexes()) {
+        existing.put(keyOf((Document) ix.get("key")), ix.getString("name"));
+      }
+      List<String> declaredKeys = new ArrayList<>();
+      for (IndexDefinition def : declared(entity)) {
+        String key = keyOf(def.getIndexKeys());
+        declaredKeys.add(key);
+        if (!existing.containsKey(key)) report.getMissing().add(collection + " " + key);
+      }
+      existing.forEach((key, name) -> {
+        if (!"_id_".equals(name) && !declaredKeys.contains(key)) report.getUndeclared().add(collection + "." + name);
+      });
+      for (Document stat : mongoTemplate.getCollection(collection).aggregate(List.of(new Document("$indexStats", new Document())))) {
+        Document accesses = (Document) stat.get("accesses");
+        long ops = accesses == null ? 0 : ((Number) accesses.get("ops")).longValue();
+        Date since = accesses == null ? null : accesses.getDate("since");
+        if (ops == 0 && !"_id_".equals(stat.getString("name"))) report.getUnused().add(collection + "." + stat.getString("name") + " (since " + since + ")");
+      }
+    }
+    report.getCollectionScans().addAll(collectionScans());
+    return report;
+  }
+
+  /** Names of the known query shapes whose winning plan is a collection scan. */
+  List<String> collectionScans() {
+    List<String> out = new ArrayList<>();
+    for (QueryShape shape : shapes) {
+      if (isCollectionScan(shape)) out.add(shape.name);
+    }
+    return out;
+  }
+
+  private List<IndexDefinition> declared(Class<?> entity) {
+    MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+    List<IndexDefinition> out = new ArrayList<>();
+    resolver.resolveIndexFor(entity).forEach(out::add);
+    return out;
+  }
+
+  private boolean isCollectionScan(QueryShape shape) {
+    Document find = new Document("find", shape.collection).append("filter", shape.filter);
+    if (shape.sort != null) find.append("sort", shape.sort);
+    Document explain = mongoTemplate.getDb().runCommand(new Document("explain", find).append("verbosity", "queryPlanner"));
+    Document planner = (Document) explain.get("queryPlanner");
+    return planner != null && containsStage(planner.get("winningPlan"), "COLLSCAN");
+  }
+
+  private static boolean containsStage(Object node, String stage) {
+    if (node instanceof Document d) {
+      if (stage.equals(d.get("stage"))) return true;
+      return d.values().stream().anyMatch(v -> containsStage(v, stage));
+    }
+    if (node instanceof List<?> l) return l.stream().anyMatch(v -> containsStage(v, stage));
+    return false;
+  }
+
+  private static String keyOf(Document keys) {
+    return keys.entrySet().stream()
+        .map(e -> e.getKey() + ":" + (e.getValue() instanceof Number n ? String.valueOf(n.intValue()) : e.getValue()))
+        .collect(Collectors.joining(",", "{", "}"));
+  }
+
+  static List<QueryShape> queryShapes() {
+    Date t = new Date();
+    Document range = new Document("$gt", t).append("$lt", t);
+    Document active = new Document("$in", List.of("PENDING", "ACCEPTED"));
+    Document byStartTime = new Document("startTime", 1).append("_id", 1);
+    return List.of(
+        new QueryShape("users.findByEmail", "users", new Document("email", "x"), null),
+        new QueryShape("doctors.findByUserId", "doctors", new Document("userId", "x"), null),
+        new QueryShape("patients.findByUserId", "patients", new Document("userId", "x"), null),
+        new QueryShape("appointments.findByDoctorIdAndStatus", "appointments", new Document("doctorId", "x").append("status", "ACCEPTED"), null),
+        new QueryShape("appointments.findByDoctorIdAndStatusInAndStartTimeBetween", "appointments", new Document("doctorId", "x").append("status", active).append("startTime", range), null),
+        new QueryShape("appointments.findByDoctorIdAndStartTimeBetween", "appointments", new Document("doctorId", "x").append("startTime", range), null),
+        new QueryShape("appointments.findByDoctorIdAndStartTimeAfterOrderByStartTimeAsc", "appointments", new Document("doctorId", "x").append("startTime", new Document("$gt", t)), new Document("startTime", 1)),
+        new QueryShape("appointments.findByPatientIdAndStatusIn", "appointments", new Document("patientId", "x").append("status", active), null),
+        new QueryShape("appointments.findByPatientIdAndEndTimeBefore", "appointments", new Document("patientId", "x").append("endTime", new Document("$lt", t)), null),
+        new QueryShape("appointments.doctorDayPage", "appointments", new Document("doctorId", "x").append("startTime", range), byStartTime),
+        new QueryShape("appointments.patientUpcomingPage", "appointments", new Document("patientId", "x").append("status", active), byStartTime),
+        new QueryShape("appointments.doctorPatientHistoryPage", "appointments", new Document("doctorId", "x").append("patientId", "x").append("status", "VISITED"), byStartTime),
+        new QueryShape("appointments.patientVisitsPage", "appointments", new Document("patientId", "x").append("status", "VISITED"), byStartTime),
+        new QueryShape("appointments.patientHistoryPage", "appointments", new Document("patientId", "x").append("endTime", new Document("$lt", t)), byStartTime),
+        new QueryShape("appointments.occupancyDay", "appointments", new Document("doctorId", "x").append("status", "ACCEPTED").append("startTime", new Document("$gte", t).append("$lt", t)).append("endTime", new Document("$gt", t)), null),
+        new QueryShape("appointments.cascadeDue", "appointments", new Document("cascade.availableAt", new Document("$lte", t)), new Document("cascade.availableAt", 1)),
+        new QueryShape("appointments.cascadeDead", "appointments", new Document("cascade.deadAt", new Document("$exists", true)), new Document("cascade.deadAt", 1)),
+        new QueryShape("prescriptions.findByPatientId", "prescriptions", new Document("patientId", "x"), new Document("_id", 1)),
+        new QueryShape("prescriptions.findByAppointmentId", "prescriptions", new Document("appointmentId", "x"), null),
+        new QueryShape("prescriptions.findByPatientIdAndAppointmentIdIn", "prescriptions", new Document("patientId", "x").append("appointmentId", new Document("$in", List.of("x"))), null),
+        new QueryShape("prescriptions.findByPatientIdAndDoctorIdAndAppointmentIdIn", "prescriptions", new Document("patientId", "x").append("doctorId", "x").append("appointmentId", new Document("$in", List.of("x"))), null),
+        new QueryShape("patient_timeline.historyPage", "patient_timeline", new Document("patientId", "x").append("endTime", new Document("$lt", t)), byStartTime),
+        new QueryShape("patient_timeline.prescribedPage", "patient_timeline", new Document("patientId", "x").append("prescriptionCount", new Document("$gt", 0)), byStartTime),
+        new QueryShape("patient_timeline.byDoctor", "patient_timeline", new Document("doctorId", "x"), null),
+        new QueryShape("medication_index.byPrescribedAt", "medication_index", new Document("medication", "x").append("prescribedAt", new Document("$gte", t).append("$lt", t)), new Document("prescribedAt", 1).append("_id", 1)),
+        new QueryShape("medication_index.byDoctor", "medication_index", new Document("medication", "x").append("doctorId", "x").append("prescribedAt", new Document("$gte", t).append("$lt", t)), new Document("prescribedAt", 1).append("_id", 1)),
+        new QueryShape("medication_index.byPatient", "medication_index", new Document("patientId", "x"), null),
+        new QueryShape("medication_index.byMedication", "medication_index", new Document("medication", "x"), new Document("prescribedAt", 1).append("_id", 1)),
+        new QueryShape("medication_index.current", "medication_index", new Document("medication", "x").append("activeUntil", new Document("$gte", t)), new Document("activeUntil", 1).append("_id", 1)),
+        new QueryShape("appointment_changes.relay", "appointment_changes", new Document("createdAt", new Document("$gt", t).append("$lte", t)).append("origin", new Document("$ne", "x")), new Document("createdAt", 1)),
+        new QueryShape("refresh_tokens.revokeFamily", "refresh_tokens", new Document("family", "x"), null),
+        new QueryShape("refresh_tokens.revokeUser", "refresh_tokens", new Document("userId", "x"), null)
+    );
+  }
+
+  static final class QueryShape {
+    final String name;
+    final String collection;
+    final Document filter;
+    final Document sort;
+
+    private QueryShape(String name, String collection, Document filter, Document sort) {
+      this.name = name;
+      this.collection = collection;
+      this.filter = filter;
+      this.sort = sort;
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package com.hms.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Opens a {@link QueryRecorder} recording for each HTTP request and, when it completes, records
+ * hms.request.queries per URI template and warns about requests over the query budget or ones that
+ * repeat a query shape, which is usually a lookup inside a loop.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class QueryAccountingFilter extends OncePerRequestFilter {
+  private static final Logger log = LoggerFactory.getLogger(QueryAccountingFilter.class);
+
+  private final MeterRegistry meterRegistry;
+  private final int budget;
+  private final int repeatThreshold;
+
+  public QueryAccountingFilter(MeterRegistry meterRegistry, @Value("${hms.queries.budget:20}") int budget, @Value("${hms.queries.repeat-threshold:5}") int repeatThreshold) {
+    this.meterRegistry = meterRegistry;
+    this.budget = budget;
+    this.repeatThreshold = repeatThreshold;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+    QueryRecorder.Recording recording = QueryRecorder.start();
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      QueryRecorder.stop();
+      report(request, recording);
+    }
+  }
+
+  private void report(HttpServletRequest request, QueryRecorder.Recording recording) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+    DistributionSummary.builder("hms.request.queries").tag("method", request.getMethod()).tag("uri", uri)
+        .register(meterRegistry).record(recording.getCommands());
+    Map.Entry<String, Long> top = recording.mostRepeated();
+    if (recording.getCommands() > budget) {
+      log.warn("{} {} issued {} Mongo commands (budget {}): {}", request.getMethod(), uri, recording.getCommands(), budget, recording);
+    } else if (top != null && top.getValue() > repeatThreshold) {
+      log.warn("{} {} repeated one query shape {} times, likely a lookup in a loop: {}", request.getMethod(), uri, top.getValue(), top.getKey());
+    }
+  }
+}
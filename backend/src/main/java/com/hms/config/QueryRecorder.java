@@ -0,0 +1,126 @@
+package com.hms.config;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the Mongo commands issued on behalf of one unit of work: commands, documents returned,
+ * time spent and how often each query shape repeats. QueryAccountingFilter opens a recording per
+ * HTTP request; {@link #capture(Supplier)} opens one around any block of code, which is what tests
+ * use to pin an endpoint's query count. Recordings nest: one started while another is open also
+ * counts into the outer one, so a capture around a MockMvc call sees the commands the filter's
+ * per-request recording saw. Recordings follow work forked through FanOut.
+ */
+public final class QueryRecorder {
+  private static final ThreadLocal<Recording> CURRENT = new ThreadLocal<>();
+
+  private QueryRecorder() {
+  }
+
+  public static Recording current() {
+    return CURRENT.get();
+  }
+
+  public static Recording start() {
+    Recording r = new Recording(CURRENT.get());
+    CURRENT.set(r);
+    return r;
+  }
+
+  /** Closes the innermost recording, making the one it was nested in current again. */
+  public static void stop() {
+    Recording r = CURRENT.get();
+    if (r != null && r.parent != null) CURRENT.set(r.parent);
+    else CURRENT.remove();
+  }
+
+  public static Recording captureRun(Runnable work) {
+    return capture(() -> {
+      work.run();
+      return null;
+    }).recording();
+  }
+
+  public static <T> Captured<T> capture(Supplier<T> work) {
+    Recording r = start();
+    try {
+      return new Captured<>(work.get(), r);
+    } finally {
+      stop();
+    }
+  }
+
+  /** Wraps a task so it records into the caller's recording, if any, when run on another thread. */
+  public static <T> Callable<T> propagate(Callable<T> task) {
+    Recording r = CURRENT.get();
+    if (r == null) return task;
+    return () -> {
+      Recording previous = CURRENT.get();
+      CURRENT.set(r);
+      try {
+        return task.call();
+      } finally {
+        if (previous != null) CURRENT.set(previous);
+        else CURRENT.remove();
+      }
+    };
+  }
+
+  public record Captured<T>(T result, Recording recording) {
+  }
+
+  public static final class Recording {
+    private final Recording parent;
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder documents = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final Map<String, LongAdder> shapes = new ConcurrentHashMap<>();
+
+    private Recording(Recording parent) {
+      this.parent = parent;
+    }
+
+    void record(String shape, long docs, long elapsedNanos) {
+      commands.increment();
+      documents.add(docs);
+      nanos.add(elapsedNanos);
+      shapes.computeIfAbsent(shape, k -> new LongAdder()).increment();
+      if (parent != null) parent.record(shape, docs, elapsedNanos);
+    }
+
+    public long getCommands() { return commands.sum(); }
+    public long getDocuments() { return documents.sum(); }
+    public double getElapsedMillis() { return nanos.sum() / 1_000_000.0; }
+
+    public Map<String, Long> getShapes() {
+      return shapes.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().sum()));
+    }
+
+    public Map.Entry<String, Long> mostRepeated() {
+      return getShapes().entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+    }
+
+    public void assertQueriesAtMost(int max) {
+      if (getCommands() > max) throw new AssertionError("Expected at most " + max + " Mongo commands but saw " + this);
+    }
+
+    public void assertNoRepeatsOver(int max) {
+      Map.Entry<String, Long> top = mostRepeated();
+      if (top != null && top.getValue() > max) throw new AssertionError("Query shape repeated " + top.getValue() + " times: " + top.getKey());
+    }
+
+    @Override
+    public String toString() {
+      String breakdown = getShapes().entrySet().stream()
+          .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+          .map(e -> e.getValue() + "x " + e.getKey())
+          .collect(Collectors.joining(", "));
+      return getCommands() + " commands, " + getDocuments() + " docs, " + String.format("%.1f", getElapsedMillis()) + " ms [" + breakdown + "]";
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.hms.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds the calling thread's {@link QueryRecorder} recording. The shape of a command is its name,
+ * collection and filter with values masked, so two lookups by different ids count as a repeat.
+ */
+public class QueryRecordingCommandListener implements CommandListener {
+  private final Map<Integer, Pending> pending = new ConcurrentHashMap<>();
+
+  private record Pending(QueryRecorder.Recording recording, String shape) {
+  }
+
+  @Override
+  public void commandStarted(CommandStartedEvent event) {
+    QueryRecorder.Recording r = QueryRecorder.current();
+    if (r != null) pending.put(event.getRequestId(), new Pending(r, shapeOf(event.getCommandName(), event.getCommand())));
+  }
+
+  @Override
+  public void commandSucceeded(CommandSucceededEvent event) {
+    Pending p = pending.remove(event.getRequestId());
+    if (p != null) p.recording().record(p.shape(), documentsIn(event.getResponse()), event.getElapsedTime(TimeUnit.NANOSECONDS));
+  }
+
+  @Override
+  public void commandFailed(CommandFailedEvent event) {
+    Pending p = pending.remove(event.getRequestId());
+    if (p != null) p.recording().record(p.shape(), 0, event.getElapsedTime(TimeUnit.NANOSECONDS));
+  }
+
+  static String shapeOf(String commandName, BsonDocument command) {
+    BsonValue collection = command.get(commandName);
+    StringBuilder shape = new StringBuilder(commandName);
+    if (collection != null && collection.isString()) shape.append(' ').append(collection.asString().getValue());
+    BsonValue filter = firstPresent(command, "filter", "query", "q");
+    if (filter == null && command.containsKey("updates")) filter = firstStatement(command.getArray("updates"));
+    if (filter == null && command.containsKey("deletes")) filter = firstStatement(command.getArray("deletes"));
+    if (filter == null && command.containsKey("pipeline")) filter = command.getArray("pipeline");
+    if (filter != null) shape.append(' ').append(mask(filter));
+    BsonValue sort = command.get("sort");
+    if (sort != null && sort.isDocument()) shape.append(" sort ").append(sort.asDocument().keySet());
+    return shape.toString();
+  }
+
+  private static BsonValue firstPresent(BsonDocument d, String... keys) {
+    for (String k : keys) if (d.containsKey(k)) return d.get(k);
+    return null;
+  }
+
+  private static BsonValue firstStatement(BsonArray statements) {
+    return statements.isEmpty() || !statements.get(0).isDocument() ? null : statements.get(0).asDocument().get("q");
+  }
+
+  private static String mask(BsonValue v) {
+    if (v.isDocument()) {
+      StringBuilder sb = new StringBuilder("{");
+      for (Map.Entry<String, BsonValue> e : v.asDocument().entrySet()) {
+        if (sb.length() > 1) sb.append(", ");
+        sb.append(e.getKey()).append(": ").append(mask(e.getValue()));
+      }
+      return sb.append('}').toString();
+    }
+    if (v.isArray()) {
+      BsonArray a = v.asArray();
+      return a.isEmpty() ? "[]" : a.get(0).isDocument() || a.get(0).isArray() ? "[" + mask(a.get(0)) + ", ...]" : "[?]";
+    }
+    return "?";
+  }
+
+  private static long documentsIn(BsonDocument response) {
+    BsonValue cursor = response.get("cursor");
+    if (cursor != null && cursor.isDocument()) {
+      BsonValue batch = firstPresent(cursor.asDocument(), "firstBatch", "nextBatch");
+      return batch != null && batch.isArray() ? batch.asArray().size() : 0;
+    }
+    if (response.containsKey("value")) return response.get("value").isNull() ? 0 : 1;
+    BsonValue n = response.get("n");
+    return n != null && n.isNumber() ? n.asNumber().longValue() : 0;
+  }
+}
@@ -1,49 +1,45 @@
 package com.hms.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
 
 @Configuration
 @EnableMethodSecurity
 public class SecurityConfig {
   private final JwtAuthenticationFilter jwtAuthenticationFilter;
-  private final MongoUserDetailsService userDetailsService;
+  private final List<String> metricsAllowedAddresses;
 
-  public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, MongoUserDetailsService userDetailsService) {
+  public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, @Value("${hms.metrics.allowed-addresses:127.0.0.1,::1}") List<String> metricsAllowedAddresses) {
     this.jwtAuthenticationFilter = jwtAuthenticationFilter;
-    this.userDetailsService = userDetailsService;
+    this.metricsAllowedAddresses = metricsAllowedAddresses;
   }
 
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
-  }
-
-  @Bean
-  public DaoAuthenticationProvider authenticationProvider() {
-    DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
-    provider.setUserDetailsService(userDetailsService);
-    provider.setPasswordEncoder(passwordEncoder());
-    return provider;
-  }
-
-  @Bean
-  public AuthenticationManager authenticationManager(AuthenticationConfiguration configuration) throws Exception {
-    return configuration.getAuthenticationManager();
+  public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry, @Value("${hms.passwords.bcrypt-strength:10}") int strength) {
+    return new TimedPasswordEncoder(new BCryptPasswordEncoder(strength), meterRegistry);
   }
 
   @Bean
@@ -51,19 +47,33 @@ public class SecurityConfig {
     http.csrf(csrf -> csrf.disable())
         .cors(cors -> cors.configurationSource(corsConfigurationSource()))
         .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .exceptionHandling(eh -> eh.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
         .authorizeHttpRequests(auth -> auth
+            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
             .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
             .requestMatchers("/auth/**").permitAll()
+            .requestMatchers("/actuator/health").permitAll()
+            .requestMatchers("/actuator/prometheus").access(metricsAccess())
             .requestMatchers("/admin/**").hasRole("ADMIN")
             .requestMatchers("/doctor/**").hasRole("DOCTOR")
             .requestMatchers("/patient/**").hasRole("PATIENT")
             .anyRequest().authenticated()
         )
-        .authenticationProvider(authenticationProvider())
         .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
     return http.build();
   }
 
+  // Scrapers on hms.metrics.allowed-addresses (IPs or CIDR ranges) need no token; anyone else must be an admin.
+  private AuthorizationManager<RequestAuthorizationContext> metricsAccess() {
+    List<IpAddressMatcher> allowed = metricsAllowedAddresses.stream().map(String::trim).filter(a -> !a.isEmpty()).map(IpAddressMatcher::new).toList();
+    AuthorizationManager<RequestAuthorizationContext> admin = AuthorityAuthorizationManager.hasRole("ADMIN");
+    return (authentication, context) -> {
+      String remote = context.getRequest().getRemoteAddr();
+      if (allowed.stream().anyMatch(m -> m.matches(remote))) return new AuthorizationDecision(true);
+      return admin.check(authentication, context);
+    };
+  }
+
   @Bean
   public CorsConfigurationSource corsConfigurationSource() {
     CorsConfiguration config = new CorsConfiguration();
@@ -0,0 +1,42 @@
+package com.hms.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Records how long each hash and verify takes in the hms.auth.password timer, tagged
+ * operation=encode or operation=matches. BCrypt is the deliberate cost in every login and
+ * signup, so it is measured separately from the request.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+  private final PasswordEncoder delegate;
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+
+  public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.encodeTimer = meterRegistry.timer("hms.auth.password", "operation", "encode");
+    this.matchesTimer = meterRegistry.timer("hms.auth.password", "operation", "matches");
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return encodeTimer.record(() -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    Timer.Sample sample = Timer.start();
+    try {
+      return delegate.matches(rawPassword, encodedPassword);
+    } finally {
+      sample.stop(matchesTimer);
+    }
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+}
@@ -0,0 +1,70 @@
+package com.hms.config;
+
+import com.hms.model.User;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user token version. Tokens carry the version current at issue time and are rejected once
+ * the user's version has been bumped (delete, email change) or the user no longer exists. The
+ * version lives on the user document; reads are cached for {@code hms.auth.token-version.ttl-ms},
+ * so a bump on another node takes effect here within that window.
+ */
+@Component
+public class TokenVersionRegistry {
+  /** Version reported for users that no longer exist; no token carries it. */
+  public static final long REVOKED = Long.MAX_VALUE;
+
+  private final MongoTemplate mongoTemplate;
+  private final long ttlMillis;
+  private final int maxEntries;
+  private final ConcurrentHashMap<String, Cached> versions = new ConcurrentHashMap<>();
+
+  public TokenVersionRegistry(MongoTemplate mongoTemplate, @Value("${hms.auth.token-version.ttl-ms:30000}") long ttlMillis,
+                              @Value("${hms.auth.token-version.cache-size:100000}") int maxEntries) {
+    this.mongoTemplate = mongoTemplate;
+    this.ttlMillis = ttlMillis;
+    this.maxEntries = maxEntries;
+  }
+
+  public long current(String userId) {
+    long now = System.currentTimeMillis();
+    Cached cached = versions.get(userId);
+    if (cached != null && cached.expiresAt > now) return cached.version;
+    long version = load(userId);
+    if (versions.size() >= maxEntries) versions.values().removeIf(c -> c.expiresAt <= now);
+    if (versions.size() < maxEntries) versions.put(userId, new Cached(version, now + ttlMillis));
+    return version;
+  }
+
+  public void bump(String userId) {
+    mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(userId)), new Update().inc("tokenVersion", 1), User.class);
+    versions.remove(userId);
+  }
+
+  private long load(String userId) {
+    Query query = new Query(Criteria.where("_id").is(userId));
+    query.fields().include("tokenVersion");
+    Document user = mongoTemplate.findOne(query, Document.class, mongoTemplate.getCollectionName(User.class));
+    if (user == null) return REVOKED;
+    Number version = (Number) user.get("tokenVersion");
+    return version == null ? 0L : version.longValue();
+  }
+
+  private static final class Cached {
+    private final long version;
+    private final long expiresAt;
+
+    private Cached(long version, long expiresAt) {
+      this.version = version;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.hms.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+  private final CurrentIdentityArgumentResolver currentIdentityArgumentResolver;
+
+  public WebConfig(CurrentIdentityArgumentResolver currentIdentityArgumentResolver) {
+    this.currentIdentityArgumentResolver = currentIdentityArgumentResolver;
+  }
+
+  @Override
+  public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+    resolvers.add(currentIdentityArgumentResolver);
+  }
+}
@@ -1,27 +1,54 @@
 package com.hms.controller;
 
+import com.hms.config.MongoIndexManager;
 import com.hms.dto.CreateDoctorRequest;
+import com.hms.dto.IndexReport;
+import com.hms.dto.MedicationReindexReport;
+import com.hms.dto.TimelineRebuildReport;
 import com.hms.dto.AdminPatientDto;
+import com.hms.dto.CursorPage;
 import com.hms.dto.UpdatePatientAdminRequest;
 import com.hms.model.Doctor;
-import com.hms.model.User;
+import com.hms.model.MedicationIndexEntry;
+import com.hms.model.MedicationName;
+import com.hms.dto.DeadCascadeDto;
 import com.hms.dto.DoctorDto;
-import com.hms.model.Patient;
 import com.hms.service.AdminService;
+import com.hms.service.CascadeWorker;
+import com.hms.service.DoctorDirectory;
+import com.hms.service.EnrichmentService;
+import com.hms.service.MedicationIndexService;
+import com.hms.service.TimelineService;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/admin")
 public class AdminController {
   private final AdminService adminService;
+  private final EnrichmentService enrichmentService;
+  private final DoctorDirectory doctorDirectory;
+  private final NdjsonWriter ndjsonWriter;
+  private final MongoIndexManager indexManager;
+  private final TimelineService timelineService;
+  private final MedicationIndexService medicationIndexService;
+  private final CascadeWorker cascadeWorker;
 
-  public AdminController(AdminService adminService) {
+  public AdminController(AdminService adminService, EnrichmentService enrichmentService, DoctorDirectory doctorDirectory, NdjsonWriter ndjsonWriter, MongoIndexManager indexManager, TimelineService timelineService, MedicationIndexService medicationIndexService, CascadeWorker cascadeWorker) {
     this.adminService = adminService;
+    this.enrichmentService = enrichmentService;
+    this.doctorDirectory = doctorDirectory;
+    this.ndjsonWriter = ndjsonWriter;
+    this.indexManager = indexManager;
+    this.timelineService = timelineService;
+    this.medicationIndexService = medicationIndexService;
+    this.cascadeWorker = cascadeWorker;
   }
 
   @PostMapping("/doctors")
@@ -30,38 +57,16 @@ public class AdminController {
   }
 
   @GetMapping("/doctors")
-  public ResponseEntity<List<DoctorDto>> listDoctors() {
-    List<Doctor> docs = adminService.listDoctors();
-    List<DoctorDto> out = docs.stream().map(d -> {
-      DoctorDto dto = new DoctorDto();
-      dto.setId(d.getId());
-      dto.setUserId(d.getUserId());
-      User u = adminService.getUserById(d.getUserId());
-      dto.setName(u != null ? u.getName() : null);
-      dto.setEmail(u != null ? u.getEmail() : null);
-      dto.setSpecialization(d.getSpecialization());
-      dto.setExperienceYears(d.getExperienceYears());
-      dto.setSlotDuration(d.getSlotDuration());
-      dto.setWorkingHours(d.getWorkingHours());
-      return dto;
-    }).collect(Collectors.toList());
-    return ResponseEntity.ok(out);
+  public ResponseEntity<List<DoctorDto>> listDoctors(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit) {
+    DoctorDirectory.Snapshot snapshot = doctorDirectory.snapshot();
+    CursorPage<DoctorDto> page = snapshot.page(cursor, limit);
+    return Pages.builder(page).eTag(snapshot.getVersion()).body(page.getItems());
   }
 
   @GetMapping("/doctors/{id}")
   public ResponseEntity<DoctorDto> getDoctor(@PathVariable String id) {
-    Doctor d = adminService.getDoctor(id);
-    User u = adminService.getUserById(d.getUserId());
-    DoctorDto dto = new DoctorDto();
-    dto.setId(d.getId());
-    dto.setUserId(d.getUserId());
-    dto.setName(u != null ? u.getName() : null);
-    dto.setEmail(u != null ? u.getEmail() : null);
-    dto.setSpecialization(d.getSpecialization());
-    dto.setExperienceYears(d.getExperienceYears());
-    dto.setSlotDuration(d.getSlotDuration());
-    dto.setWorkingHours(d.getWorkingHours());
-    return ResponseEntity.ok(dto);
+    DoctorDto doctor = doctorDirectory.require(id);
+    return ResponseEntity.ok().eTag(doctorDirectory.snapshot().getVersion()).body(doctor);
   }
 
   @PutMapping("/doctors/{id}")
@@ -71,21 +76,18 @@ public class AdminController {
   public ResponseEntity<Void> deleteDoctor(@PathVariable String id) { adminService.deleteDoctor(id); return ResponseEntity.noContent().build(); }
 
   @GetMapping("/patients")
-  public ResponseEntity<List<AdminPatientDto>> listPatients() { return ResponseEntity.ok(adminService.listPatientDetails()); }
+  public ResponseEntity<List<AdminPatientDto>> listPatients(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit) {
+    return Pages.ok(adminService.listPatientDetails(cursor, limit));
+  }
+
+  @GetMapping(value = "/patients", params = NdjsonWriter.FORMAT_PARAM)
+  public ResponseEntity<StreamingResponseBody> streamPatients() {
+    return ndjsonWriter.stream(adminService.streamPatients(), enrichmentService::patients);
+  }
 
   @GetMapping("/patients/{id}")
   public ResponseEntity<AdminPatientDto> getPatient(@PathVariable String id) {
-    com.hms.model.Patient p = adminService.getPatient(id);
-    com.hms.model.User u = adminService.getUserById(p.getUserId());
-    AdminPatientDto dto = new AdminPatientDto();
-    dto.setId(p.getId());
-    dto.setUserId(p.getUserId());
-    dto.setName(u != null ? u.getName() : null);
-    dto.setEmail(u != null ? u.getEmail() : null);
-    dto.setAge(p.getAge());
-    dto.setGender(p.getGender());
-    dto.setContactInfo(p.getContactInfo());
-    return ResponseEntity.ok(dto);
+    return ResponseEntity.ok(enrichmentService.patient(adminService.getPatient(id)));
   }
 
   @PutMapping("/patients/{id}")
@@ -93,4 +95,50 @@ public class AdminController {
 
   @DeleteMapping("/patients/{id}")
   public ResponseEntity<Void> deletePatient(@PathVariable String id) { adminService.deletePatient(id); return ResponseEntity.noContent().build(); }
+
+  @GetMapping("/indexes")
+  public ResponseEntity<IndexReport> indexes() {
+    return ResponseEntity.ok(indexManager.report());
+  }
+
+  @PostMapping("/indexes")
+  public ResponseEntity<IndexReport> ensureIndexes() {
+    indexManager.ensureIndexes();
+    return ResponseEntity.ok(indexManager.report());
+  }
+
+  @GetMapping("/cascades/dead")
+  public ResponseEntity<List<DeadCascadeDto>> deadCascades(@RequestParam(defaultValue = "100") int limit) {
+    return ResponseEntity.ok(cascadeWorker.deadLetters(limit).stream().map(DeadCascadeDto::of).toList());
+  }
+
+  @PostMapping("/cascades/dead/{appointmentId}/retry")
+  public ResponseEntity<Void> retryCascade(@PathVariable String appointmentId) { cascadeWorker.retry(appointmentId); return ResponseEntity.noContent().build(); }
+
+  @DeleteMapping("/cascades/dead/{appointmentId}")
+  public ResponseEntity<Void> discardCascade(@PathVariable String appointmentId) { cascadeWorker.discard(appointmentId); return ResponseEntity.noContent().build(); }
+
+  @PostMapping("/timelines/rebuild")
+  public ResponseEntity<TimelineRebuildReport> rebuildTimelines(@RequestParam(required = false) String patientId) {
+    return ResponseEntity.ok(timelineService.rebuild(patientId));
+  }
+
+  @GetMapping("/medications")
+  public ResponseEntity<List<MedicationName>> medicationCatalog(@RequestParam(required = false) String q, @RequestParam(required = false) Integer limit) {
+    return ResponseEntity.ok(medicationIndexService.catalog(q, limit));
+  }
+
+  @GetMapping("/medications/prescriptions")
+  public ResponseEntity<List<MedicationIndexEntry>> medicationPrescriptions(@RequestParam String name, @RequestParam(required = false) String doctorId,
+                                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                                                          @RequestParam(defaultValue = "false") boolean current,
+                                                                          @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit) {
+    return Pages.ok(medicationIndexService.search(name, doctorId, from, to, current, cursor, limit));
+  }
+
+  @PostMapping("/medications/reindex")
+  public ResponseEntity<MedicationReindexReport> reindexMedications() {
+    return ResponseEntity.ok(medicationIndexService.reindex());
+  }
 }
@@ -3,6 +3,7 @@ package com.hms.controller;
 import com.hms.dto.LoginRequest;
 import com.hms.dto.LoginResponse;
 import com.hms.dto.PatientSignupRequest;
+import com.hms.dto.RefreshRequest;
 import com.hms.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +26,17 @@ public class AuthController {
     return ResponseEntity.ok(authService.login(request));
   }
 
+  @PostMapping("/refresh")
+  public ResponseEntity<LoginResponse> refresh(@Valid @RequestBody RefreshRequest request) {
+    return ResponseEntity.ok(authService.refresh(request.getRefreshToken()));
+  }
+
+  @PostMapping("/logout")
+  public ResponseEntity<Void> logout(@Valid @RequestBody RefreshRequest request) {
+    authService.logout(request.getRefreshToken());
+    return ResponseEntity.noContent().build();
+  }
+
   @PostMapping("/signup-patient")
   public ResponseEntity<LoginResponse> signupPatient(@Valid @RequestBody PatientSignupRequest request) {
     return ResponseEntity.ok(authService.signupPatient(request));
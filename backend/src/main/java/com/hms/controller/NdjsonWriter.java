@@ -0,0 +1,58 @@
+package com.hms.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes a Mongo cursor to the response as newline-delimited JSON. Rows are enriched and
+ * flushed in fixed-size batches, so memory stays flat regardless of collection size.
+ */
+@Component
+public class NdjsonWriter {
+  public static final String FORMAT_PARAM = "format=ndjson";
+  public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+  private static final int BATCH_SIZE = 200;
+
+  private final ObjectMapper objectMapper;
+
+  public NdjsonWriter(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  public <T, R> ResponseEntity<StreamingResponseBody> stream(Stream<T> rows, Function<List<T>, List<R>> enrich) {
+    StreamingResponseBody body = out -> {
+      try (rows) {
+        List<T> batch = new ArrayList<>(BATCH_SIZE);
+        Iterator<T> it = rows.iterator();
+        while (it.hasNext()) {
+          batch.add(it.next());
+          if (batch.size() == BATCH_SIZE) {
+            write(out, enrich.apply(batch));
+            batch = new ArrayList<>(BATCH_SIZE);
+          }
+        }
+        if (!batch.isEmpty()) write(out, enrich.apply(batch));
+      }
+    };
+    return ResponseEntity.ok().contentType(NDJSON).body(body);
+  }
+
+  private <R> void write(OutputStream out, List<R> items) throws IOException {
+    for (R item : items) {
+      out.write(objectMapper.writeValueAsBytes(item));
+      out.write('\n');
+    }
+    out.flush();
+  }
+}
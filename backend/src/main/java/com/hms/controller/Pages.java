@@ -0,0 +1,22 @@
+package com.hms.controller;
+
+import com.hms.dto.CursorPage;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+final class Pages {
+  static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  private Pages() {}
+
+  static <T> ResponseEntity<List<T>> ok(CursorPage<T> page) {
+    return builder(page).body(page.getItems());
+  }
+
+  static ResponseEntity.BodyBuilder builder(CursorPage<?> page) {
+    ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+    if (page.getNext() != null) builder.header(NEXT_CURSOR_HEADER, page.getNext());
+    return builder;
+  }
+}
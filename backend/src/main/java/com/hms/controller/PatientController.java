@@ -3,81 +3,77 @@ package com.hms.controller;
 import com.hms.dto.BookAppointmentRequest;
 import com.hms.model.Appointment;
 import com.hms.model.AppointmentStatus;
-import com.hms.model.Doctor;
 import com.hms.model.Prescription;
-// removed to avoid ambiguity with org.springframework.security.core.userdetails.User
+import com.hms.dto.CurrentPatient;
+import com.hms.dto.CursorPage;
 import com.hms.dto.DoctorDto;
-import com.hms.repository.AppointmentRepository;
-import com.hms.repository.DoctorRepository;
+import com.hms.dto.SlotSuggestion;
+import com.hms.repository.KeysetQueries;
 import com.hms.repository.PrescriptionRepository;
+import com.hms.service.AppointmentEventHub;
 import com.hms.service.AppointmentService;
+import com.hms.service.DoctorDirectory;
+import com.hms.service.EnrichmentService;
+import com.hms.service.SlotSearchService;
 import com.hms.service.SlotService;
+import com.hms.service.TimelineService;
 import jakarta.validation.Valid;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZoneId;
+import java.util.Comparator;
 import java.util.List;
 
 @RestController
 @RequestMapping("/patient")
 public class PatientController {
-  private final DoctorRepository doctorRepository;
+  private final DoctorDirectory doctorDirectory;
   private final SlotService slotService;
   private final AppointmentService appointmentService;
-  private final AppointmentRepository appointmentRepository;
   private final PrescriptionRepository prescriptionRepository;
-  private final com.hms.repository.UserRepository userRepository;
-  private final com.hms.repository.PatientRepository patientRepository;
+  private final EnrichmentService enrichmentService;
+  private final KeysetQueries keysetQueries;
+  private final NdjsonWriter ndjsonWriter;
+  private final SlotSearchService slotSearchService;
+  private final AppointmentEventHub eventHub;
+  private final TimelineService timelineService;
 
-  public PatientController(DoctorRepository doctorRepository, SlotService slotService, AppointmentService appointmentService, AppointmentRepository appointmentRepository, PrescriptionRepository prescriptionRepository, com.hms.repository.UserRepository userRepository, com.hms.repository.PatientRepository patientRepository) {
-    this.doctorRepository = doctorRepository;
+  public PatientController(DoctorDirectory doctorDirectory, SlotService slotService, AppointmentService appointmentService, PrescriptionRepository prescriptionRepository, EnrichmentService enrichmentService, KeysetQueries keysetQueries, NdjsonWriter ndjsonWriter, SlotSearchService slotSearchService, AppointmentEventHub eventHub, TimelineService timelineService) {
+    this.doctorDirectory = doctorDirectory;
     this.slotService = slotService;
     this.appointmentService = appointmentService;
-    this.appointmentRepository = appointmentRepository;
     this.prescriptionRepository = prescriptionRepository;
-    this.userRepository = userRepository;
-    this.patientRepository = patientRepository;
+    this.enrichmentService = enrichmentService;
+    this.keysetQueries = keysetQueries;
+    this.ndjsonWriter = ndjsonWriter;
+    this.slotSearchService = slotSearchService;
+    this.eventHub = eventHub;
+    this.timelineService = timelineService;
+  }
+
+  @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter events(CurrentPatient patient) {
+    return eventHub.subscribePatient(patient.getPatientId());
   }
 
   @GetMapping("/doctors")
-  public ResponseEntity<List<DoctorDto>> listDoctors() {
-    List<Doctor> docs = doctorRepository.findAll();
-    List<DoctorDto> out = docs.stream().map(d -> {
-      DoctorDto dto = new DoctorDto();
-      dto.setId(d.getId());
-      dto.setUserId(d.getUserId());
-      com.hms.model.User u = userRepository.findById(d.getUserId()).orElse(null);
-      dto.setName(u != null ? u.getName() : null);
-      dto.setEmail(u != null ? u.getEmail() : null);
-      dto.setSpecialization(d.getSpecialization());
-      dto.setExperienceYears(d.getExperienceYears());
-      dto.setSlotDuration(d.getSlotDuration());
-      dto.setWorkingHours(d.getWorkingHours());
-      return dto;
-    }).toList();
-    return ResponseEntity.ok(out);
+  public ResponseEntity<List<DoctorDto>> listDoctors(@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit) {
+    DoctorDirectory.Snapshot snapshot = doctorDirectory.snapshot();
+    CursorPage<DoctorDto> page = snapshot.page(cursor, limit);
+    return Pages.builder(page).eTag(snapshot.getVersion()).body(page.getItems());
   }
 
   @GetMapping("/doctors/{id}")
   public ResponseEntity<DoctorDto> getDoctor(@PathVariable String id) {
-    Doctor d = doctorRepository.findById(id).orElseThrow();
-    com.hms.model.User u = userRepository.findById(d.getUserId()).orElse(null);
-    DoctorDto dto = new DoctorDto();
-    dto.setId(d.getId());
-    dto.setUserId(d.getUserId());
-    dto.setName(u != null ? u.getName() : null);
-    dto.setEmail(u != null ? u.getEmail() : null);
-    dto.setSpecialization(d.getSpecialization());
-    dto.setExperienceYears(d.getExperienceYears());
-    dto.setSlotDuration(d.getSlotDuration());
-    dto.setWorkingHours(d.getWorkingHours());
-    return ResponseEntity.ok(dto);
+    DoctorDto doctor = doctorDirectory.require(id);
+    return ResponseEntity.ok().eTag(doctorDirectory.snapshot().getVersion()).body(doctor);
   }
 
   @GetMapping("/doctors/{id}/slots")
@@ -85,83 +81,88 @@ public class PatientController {
     return ResponseEntity.ok(slotService.getAvailableSlots(id, date));
   }
 
+  @GetMapping(value = "/doctors/{id}/slots", params = { "from", "to" })
+  public ResponseEntity<List<Instant>> getSlotRange(@PathVariable String id, @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from, @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+    return ResponseEntity.ok(slotService.getAvailableSlots(id, from, to));
+  }
+
+  @GetMapping("/slots/earliest")
+  public ResponseEntity<List<SlotSuggestion>> earliestSlots(@RequestParam String specialization, @RequestParam(required = false) Integer minExperienceYears,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                                            @RequestParam(defaultValue = "5") int limit) {
+    return ResponseEntity.ok(slotSearchService.earliest(specialization, minExperienceYears, from, to, limit));
+  }
+
   @PostMapping("/appointments")
-  public ResponseEntity<Appointment> book(@AuthenticationPrincipal User principal, @Valid @RequestBody BookAppointmentRequest request) {
-    String userEmail = principal.getUsername();
-    String userId = userRepository.findByEmail(userEmail).orElseThrow().getId();
-    String patientId = patientRepository.findAll().stream().filter(p -> p.getUserId().equals(userId)).findFirst().orElseThrow().getId();
+  public ResponseEntity<Appointment> book(CurrentPatient patient, @Valid @RequestBody BookAppointmentRequest request) {
+    String patientId = patient.getPatientId();
     return ResponseEntity.ok(appointmentService.book(patientId, request));
   }
 
   @GetMapping("/appointments")
-  public ResponseEntity<List<Appointment>> upcoming(@AuthenticationPrincipal User principal) {
-    String userEmail = principal.getUsername();
-    String userId = userRepository.findByEmail(userEmail).orElseThrow().getId();
-    String patientId = patientRepository.findAll().stream().filter(p -> p.getUserId().equals(userId)).findFirst().orElseThrow().getId();
-    List<Appointment> list = appointmentRepository.findByPatientIdAndStatusIn(patientId, List.of(AppointmentStatus.PENDING, AppointmentStatus.ACCEPTED));
-    return ResponseEntity.ok(list);
+  public ResponseEntity<List<Appointment>> upcoming(CurrentPatient patient, @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit) {
+    Criteria filter = Criteria.where("patientId").is(patient.getPatientId()).and("status").in(AppointmentStatus.PENDING, AppointmentStatus.ACCEPTED);
+    return Pages.ok(keysetQueries.appointmentsByStartTime(filter, cursor, limit));
   }
 
   @GetMapping("/appointments/history")
-  public ResponseEntity<List<com.hms.dto.AppointmentHistoryItem>> history(@AuthenticationPrincipal User principal) {
-    String userEmail = principal.getUsername();
-    String userId = userRepository.findByEmail(userEmail).orElseThrow().getId();
-    String patientId = patientRepository.findAll().stream().filter(p -> p.getUserId().equals(userId)).findFirst().orElseThrow().getId();
-    List<Appointment> list = appointmentRepository.findByPatientIdAndEndTimeBefore(patientId, Instant.now());
-    List<com.hms.dto.AppointmentHistoryItem> out = list.stream().map(a -> {
-      com.hms.model.Doctor d = doctorRepository.findById(a.getDoctorId()).orElse(null);
-      com.hms.model.User u = d != null ? userRepository.findById(d.getUserId()).orElse(null) : null;
-      com.hms.dto.AppointmentHistoryItem dto = new com.hms.dto.AppointmentHistoryItem();
-      dto.setId(a.getId());
-      dto.setStartTime(a.getStartTime());
-      dto.setEndTime(a.getEndTime());
-      dto.setStatus(a.getStatus());
-      dto.setReason(a.getReason());
-      dto.setDoctorName(u != null ? u.getName() : null);
-      return dto;
-    }).toList();
-    return ResponseEntity.ok(out);
+  public ResponseEntity<List<com.hms.dto.AppointmentHistoryItem>> history(CurrentPatient patient, @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit) {
+    if (timelineService.isReady(patient.getPatientId())) return Pages.ok(timelineService.history(patient.getPatientId(), cursor, limit).map(TimelineService::historyItems));
+    CursorPage<Appointment> page = keysetQueries.appointmentsByStartTime(historyFilter(patient.getPatientId()), cursor, limit);
+    return Pages.ok(page.map(enrichmentService::historyItems));
+  }
+
+  @GetMapping(value = "/appointments/history", params = NdjsonWriter.FORMAT_PARAM)
+  public ResponseEntity<StreamingResponseBody> streamHistory(CurrentPatient patient) {
+    if (timelineService.isReady(patient.getPatientId())) return ndjsonWriter.stream(timelineService.streamHistory(patient.getPatientId()), TimelineService::historyItems);
+    return ndjsonWriter.stream(keysetQueries.stream(Appointment.class, historyFilter(patient.getPatientId()), KeysetQueries.START_TIME_ORDER), enrichmentService::historyItems);
   }
 
   @GetMapping("/prescriptions")
-  public ResponseEntity<List<com.hms.dto.PrescriptionWithDoctorDto>> prescriptions(@AuthenticationPrincipal User principal) {
-    String userEmail = principal.getUsername();
-    String userId = userRepository.findByEmail(userEmail).orElseThrow().getId();
-    String patientId = patientRepository.findAll().stream().filter(p -> p.getUserId().equals(userId)).findFirst().orElseThrow().getId();
-    List<Prescription> pres = prescriptionRepository.findByPatientId(patientId);
-    List<com.hms.dto.PrescriptionWithDoctorDto> out = pres.stream().map(p -> {
-      com.hms.model.Doctor d = doctorRepository.findById(p.getDoctorId()).orElse(null);
-      com.hms.model.User u = d != null ? userRepository.findById(d.getUserId()).orElse(null) : null;
-      com.hms.dto.PrescriptionWithDoctorDto dto = new com.hms.dto.PrescriptionWithDoctorDto();
-      dto.setId(p.getId());
-      dto.setAppointmentId(p.getAppointmentId());
-      dto.setPatientId(p.getPatientId());
-      dto.setMedications(p.getMedications());
-      dto.setNotes(p.getNotes());
-      dto.setCreatedAt(p.getCreatedAt());
-      dto.setDoctorName(u != null ? u.getName() : null);
-      dto.setDoctorSpecialization(d != null ? d.getSpecialization() : null);
-      return dto;
-    }).toList();
-    return ResponseEntity.ok(out);
+  public ResponseEntity<List<com.hms.dto.PrescriptionWithDoctorDto>> prescriptions(CurrentPatient patient, @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit) {
+    if (timelineService.isReady(patient.getPatientId())) return Pages.ok(timelineService.prescribedVisits(patient.getPatientId(), cursor, limit).map(TimelineService::prescriptions));
+    CursorPage<Appointment> page = keysetQueries.appointmentsByStartTime(visitFilter(patient.getPatientId()), cursor, limit);
+    return Pages.ok(page.map(this::visitPrescriptions));
+  }
+
+  @GetMapping(value = "/prescriptions", params = NdjsonWriter.FORMAT_PARAM)
+  public ResponseEntity<StreamingResponseBody> streamPrescriptions(CurrentPatient patient) {
+    if (timelineService.isReady(patient.getPatientId())) return ndjsonWriter.stream(timelineService.streamPrescribedVisits(patient.getPatientId()), TimelineService::prescriptions);
+    return ndjsonWriter.stream(keysetQueries.stream(Appointment.class, visitFilter(patient.getPatientId()), KeysetQueries.START_TIME_ORDER), this::visitPrescriptions);
   }
 
   @GetMapping("/prescriptions/{id}")
   public ResponseEntity<Prescription> prescription(@PathVariable String id) { return ResponseEntity.ok(prescriptionRepository.findById(id).orElseThrow()); }
 
   @PutMapping("/appointments/{id}/accept-reschedule")
-  public ResponseEntity<Appointment> acceptReschedule(@AuthenticationPrincipal User principal, @PathVariable String id) {
-    String userEmail = principal.getUsername();
-    String userId = userRepository.findByEmail(userEmail).orElseThrow().getId();
-    String patientId = patientRepository.findAll().stream().filter(p -> p.getUserId().equals(userId)).findFirst().orElseThrow().getId();
+  public ResponseEntity<Appointment> acceptReschedule(CurrentPatient patient, @PathVariable String id) {
+    String patientId = patient.getPatientId();
     return ResponseEntity.ok(appointmentService.patientAcceptReschedule(patientId, id));
   }
 
   @PutMapping("/appointments/{id}/reject-reschedule")
-  public ResponseEntity<Appointment> rejectReschedule(@AuthenticationPrincipal User principal, @PathVariable String id) {
-    String userEmail = principal.getUsername();
-    String userId = userRepository.findByEmail(userEmail).orElseThrow().getId();
-    String patientId = patientRepository.findAll().stream().filter(p -> p.getUserId().equals(userId)).findFirst().orElseThrow().getId();
+  public ResponseEntity<Appointment> rejectReschedule(CurrentPatient patient, @PathVariable String id) {
+    String patientId = patient.getPatientId();
     return ResponseEntity.ok(appointmentService.patientRejectReschedule(patientId, id));
   }
+
+  private static Criteria historyFilter(String patientId) {
+    return Criteria.where("patientId").is(patientId).and("endTime").lt(Instant.now());
+  }
+
+  private static Criteria visitFilter(String patientId) {
+    return Criteria.where("patientId").is(patientId).and("status").is(AppointmentStatus.VISITED);
+  }
+
+  // Pages over visits like the timeline does, so a cursor from either path resumes on the other.
+  // Visits without prescriptions still use up their place on the page.
+  private List<com.hms.dto.PrescriptionWithDoctorDto> visitPrescriptions(List<Appointment> visits) {
+    if (visits.isEmpty()) return List.of();
+    List<String> ids = visits.stream().map(Appointment::getId).toList();
+    List<Prescription> prescriptions = prescriptionRepository.findByPatientIdAndAppointmentIdIn(visits.get(0).getPatientId(), ids).stream()
+        .sorted(Comparator.comparing((Prescription p) -> ids.indexOf(p.getAppointmentId())).thenComparing(Prescription::getId))
+        .toList();
+    return enrichmentService.prescriptions(prescriptions);
+  }
 }
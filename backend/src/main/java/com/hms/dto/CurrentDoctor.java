@@ -0,0 +1,14 @@
+package com.hms.dto;
+
+public class CurrentDoctor {
+  private final String userId;
+  private final String doctorId;
+
+  public CurrentDoctor(String userId, String doctorId) {
+    this.userId = userId;
+    this.doctorId = doctorId;
+  }
+
+  public String getUserId() { return userId; }
+  public String getDoctorId() { return doctorId; }
+}
@@ -0,0 +1,14 @@
+package com.hms.dto;
+
+public class CurrentPatient {
+  private final String userId;
+  private final String patientId;
+
+  public CurrentPatient(String userId, String patientId) {
+    this.userId = userId;
+    this.patientId = patientId;
+  }
+
+  public String getUserId() { return userId; }
+  public String getPatientId() { return patientId; }
+}
@@ -0,0 +1,21 @@
+package com.hms.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+public class CursorPage<T> {
+  private final List<T> items;
+  private final String next;
+
+  public CursorPage(List<T> items, String next) {
+    this.items = items;
+    this.next = next;
+  }
+
+  public List<T> getItems() { return items; }
+  public String getNext() { return next; }
+
+  public <R> CursorPage<R> map(Function<List<T>, List<R>> mapper) {
+    return new CursorPage<>(mapper.apply(items), next);
+  }
+}
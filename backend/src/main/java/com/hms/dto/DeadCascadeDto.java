@@ -0,0 +1,46 @@
+package com.hms.dto;
+
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.CascadeEvent;
+import java.time.Instant;
+
+/** A dead-lettered cascade with the appointment it belongs to, for deciding to retry or discard. */
+public class DeadCascadeDto {
+  private String appointmentId;
+  private String doctorId;
+  private String patientId;
+  private Instant startTime;
+  private Instant endTime;
+  private AppointmentStatus status;
+  private CascadeEvent cascade;
+
+  public DeadCascadeDto() {}
+
+  public static DeadCascadeDto of(Appointment a) {
+    DeadCascadeDto dto = new DeadCascadeDto();
+    dto.setAppointmentId(a.getId());
+    dto.setDoctorId(a.getDoctorId());
+    dto.setPatientId(a.getPatientId());
+    dto.setStartTime(a.getStartTime());
+    dto.setEndTime(a.getEndTime());
+    dto.setStatus(a.getStatus());
+    dto.setCascade(a.getCascade());
+    return dto;
+  }
+
+  public String getAppointmentId() { return appointmentId; }
+  public void setAppointmentId(String appointmentId) { this.appointmentId = appointmentId; }
+  public String getDoctorId() { return doctorId; }
+  public void setDoctorId(String doctorId) { this.doctorId = doctorId; }
+  public String getPatientId() { return patientId; }
+  public void setPatientId(String patientId) { this.patientId = patientId; }
+  public Instant getStartTime() { return startTime; }
+  public void setStartTime(Instant startTime) { this.startTime = startTime; }
+  public Instant getEndTime() { return endTime; }
+  public void setEndTime(Instant endTime) { this.endTime = endTime; }
+  public AppointmentStatus getStatus() { return status; }
+  public void setStatus(AppointmentStatus status) { this.status = status; }
+  public CascadeEvent getCascade() { return cascade; }
+  public void setCascade(CascadeEvent cascade) { this.cascade = cascade; }
+}
@@ -0,0 +1,24 @@
+package com.hms.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class IndexReport {
+  private List<String> missing = new ArrayList<>();
+  private List<String> undeclared = new ArrayList<>();
+  private List<String> unused = new ArrayList<>();
+  private List<String> collectionScans = new ArrayList<>();
+
+  public IndexReport() {}
+
+  public List<String> getMissing() { return missing; }
+  public void setMissing(List<String> missing) { this.missing = missing; }
+  public List<String> getUndeclared() { return undeclared; }
+  public void setUndeclared(List<String> undeclared) { this.undeclared = undeclared; }
+  public List<String> getUnused() { return unused; }
+  public void setUnused(List<String> unused) { this.unused = unused; }
+  public List<String> getCollectionScans() { return collectionScans; }
+  public void setCollectionScans(List<String> collectionScans) { this.collectionScans = collectionScans; }
+
+  public boolean isHealthy() { return missing.isEmpty() && collectionScans.isEmpty(); }
+}
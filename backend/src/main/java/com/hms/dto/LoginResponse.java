@@ -5,14 +5,16 @@ public class LoginResponse {
   private String id;
   private String name;
   private String role;
+  private String refreshToken;
 
   public LoginResponse() {}
 
-  public LoginResponse(String token, String id, String name, String role) {
+  public LoginResponse(String token, String id, String name, String role, String refreshToken) {
     this.token = token;
     this.id = id;
     this.name = name;
     this.role = role;
+    this.refreshToken = refreshToken;
   }
 
   public String getToken() { return token; }
@@ -23,4 +25,6 @@ public class LoginResponse {
   public void setName(String name) { this.name = name; }
   public String getRole() { return role; }
   public void setRole(String role) { this.role = role; }
+  public String getRefreshToken() { return refreshToken; }
+  public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
 }
\ No newline at end of file
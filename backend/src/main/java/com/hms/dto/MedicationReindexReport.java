@@ -0,0 +1,30 @@
+package com.hms.dto;
+
+public class MedicationReindexReport {
+  private long prescriptions;
+  private long entries;
+  private long names;
+  private long batches;
+  private long elapsedMillis;
+
+  public MedicationReindexReport() {}
+
+  public MedicationReindexReport(long prescriptions, long entries, long names, long batches, long elapsedMillis) {
+    this.prescriptions = prescriptions;
+    this.entries = entries;
+    this.names = names;
+    this.batches = batches;
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public long getPrescriptions() { return prescriptions; }
+  public void setPrescriptions(long prescriptions) { this.prescriptions = prescriptions; }
+  public long getEntries() { return entries; }
+  public void setEntries(long entries) { this.entries = entries; }
+  public long getNames() { return names; }
+  public void setNames(long names) { this.names = names; }
+  public long getBatches() { return batches; }
+  public void setBatches(long batches) { this.batches = batches; }
+  public long getElapsedMillis() { return elapsedMillis; }
+  public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+}
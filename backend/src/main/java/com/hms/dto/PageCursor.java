@@ -0,0 +1,42 @@
+package com.hms.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position: the last row's id, optionally preceded by its sort time.
+ */
+public class PageCursor {
+  private final Instant time;
+  private final String id;
+
+  public PageCursor(Instant time, String id) {
+    this.time = time;
+    this.id = id;
+  }
+
+  public Instant getTime() { return time; }
+  public String getId() { return id; }
+
+  public static String encode(String id) {
+    return encode(null, id);
+  }
+
+  public static String encode(Instant time, String id) {
+    String raw = time != null ? time.toEpochMilli() + ":" + id : id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static PageCursor decode(String token) {
+    if (token == null || token.isBlank()) return null;
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int sep = raw.indexOf(':');
+      if (sep < 0) return new PageCursor(null, raw);
+      return new PageCursor(Instant.ofEpochMilli(Long.parseLong(raw.substring(0, sep))), raw.substring(sep + 1));
+    } catch (IllegalArgumentException e) {
+      throw new RuntimeException("Invalid cursor");
+    }
+  }
+}
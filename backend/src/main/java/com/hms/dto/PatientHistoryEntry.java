@@ -0,0 +1,23 @@
+package com.hms.dto;
+
+import com.hms.model.Appointment;
+import com.hms.model.Prescription;
+
+import java.util.List;
+
+public class PatientHistoryEntry {
+  private Appointment appointment;
+  private List<Prescription> prescriptions;
+
+  public PatientHistoryEntry() {}
+
+  public PatientHistoryEntry(Appointment appointment, List<Prescription> prescriptions) {
+    this.appointment = appointment;
+    this.prescriptions = prescriptions;
+  }
+
+  public Appointment getAppointment() { return appointment; }
+  public void setAppointment(Appointment appointment) { this.appointment = appointment; }
+  public List<Prescription> getPrescriptions() { return prescriptions; }
+  public void setPrescriptions(List<Prescription> prescriptions) { this.prescriptions = prescriptions; }
+}
@@ -3,9 +3,17 @@ package com.hms.dto;
 import com.hms.model.Appointment;
 import com.hms.model.Prescription;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Visits in start-time order, each with its prescriptions in {@code entries}. The flat
+ * {@code appointments} and {@code prescriptions} lists carry the same rows for older clients.
+ */
 public class PatientHistoryResponse {
+  private List<PatientHistoryEntry> entries;
   private List<Appointment> appointments;
   private List<Prescription> prescriptions;
 
@@ -14,8 +22,14 @@ public class PatientHistoryResponse {
   public PatientHistoryResponse(List<Appointment> appointments, List<Prescription> prescriptions) {
     this.appointments = appointments;
     this.prescriptions = prescriptions;
+    Map<String, List<Prescription>> byAppointment = new HashMap<>();
+    for (Prescription p : prescriptions) byAppointment.computeIfAbsent(p.getAppointmentId(), k -> new ArrayList<>()).add(p);
+    this.entries = appointments.stream().map(a -> new PatientHistoryEntry(a, byAppointment.getOrDefault(a.getId(), List.of()))).toList();
   }
 
+  public List<PatientHistoryEntry> getEntries() { return entries; }
+  public void setEntries(List<PatientHistoryEntry> entries) { this.entries = entries; }
+
   public List<Appointment> getAppointments() { return appointments; }
   public void setAppointments(List<Appointment> appointments) { this.appointments = appointments; }
   public List<Prescription> getPrescriptions() { return prescriptions; }
@@ -0,0 +1,27 @@
+package com.hms.dto;
+
+import java.time.Instant;
+
+public class SlotSuggestion {
+  private String doctorId;
+  private String doctorName;
+  private String specialization;
+  private Integer experienceYears;
+  private Instant startTime;
+  private Instant endTime;
+
+  public SlotSuggestion() {}
+
+  public String getDoctorId() { return doctorId; }
+  public void setDoctorId(String doctorId) { this.doctorId = doctorId; }
+  public String getDoctorName() { return doctorName; }
+  public void setDoctorName(String doctorName) { this.doctorName = doctorName; }
+  public String getSpecialization() { return specialization; }
+  public void setSpecialization(String specialization) { this.specialization = specialization; }
+  public Integer getExperienceYears() { return experienceYears; }
+  public void setExperienceYears(Integer experienceYears) { this.experienceYears = experienceYears; }
+  public Instant getStartTime() { return startTime; }
+  public void setStartTime(Instant startTime) { this.startTime = startTime; }
+  public Instant getEndTime() { return endTime; }
+  public void setEndTime(Instant endTime) { this.endTime = endTime; }
+}
@@ -0,0 +1,26 @@
+package com.hms.dto;
+
+public class TimelineRebuildReport {
+  private long entries;
+  private long prescriptions;
+  private long batches;
+  private long elapsedMillis;
+
+  public TimelineRebuildReport() {}
+
+  public TimelineRebuildReport(long entries, long prescriptions, long batches, long elapsedMillis) {
+    this.entries = entries;
+    this.prescriptions = prescriptions;
+    this.batches = batches;
+    this.elapsedMillis = elapsedMillis;
+  }
+
+  public long getEntries() { return entries; }
+  public void setEntries(long entries) { this.entries = entries; }
+  public long getPrescriptions() { return prescriptions; }
+  public void setPrescriptions(long prescriptions) { this.prescriptions = prescriptions; }
+  public long getBatches() { return batches; }
+  public void setBatches(long batches) { this.batches = batches; }
+  public long getElapsedMillis() { return elapsedMillis; }
+  public void setElapsedMillis(long elapsedMillis) { this.elapsedMillis = elapsedMillis; }
+}
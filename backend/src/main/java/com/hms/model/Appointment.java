@@ -1,11 +1,23 @@
 package com.hms.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 
 @Document(collection = "appointments")
+@CompoundIndexes({
+  @CompoundIndex(name = "doctor_status_start", def = "{'doctorId': 1, 'status': 1, 'startTime': 1}"),
+  @CompoundIndex(name = "doctor_start_id", def = "{'doctorId': 1, 'startTime': 1, '_id': 1}"),
+  @CompoundIndex(name = "patient_start_id", def = "{'patientId': 1, 'startTime': 1, '_id': 1}"),
+  @CompoundIndex(name = "patient_end", def = "{'patientId': 1, 'endTime': 1}"),
+  @CompoundIndex(name = "doctor_patient_status_start", def = "{'doctorId': 1, 'patientId': 1, 'status': 1, 'startTime': 1, '_id': 1}"),
+  @CompoundIndex(name = "cascade_due", def = "{'cascade.availableAt': 1}", sparse = true),
+  @CompoundIndex(name = "cascade_dead", def = "{'cascade.deadAt': 1}", sparse = true)
+})
 public class Appointment {
   @Id
   private String id;
@@ -20,6 +32,7 @@ public class Appointment {
   private Instant proposedEndTime;
   private Instant createdAt;
   private Instant updatedAt;
+  private CascadeEvent cascade;
 
   public Appointment() {}
 
@@ -47,4 +60,7 @@ public class Appointment {
   public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
   public Instant getUpdatedAt() { return updatedAt; }
   public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
-}
\ No newline at end of file
+  @JsonIgnore
+  public CascadeEvent getCascade() { return cascade; }
+  public void setCascade(CascadeEvent cascade) { this.cascade = cascade; }
+}
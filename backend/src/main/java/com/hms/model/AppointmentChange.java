@@ -0,0 +1,39 @@
+package com.hms.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Notice that an appointment changed, written by the instance that changed it so the other
+ * instances can push the appointment, as it is when they read it, to their own SSE subscribers.
+ * Expires after an hour; a subscriber that was away longer re-reads its list on reconnect anyway.
+ */
+@Document(collection = "appointment_changes")
+public class AppointmentChange {
+  @Id
+  private String id;
+  private String origin;
+  private String appointmentId;
+  @Indexed(name = "created_ttl", expireAfterSeconds = 3600)
+  private Instant createdAt;
+
+  public AppointmentChange() {}
+
+  public AppointmentChange(String origin, String appointmentId, Instant createdAt) {
+    this.origin = origin;
+    this.appointmentId = appointmentId;
+    this.createdAt = createdAt;
+  }
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+  public String getOrigin() { return origin; }
+  public void setOrigin(String origin) { this.origin = origin; }
+  public String getAppointmentId() { return appointmentId; }
+  public void setAppointmentId(String appointmentId) { this.appointmentId = appointmentId; }
+  public Instant getCreatedAt() { return createdAt; }
+  public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
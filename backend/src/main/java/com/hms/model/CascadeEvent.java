@@ -0,0 +1,47 @@
+package com.hms.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+public class CascadeEvent {
+  private String id;
+  private String trigger;
+  private Instant newEnd;
+  private Instant createdAt;
+  private Instant availableAt;
+  private Instant leaseUntil;
+  private int attempts;
+  private String lastError;
+  private Instant deadAt;
+
+  public CascadeEvent() {}
+
+  public static CascadeEvent of(String trigger, Instant newEnd) {
+    CascadeEvent e = new CascadeEvent();
+    e.setId(UUID.randomUUID().toString());
+    e.setTrigger(trigger);
+    e.setNewEnd(newEnd);
+    e.setCreatedAt(Instant.now());
+    e.setAvailableAt(e.getCreatedAt());
+    return e;
+  }
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+  public String getTrigger() { return trigger; }
+  public void setTrigger(String trigger) { this.trigger = trigger; }
+  public Instant getNewEnd() { return newEnd; }
+  public void setNewEnd(Instant newEnd) { this.newEnd = newEnd; }
+  public Instant getCreatedAt() { return createdAt; }
+  public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+  public Instant getAvailableAt() { return availableAt; }
+  public void setAvailableAt(Instant availableAt) { this.availableAt = availableAt; }
+  public Instant getLeaseUntil() { return leaseUntil; }
+  public void setLeaseUntil(Instant leaseUntil) { this.leaseUntil = leaseUntil; }
+  public int getAttempts() { return attempts; }
+  public void setAttempts(int attempts) { this.attempts = attempts; }
+  public String getLastError() { return lastError; }
+  public void setLastError(String lastError) { this.lastError = lastError; }
+  public Instant getDeadAt() { return deadAt; }
+  public void setDeadAt(Instant deadAt) { this.deadAt = deadAt; }
+}
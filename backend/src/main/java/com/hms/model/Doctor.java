@@ -1,6 +1,7 @@
 package com.hms.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
@@ -9,6 +10,7 @@ import java.util.List;
 public class Doctor {
   @Id
   private String id;
+  @Indexed(unique = true)
   private String userId;
   private String specialization;
   private Integer experienceYears;
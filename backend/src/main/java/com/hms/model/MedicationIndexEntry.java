@@ -0,0 +1,63 @@
+package com.hms.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * One medication on one prescription ({@code _id} = prescriptionId:medication), keyed by the
+ * folded name so "who is on X" and "what did this doctor prescribe of X" are index range scans.
+ * activeUntil is prescribedAt plus the parsed course duration.
+ */
+@Document(collection = "medication_index")
+@CompoundIndexes({
+  @CompoundIndex(name = "medication_prescribed_id", def = "{'medication': 1, 'prescribedAt': 1, '_id': 1}"),
+  @CompoundIndex(name = "medication_doctor_prescribed_id", def = "{'medication': 1, 'doctorId': 1, 'prescribedAt': 1, '_id': 1}"),
+  @CompoundIndex(name = "medication_active_id", def = "{'medication': 1, 'activeUntil': 1, '_id': 1}"),
+  @CompoundIndex(name = "patient_id", def = "{'patientId': 1}")
+})
+public class MedicationIndexEntry {
+  @Id
+  private String id;
+  private String medication;
+  private String name;
+  private String prescriptionId;
+  private String appointmentId;
+  private String patientId;
+  private String doctorId;
+  private String dosage;
+  private String frequency;
+  private String duration;
+  private Instant prescribedAt;
+  private Instant activeUntil;
+
+  public MedicationIndexEntry() {}
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+  public String getMedication() { return medication; }
+  public void setMedication(String medication) { this.medication = medication; }
+  public String getName() { return name; }
+  public void setName(String name) { this.name = name; }
+  public String getPrescriptionId() { return prescriptionId; }
+  public void setPrescriptionId(String prescriptionId) { this.prescriptionId = prescriptionId; }
+  public String getAppointmentId() { return appointmentId; }
+  public void setAppointmentId(String appointmentId) { this.appointmentId = appointmentId; }
+  public String getPatientId() { return patientId; }
+  public void setPatientId(String patientId) { this.patientId = patientId; }
+  public String getDoctorId() { return doctorId; }
+  public void setDoctorId(String doctorId) { this.doctorId = doctorId; }
+  public String getDosage() { return dosage; }
+  public void setDosage(String dosage) { this.dosage = dosage; }
+  public String getFrequency() { return frequency; }
+  public void setFrequency(String frequency) { this.frequency = frequency; }
+  public String getDuration() { return duration; }
+  public void setDuration(String duration) { this.duration = duration; }
+  public Instant getPrescribedAt() { return prescribedAt; }
+  public void setPrescribedAt(Instant prescribedAt) { this.prescribedAt = prescribedAt; }
+  public Instant getActiveUntil() { return activeUntil; }
+  public void setActiveUntil(Instant activeUntil) { this.activeUntil = activeUntil; }
+}
@@ -0,0 +1,33 @@
+package com.hms.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A prescription whose medication_index update failed ({@code _id} = prescriptionId), kept until
+ * MedicationIndexService.retryPending re-indexes it.
+ */
+@Document(collection = "medication_index_pending")
+public class MedicationIndexPending {
+  @Id
+  private String id;
+  private String patientId;
+  private Instant failedAt;
+
+  public MedicationIndexPending() {}
+
+  public MedicationIndexPending(String id, String patientId, Instant failedAt) {
+    this.id = id;
+    this.patientId = patientId;
+    this.failedAt = failedAt;
+  }
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+  public String getPatientId() { return patientId; }
+  public void setPatientId(String patientId) { this.patientId = patientId; }
+  public Instant getFailedAt() { return failedAt; }
+  public void setFailedAt(Instant failedAt) { this.failedAt = failedAt; }
+}
@@ -0,0 +1,33 @@
+package com.hms.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Catalog of every medication name ever prescribed, keyed by its folded form ({@code _id}, see
+ * MedicationIndexService.normalize) so spelling and spacing variants share one entry.
+ */
+@Document(collection = "medication_catalog")
+public class MedicationName {
+  @Id
+  private String id;
+  private String displayName;
+  private long prescriptionCount;
+  private Instant firstPrescribedAt;
+  private Instant lastPrescribedAt;
+
+  public MedicationName() {}
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+  public String getDisplayName() { return displayName; }
+  public void setDisplayName(String displayName) { this.displayName = displayName; }
+  public long getPrescriptionCount() { return prescriptionCount; }
+  public void setPrescriptionCount(long prescriptionCount) { this.prescriptionCount = prescriptionCount; }
+  public Instant getFirstPrescribedAt() { return firstPrescribedAt; }
+  public void setFirstPrescribedAt(Instant firstPrescribedAt) { this.firstPrescribedAt = firstPrescribedAt; }
+  public Instant getLastPrescribedAt() { return lastPrescribedAt; }
+  public void setLastPrescribedAt(Instant lastPrescribedAt) { this.lastPrescribedAt = lastPrescribedAt; }
+}
@@ -1,12 +1,14 @@
 package com.hms.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document(collection = "patients")
 public class Patient {
   @Id
   private String id;
+  @Indexed(unique = true)
   private String userId;
   private Integer age;
   private String gender;
@@ -1,15 +1,23 @@
 package com.hms.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
 import java.util.List;
 
 @Document(collection = "prescriptions")
+@CompoundIndexes({
+  @CompoundIndex(name = "patient_id", def = "{'patientId': 1, '_id': 1}"),
+  @CompoundIndex(name = "patient_doctor_appointment", def = "{'patientId': 1, 'doctorId': 1, 'appointmentId': 1}")
+})
 public class Prescription {
   @Id
   private String id;
+  @Indexed
   private String appointmentId;
   private String doctorId;
   private String patientId;
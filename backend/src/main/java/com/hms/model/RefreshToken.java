@@ -0,0 +1,62 @@
+package com.hms.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * One refresh token of a login session ({@code family}). Only the SHA-256 of the opaque token is
+ * stored, as {@code _id}. Rotation marks the presented token {@code rotatedAt} and issues a new
+ * one in the same family, so a rotated token that shows up again means it was copied and the whole
+ * family is revoked, unless it comes back within a short grace window (two tabs refreshing at
+ * once). No token outlives {@code familyExpiresAt}, fixed at login. Mongo's TTL monitor removes
+ * documents once {@code expiresAt} passes.
+ */
+@Document(collection = "refresh_tokens")
+public class RefreshToken {
+  @Id
+  private String id;
+  @Indexed
+  private String family;
+  @Indexed
+  private String userId;
+  private String email;
+  private String name;
+  private Role role;
+  private String domainId;
+  private long version;
+  private Instant rotatedAt;
+  private Instant graceUsedAt;
+  private Instant familyExpiresAt;
+  @Indexed(name = "expires_ttl", expireAfterSeconds = 0)
+  private Instant expiresAt;
+
+  public RefreshToken() {}
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+  public String getFamily() { return family; }
+  public void setFamily(String family) { this.family = family; }
+  public String getUserId() { return userId; }
+  public void setUserId(String userId) { this.userId = userId; }
+  public String getEmail() { return email; }
+  public void setEmail(String email) { this.email = email; }
+  public String getName() { return name; }
+  public void setName(String name) { this.name = name; }
+  public Role getRole() { return role; }
+  public void setRole(Role role) { this.role = role; }
+  public String getDomainId() { return domainId; }
+  public void setDomainId(String domainId) { this.domainId = domainId; }
+  public long getVersion() { return version; }
+  public void setVersion(long version) { this.version = version; }
+  public Instant getRotatedAt() { return rotatedAt; }
+  public void setRotatedAt(Instant rotatedAt) { this.rotatedAt = rotatedAt; }
+  public Instant getGraceUsedAt() { return graceUsedAt; }
+  public void setGraceUsedAt(Instant graceUsedAt) { this.graceUsedAt = graceUsedAt; }
+  public Instant getFamilyExpiresAt() { return familyExpiresAt; }
+  public void setFamilyExpiresAt(Instant familyExpiresAt) { this.familyExpiresAt = familyExpiresAt; }
+  public Instant getExpiresAt() { return expiresAt; }
+  public void setExpiresAt(Instant expiresAt) { this.expiresAt = expiresAt; }
+}
@@ -0,0 +1,24 @@
+package com.hms.model;
+
+import java.time.Instant;
+
+public class ReservedInterval {
+  private String appointmentId;
+  private Instant start;
+  private Instant end;
+
+  public ReservedInterval() {}
+
+  public ReservedInterval(String appointmentId, Instant start, Instant end) {
+    this.appointmentId = appointmentId;
+    this.start = start;
+    this.end = end;
+  }
+
+  public String getAppointmentId() { return appointmentId; }
+  public void setAppointmentId(String appointmentId) { this.appointmentId = appointmentId; }
+  public Instant getStart() { return start; }
+  public void setStart(Instant start) { this.start = start; }
+  public Instant getEnd() { return end; }
+  public void setEnd(Instant end) { this.end = end; }
+}
@@ -0,0 +1,38 @@
+package com.hms.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ACCEPTED intervals of one doctor on one UTC day ({@code _id} = doctorId:yyyy-MM-dd). An
+ * interval that crosses midnight appears on each day it touches. Writes are conditional single-document updates, so two overlapping
+ * reservations can never both land.
+ */
+@Document(collection = "slot_reservations")
+public class SlotReservation {
+  @Id
+  private String id;
+  @Indexed
+  private String doctorId;
+  private String day;
+  private List<ReservedInterval> intervals = new ArrayList<>();
+  private Instant createdAt;
+
+  public SlotReservation() {}
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+  public String getDoctorId() { return doctorId; }
+  public void setDoctorId(String doctorId) { this.doctorId = doctorId; }
+  public String getDay() { return day; }
+  public void setDay(String day) { this.day = day; }
+  public List<ReservedInterval> getIntervals() { return intervals; }
+  public void setIntervals(List<ReservedInterval> intervals) { this.intervals = intervals; }
+  public Instant getCreatedAt() { return createdAt; }
+  public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,30 @@
+package com.hms.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A patient_timeline scope whose last update failed: {@code patient:<id>} for one patient's
+ * entries, {@code doctor:<id>} for the doctor fields copied into every entry of that doctor.
+ * TimelineService serves the affected patients from the source collections until it repairs them.
+ */
+@Document(collection = "timeline_dirty")
+public class TimelineDirty {
+  @Id
+  private String id;
+  private Instant markedAt;
+
+  public TimelineDirty() {}
+
+  public TimelineDirty(String id, Instant markedAt) {
+    this.id = id;
+    this.markedAt = markedAt;
+  }
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+  public Instant getMarkedAt() { return markedAt; }
+  public void setMarkedAt(Instant markedAt) { this.markedAt = markedAt; }
+}
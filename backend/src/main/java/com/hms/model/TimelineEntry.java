@@ -0,0 +1,61 @@
+package com.hms.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One appointment as the patient sees it ({@code _id} = appointment id). Doctor name and
+ * specialization, and the prescriptions written at the visit, are copied in so a page of the
+ * patient's history is one indexed read with no lookups.
+ */
+@Document(collection = "patient_timeline")
+@CompoundIndex(name = "patient_start_id", def = "{'patientId': 1, 'startTime': 1, '_id': 1}")
+public class TimelineEntry {
+  @Id
+  private String id;
+  private String patientId;
+  @Indexed
+  private String doctorId;
+  private String doctorName;
+  private String doctorSpecialization;
+  private Instant startTime;
+  private Instant endTime;
+  private AppointmentStatus status;
+  private String reason;
+  private List<TimelinePrescription> prescriptions = new ArrayList<>();
+  private int prescriptionCount;
+  private Instant updatedAt;
+
+  public TimelineEntry() {}
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+  public String getPatientId() { return patientId; }
+  public void setPatientId(String patientId) { this.patientId = patientId; }
+  public String getDoctorId() { return doctorId; }
+  public void setDoctorId(String doctorId) { this.doctorId = doctorId; }
+  public String getDoctorName() { return doctorName; }
+  public void setDoctorName(String doctorName) { this.doctorName = doctorName; }
+  public String getDoctorSpecialization() { return doctorSpecialization; }
+  public void setDoctorSpecialization(String doctorSpecialization) { this.doctorSpecialization = doctorSpecialization; }
+  public Instant getStartTime() { return startTime; }
+  public void setStartTime(Instant startTime) { this.startTime = startTime; }
+  public Instant getEndTime() { return endTime; }
+  public void setEndTime(Instant endTime) { this.endTime = endTime; }
+  public AppointmentStatus getStatus() { return status; }
+  public void setStatus(AppointmentStatus status) { this.status = status; }
+  public String getReason() { return reason; }
+  public void setReason(String reason) { this.reason = reason; }
+  public List<TimelinePrescription> getPrescriptions() { return prescriptions; }
+  public void setPrescriptions(List<TimelinePrescription> prescriptions) { this.prescriptions = prescriptions; }
+  public int getPrescriptionCount() { return prescriptionCount; }
+  public void setPrescriptionCount(int prescriptionCount) { this.prescriptionCount = prescriptionCount; }
+  public Instant getUpdatedAt() { return updatedAt; }
+  public void setUpdatedAt(Instant updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,31 @@
+package com.hms.model;
+
+import java.time.Instant;
+import java.util.List;
+
+public class TimelinePrescription {
+  private String id;
+  private List<Medication> medications;
+  private String notes;
+  private Instant createdAt;
+
+  public TimelinePrescription() {}
+
+  public static TimelinePrescription of(Prescription p) {
+    TimelinePrescription t = new TimelinePrescription();
+    t.setId(p.getId());
+    t.setMedications(p.getMedications());
+    t.setNotes(p.getNotes());
+    t.setCreatedAt(p.getCreatedAt());
+    return t;
+  }
+
+  public String getId() { return id; }
+  public void setId(String id) { this.id = id; }
+  public List<Medication> getMedications() { return medications; }
+  public void setMedications(List<Medication> medications) { this.medications = medications; }
+  public String getNotes() { return notes; }
+  public void setNotes(String notes) { this.notes = notes; }
+  public Instant getCreatedAt() { return createdAt; }
+  public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+}
@@ -15,6 +15,7 @@ public class User {
   private String email;
   private String passwordHash;
   private Role role;
+  private long tokenVersion;
   private Instant createdAt;
   private Instant updatedAt;
 
@@ -30,6 +31,8 @@ public class User {
   public void setPasswordHash(String passwordHash) { this.passwordHash = passwordHash; }
   public Role getRole() { return role; }
   public void setRole(Role role) { this.role = role; }
+  public long getTokenVersion() { return tokenVersion; }
+  public void setTokenVersion(long tokenVersion) { this.tokenVersion = tokenVersion; }
   public Instant getCreatedAt() { return createdAt; }
   public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
   public Instant getUpdatedAt() { return updatedAt; }
@@ -3,5 +3,8 @@ package com.hms.repository;
 import com.hms.model.Doctor;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Optional;
+
 public interface DoctorRepository extends MongoRepository<Doctor, String> {
-}
\ No newline at end of file
+  Optional<Doctor> findByUserId(String userId);
+}
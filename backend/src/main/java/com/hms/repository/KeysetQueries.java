@@ -0,0 +1,77 @@
+package com.hms.repository;
+
+import com.hms.dto.CursorPage;
+import com.hms.dto.PageCursor;
+import com.hms.model.Appointment;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Keyset (seek) pagination over Mongo collections. A null limit pages at DEFAULT_LIMIT, so no
+ * request reads a whole collection into memory; callers that need every row use stream().
+ */
+@Component
+public class KeysetQueries {
+  public static final int DEFAULT_LIMIT = 100;
+  public static final int MAX_LIMIT = 500;
+  public static final Sort ID_ORDER = Sort.by(Sort.Direction.ASC, "id");
+  public static final Sort START_TIME_ORDER = Sort.by(Sort.Direction.ASC, "startTime", "id");
+
+  private final MongoTemplate mongoTemplate;
+
+  public KeysetQueries(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  public <T> CursorPage<T> byId(Class<T> type, Criteria filter, String cursor, Integer limit, Function<T, String> idOf) {
+    PageCursor after = PageCursor.decode(cursor);
+    Criteria criteria = after == null ? filter : new Criteria().andOperator(filter, Criteria.where("id").gt(after.getId()));
+    return page(type, criteria, ID_ORDER, limit, row -> PageCursor.encode(idOf.apply(row)));
+  }
+
+  public CursorPage<Appointment> appointmentsByStartTime(Criteria filter, String cursor, Integer limit) {
+    return byStartTime(Appointment.class, filter, cursor, limit, Appointment::getStartTime, Appointment::getId);
+  }
+
+  public <T> CursorPage<T> byStartTime(Class<T> type, Criteria filter, String cursor, Integer limit, Function<T, Instant> startOf, Function<T, String> idOf) {
+    return byTime(type, "startTime", filter, cursor, limit, startOf, idOf);
+  }
+
+  public <T> CursorPage<T> byTime(Class<T> type, String field, Criteria filter, String cursor, Integer limit, Function<T, Instant> timeOf, Function<T, String> idOf) {
+    PageCursor after = PageCursor.decode(cursor);
+    Criteria criteria = filter;
+    if (after != null) {
+      if (after.getTime() == null) throw new RuntimeException("Invalid cursor");
+      Criteria keyset = new Criteria().orOperator(
+          Criteria.where(field).gt(after.getTime()),
+          new Criteria().andOperator(Criteria.where(field).is(after.getTime()), Criteria.where("id").gt(after.getId())));
+      criteria = new Criteria().andOperator(filter, keyset);
+    }
+    return page(type, criteria, Sort.by(Sort.Direction.ASC, field, "id"), limit, row -> PageCursor.encode(timeOf.apply(row), idOf.apply(row)));
+  }
+
+  /** Page size for a requested limit: DEFAULT_LIMIT when absent, clamped to [1, MAX_LIMIT]. */
+  public static int pageSize(Integer limit) {
+    return limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+  }
+
+  public <T> Stream<T> stream(Class<T> type, Criteria filter, Sort sort) {
+    return mongoTemplate.stream(new Query(filter).with(sort), type);
+  }
+
+  private <T> CursorPage<T> page(Class<T> type, Criteria criteria, Sort sort, Integer limit, Function<T, String> cursorOf) {
+    int size = pageSize(limit);
+    List<T> rows = mongoTemplate.find(new Query(criteria).with(sort).limit(size + 1), type);
+    if (rows.size() <= size) return new CursorPage<>(rows, null);
+    List<T> items = rows.subList(0, size);
+    return new CursorPage<>(items, cursorOf.apply(items.get(size - 1)));
+  }
+}
@@ -3,5 +3,8 @@ package com.hms.repository;
 import com.hms.model.Patient;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Optional;
+
 public interface PatientRepository extends MongoRepository<Patient, String> {
-}
\ No newline at end of file
+  Optional<Patient> findByUserId(String userId);
+}
@@ -3,9 +3,12 @@ package com.hms.repository;
 import com.hms.model.Prescription;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface PrescriptionRepository extends MongoRepository<Prescription, String> {
   List<Prescription> findByPatientId(String patientId);
   List<Prescription> findByAppointmentId(String appointmentId);
+  List<Prescription> findByPatientIdAndAppointmentIdIn(String patientId, Collection<String> appointmentIds);
+  List<Prescription> findByPatientIdAndDoctorIdAndAppointmentIdIn(String patientId, String doctorId, Collection<String> appointmentIds);
 }
\ No newline at end of file
@@ -1,38 +1,57 @@
 package com.hms.service;
 
+import com.hms.config.TokenVersionRegistry;
 import com.hms.dto.CreateDoctorRequest;
 import com.hms.model.Doctor;
 import com.hms.model.Role;
 import com.hms.model.User;
 import com.hms.repository.DoctorRepository;
+import com.hms.repository.KeysetQueries;
 import com.hms.repository.PatientRepository;
 import com.hms.repository.UserRepository;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
-import java.util.List;
 
 @Service
 public class AdminService {
   private final UserRepository userRepository;
   private final DoctorRepository doctorRepository;
   private final PatientRepository patientRepository;
-  private final PasswordEncoder passwordEncoder;
+  private final PasswordHashingService passwordHashingService;
+  private final IdentityService identityService;
+  private final TokenVersionRegistry tokenVersionRegistry;
+  private final RefreshTokenService refreshTokenService;
+  private final TimelineService timelineService;
+  private final MedicationIndexService medicationIndexService;
+  private final EnrichmentService enrichmentService;
+  private final DoctorDirectory doctorDirectory;
+  private final KeysetQueries keysetQueries;
+  private final OccupancyIndex occupancyIndex;
 
-  public AdminService(UserRepository userRepository, DoctorRepository doctorRepository, PatientRepository patientRepository, PasswordEncoder passwordEncoder) {
+  public AdminService(UserRepository userRepository, DoctorRepository doctorRepository, PatientRepository patientRepository, PasswordHashingService passwordHashingService, IdentityService identityService, TokenVersionRegistry tokenVersionRegistry, RefreshTokenService refreshTokenService, TimelineService timelineService, MedicationIndexService medicationIndexService, EnrichmentService enrichmentService, DoctorDirectory doctorDirectory, KeysetQueries keysetQueries, OccupancyIndex occupancyIndex) {
     this.userRepository = userRepository;
     this.doctorRepository = doctorRepository;
     this.patientRepository = patientRepository;
-    this.passwordEncoder = passwordEncoder;
+    this.passwordHashingService = passwordHashingService;
+    this.identityService = identityService;
+    this.tokenVersionRegistry = tokenVersionRegistry;
+    this.refreshTokenService = refreshTokenService;
+    this.timelineService = timelineService;
+    this.medicationIndexService = medicationIndexService;
+    this.enrichmentService = enrichmentService;
+    this.doctorDirectory = doctorDirectory;
+    this.keysetQueries = keysetQueries;
+    this.occupancyIndex = occupancyIndex;
   }
 
   public Doctor createDoctor(CreateDoctorRequest request) {
-    if (userRepository.findByEmail(request.getEmail()).isPresent()) throw new RuntimeException("Email already exists");
+    if (userRepository.findByEmail(request.getEmail()).isPresent()) throw new ConflictException("Email already exists");
     User user = new User();
     user.setName(request.getName());
     user.setEmail(request.getEmail());
-    user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
+    user.setPasswordHash(passwordHashingService.encode(request.getPassword()));
     user.setRole(Role.DOCTOR);
     user.setCreatedAt(Instant.now());
     user.setUpdatedAt(Instant.now());
@@ -43,42 +62,39 @@ public class AdminService {
     doctor.setExperienceYears(request.getExperienceYears());
     doctor.setSlotDuration(request.getSlotDuration() != null ? request.getSlotDuration() : 30);
     doctor.setWorkingHours(request.getWorkingHours());
-    return doctorRepository.save(doctor);
+    doctor = doctorRepository.save(doctor);
+    doctorDirectory.upsert(doctor, user);
+    return doctor;
   }
 
-  public List<Doctor> listDoctors() { return doctorRepository.findAll(); }
-  public Doctor getDoctor(String id) { return doctorRepository.findById(id).orElseThrow(); }
-  public User getUserById(String id) { return userRepository.findById(id).orElse(null); }
   public Doctor updateDoctor(String id, Doctor update) {
     Doctor d = doctorRepository.findById(id).orElseThrow();
     d.setSpecialization(update.getSpecialization());
     d.setExperienceYears(update.getExperienceYears());
     d.setSlotDuration(update.getSlotDuration());
     d.setWorkingHours(update.getWorkingHours());
-    return doctorRepository.save(d);
+    d = doctorRepository.save(d);
+    doctorDirectory.upsert(d, null);
+    timelineService.onDoctorChanged(doctorDirectory.require(id));
+    return d;
   }
   public void deleteDoctor(String id) {
     Doctor d = doctorRepository.findById(id).orElseThrow();
     userRepository.deleteById(d.getUserId());
     doctorRepository.deleteById(id);
+    doctorDirectory.remove(id);
+    occupancyIndex.evictDoctor(id);
+    identityService.evictUser(d.getUserId());
+    tokenVersionRegistry.bump(d.getUserId());
+    refreshTokenService.revokeUser(d.getUserId());
   }
 
-  public List<com.hms.model.Patient> listPatients() { return patientRepository.findAll(); }
   public com.hms.model.Patient getPatient(String id) { return patientRepository.findById(id).orElseThrow(); }
-  public java.util.List<com.hms.dto.AdminPatientDto> listPatientDetails() {
-    java.util.List<com.hms.model.Patient> patients = patientRepository.findAll();
-    return patients.stream().map(p -> {
-      com.hms.model.User u = userRepository.findById(p.getUserId()).orElse(null);
-      com.hms.dto.AdminPatientDto dto = new com.hms.dto.AdminPatientDto();
-      dto.setId(p.getId());
-      dto.setUserId(p.getUserId());
-      dto.setName(u != null ? u.getName() : null);
-      dto.setEmail(u != null ? u.getEmail() : null);
-      dto.setAge(p.getAge());
-      dto.setGender(p.getGender());
-      dto.setContactInfo(p.getContactInfo());
-      return dto;
-    }).toList();
+  public com.hms.dto.CursorPage<com.hms.dto.AdminPatientDto> listPatientDetails(String cursor, Integer limit) {
+    return keysetQueries.byId(com.hms.model.Patient.class, new Criteria(), cursor, limit, com.hms.model.Patient::getId).map(enrichmentService::patients);
+  }
+  public java.util.stream.Stream<com.hms.model.Patient> streamPatients() {
+    return keysetQueries.stream(com.hms.model.Patient.class, new Criteria(), KeysetQueries.ID_ORDER);
   }
   public com.hms.model.Patient updatePatient(String id, com.hms.model.Patient update) {
     com.hms.model.Patient p = patientRepository.findById(id).orElseThrow();
@@ -95,26 +111,30 @@ public class AdminService {
     p = patientRepository.save(p);
     com.hms.model.User u = userRepository.findById(p.getUserId()).orElseThrow();
     if (update.getName() != null) u.setName(update.getName());
+    boolean emailChanged = false;
     if (update.getEmail() != null && !update.getEmail().equals(u.getEmail())) {
       java.util.Optional<com.hms.model.User> existing = userRepository.findByEmail(update.getEmail());
-      if (existing.isPresent() && !existing.get().getId().equals(u.getId())) throw new RuntimeException("Email already exists");
+      if (existing.isPresent() && !existing.get().getId().equals(u.getId())) throw new ConflictException("Email already exists");
       u.setEmail(update.getEmail());
+      emailChanged = true;
     }
     u.setUpdatedAt(java.time.Instant.now());
     userRepository.save(u);
-    com.hms.dto.AdminPatientDto dto = new com.hms.dto.AdminPatientDto();
-    dto.setId(p.getId());
-    dto.setUserId(p.getUserId());
-    dto.setName(u.getName());
-    dto.setEmail(u.getEmail());
-    dto.setAge(p.getAge());
-    dto.setGender(p.getGender());
-    dto.setContactInfo(p.getContactInfo());
-    return dto;
+    identityService.evictUser(u.getId());
+    if (emailChanged) {
+      tokenVersionRegistry.bump(u.getId());
+      refreshTokenService.revokeUser(u.getId());
+    }
+    return EnrichmentService.toAdminPatientDto(p, u);
   }
   public void deletePatient(String id) {
     com.hms.model.Patient p = patientRepository.findById(id).orElseThrow();
     userRepository.deleteById(p.getUserId());
     patientRepository.deleteById(id);
+    timelineService.removePatient(id);
+    medicationIndexService.removePatient(id);
+    identityService.evictUser(p.getUserId());
+    tokenVersionRegistry.bump(p.getUserId());
+    refreshTokenService.revokeUser(p.getUserId());
   }
 }
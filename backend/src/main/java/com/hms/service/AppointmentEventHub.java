@@ -0,0 +1,272 @@
+package com.hms.service;
+
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes appointment changes to subscribed doctors and patients over SSE. Connections hold no
+ * thread while idle: each has a small bounded queue that a shared executor drains, one drain per
+ * connection at a time. A subscriber whose queue overflows is disconnected (the client reconnects
+ * and re-reads its list), and a periodic heartbeat comment prunes dead sockets.
+ *
+ * <p>A send to a slow client blocks its drain thread, so the pool grows past its core size rather
+ * than making other connections wait, up to {@code hms.events.max-drain-threads}; a connection
+ * whose send has been stuck for {@code hms.events.send-timeout-ms}, or that finds the pool full,
+ * is dropped on its own.
+ *
+ * <p>Changes are made on whichever instance handles the request or claims the cascade, so each one
+ * is also noted in appointment_changes, and every other instance with subscribers reads the noted
+ * appointments within {@code hms.events.relay-ms} and pushes them as they are then. The relay
+ * re-reads a {@code hms.events.relay-lag-ms} window to tolerate clock skew between instances; a
+ * change committed later than that is not relayed.
+ */
+@Component
+public class AppointmentEventHub {
+  private static final Logger log = LoggerFactory.getLogger(AppointmentEventHub.class);
+  private static final Object HEARTBEAT = new Object();
+  private static final int RELAYED_IDS = 10_000;
+
+  private final Map<String, Set<Connection>> subscribers = new ConcurrentHashMap<>();
+  private final MongoTemplate mongoTemplate;
+  private final ThreadPoolExecutor drainer;
+  private final int bufferSize;
+  private final long timeoutMillis;
+  private final long sendTimeoutMillis;
+  private final boolean relay;
+  private final long relayLagMillis;
+  private final String origin = UUID.randomUUID().toString();
+  private final Map<String, Boolean> relayed = Collections.synchronizedMap(new LinkedHashMap<>() {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) { return size() > RELAYED_IDS; }
+  });
+  private volatile Instant relayedUpTo = Instant.now();
+  private final Counter dropped;
+  private final Counter relayFailures;
+
+  public AppointmentEventHub(MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+                             @Value("${hms.events.buffer:64}") int bufferSize,
+                             @Value("${hms.events.timeout-ms:1800000}") long timeoutMillis,
+                             @Value("${hms.events.drain-threads:4}") int drainThreads,
+                             @Value("${hms.events.max-drain-threads:256}") int maxDrainThreads,
+                             @Value("${hms.events.send-timeout-ms:10000}") long sendTimeoutMillis,
+                             @Value("${hms.events.relay:true}") boolean relay,
+                             @Value("${hms.events.relay-lag-ms:2000}") long relayLagMillis) {
+    this.mongoTemplate = mongoTemplate;
+    this.bufferSize = bufferSize;
+    this.timeoutMillis = timeoutMillis;
+    this.sendTimeoutMillis = sendTimeoutMillis;
+    this.relay = relay;
+    this.relayLagMillis = relayLagMillis;
+    this.dropped = meterRegistry.counter("hms.events.dropped");
+    this.relayFailures = meterRegistry.counter("hms.events.relay.failures");
+    Gauge.builder("hms.events.connections", this, AppointmentEventHub::connectionCount).register(meterRegistry);
+    this.drainer = new ThreadPoolExecutor(drainThreads, Math.max(drainThreads, maxDrainThreads), 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+      Thread t = new Thread(r, "sse-drain");
+      t.setDaemon(true);
+      return t;
+    });
+  }
+
+  public SseEmitter subscribeDoctor(String doctorId) { return subscribe("doctor:" + doctorId, new SseEmitter(timeoutMillis)); }
+
+  public SseEmitter subscribePatient(String patientId) { return subscribe("patient:" + patientId, new SseEmitter(timeoutMillis)); }
+
+  public void publish(Appointment a) {
+    publish(List.of(a));
+  }
+
+  public void publish(List<Appointment> appointments) {
+    if (appointments.isEmpty()) return;
+    appointments.forEach(this::deliver);
+    if (!relay) return;
+    try {
+      Instant now = Instant.now();
+      mongoTemplate.insert(appointments.stream().map(a -> new AppointmentChange(origin, a.getId(), now)).toList(), AppointmentChange.class);
+    } catch (RuntimeException e) {
+      relayFailures.increment();
+      log.debug("Could not record appointment changes for other instances: {}", e.getMessage());
+    }
+  }
+
+  /** Delivers changes made on other instances to this instance's subscribers. */
+  @Scheduled(fixedDelayString = "${hms.events.relay-ms:500}")
+  public void relay() {
+    if (!relay) return;
+    Instant upTo = Instant.now();
+    if (subscribers.isEmpty()) {
+      relayedUpTo = upTo;
+      return;
+    }
+    try {
+      Query changes = new Query(Criteria.where("createdAt").gt(relayedUpTo.minusMillis(relayLagMillis)).lte(upTo).and("origin").ne(origin)).with(Sort.by("createdAt"));
+      List<AppointmentChange> fresh = mongoTemplate.find(changes, AppointmentChange.class).stream().filter(c -> !relayed.containsKey(c.getId())).toList();
+      if (!fresh.isEmpty()) {
+        Set<String> ids = new LinkedHashSet<>();
+        fresh.forEach(c -> ids.add(c.getAppointmentId()));
+        mongoTemplate.find(new Query(Criteria.where("_id").in(ids)), Appointment.class).forEach(this::deliver);
+        fresh.forEach(c -> relayed.put(c.getId(), Boolean.TRUE));
+      }
+      relayedUpTo = upTo;
+    } catch (RuntimeException e) {
+      relayFailures.increment();
+      log.debug("Appointment change relay failed: {}", e.getMessage());
+    }
+  }
+
+  public int connectionCount() {
+    return subscribers.values().stream().mapToInt(Set::size).sum();
+  }
+
+  @Scheduled(fixedDelayString = "${hms.events.heartbeat-ms:25000}")
+  public void heartbeat() {
+    subscribers.values().forEach(set -> set.forEach(c -> c.offer(HEARTBEAT)));
+  }
+
+  @Scheduled(fixedDelayString = "${hms.events.stall-check-ms:2000}")
+  public void dropStalled() {
+    long now = System.currentTimeMillis();
+    subscribers.values().forEach(set -> set.forEach(c -> {
+      long since = c.sendingSince;
+      if (since != 0 && now - since > sendTimeoutMillis) c.drop("send stalled");
+    }));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    subscribers.values().forEach(set -> set.forEach(c -> c.emitter.complete()));
+    drainer.shutdownNow();
+  }
+
+  SseEmitter subscribe(String key, SseEmitter emitter) {
+    Connection c = new Connection(key, emitter);
+    subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(c);
+    c.emitter.onCompletion(() -> remove(c));
+    c.emitter.onTimeout(() -> remove(c));
+    c.emitter.onError(e -> remove(c));
+    c.offer(HEARTBEAT);
+    return c.emitter;
+  }
+
+  private void deliver(Appointment a) {
+    offer("doctor:" + a.getDoctorId(), a);
+    offer("patient:" + a.getPatientId(), a);
+  }
+
+  private void offer(String key, Appointment a) {
+    Set<Connection> set = subscribers.get(key);
+    if (set != null) set.forEach(c -> c.offer(a));
+  }
+
+  private void remove(Connection c) {
+    subscribers.computeIfPresent(c.key, (k, set) -> {
+      set.remove(c);
+      return set.isEmpty() ? null : set;
+    });
+  }
+
+  private final class Connection {
+    private final String key;
+    private final SseEmitter emitter;
+    private final Queue<Object> queue = new ArrayBlockingQueue<>(bufferSize);
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile long sendingSince;
+
+    private Connection(String key, SseEmitter emitter) {
+      this.key = key;
+      this.emitter = emitter;
+    }
+
+    private void offer(Object event) {
+      if (closed.get()) return;
+      if (!queue.offer(event)) {
+        drop("buffer full");
+        return;
+      }
+      if (draining.compareAndSet(false, true)) {
+        try {
+          drainer.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+          draining.set(false);
+          drop("no drain thread");
+        }
+      }
+    }
+
+    // Completing takes the emitter's lock, which a stuck send holds; the drain completes it instead.
+    private void drop(String reason) {
+      if (!closed.compareAndSet(false, true)) return;
+      log.debug("Dropping slow SSE subscriber {}: {}", key, reason);
+      dropped.increment();
+      remove(this);
+      queue.clear();
+      if (sendingSince == 0) emitter.complete();
+    }
+
+    private void drain() {
+      try {
+        Object event;
+        while (!closed.get() && (event = queue.poll()) != null) {
+          sendingSince = System.currentTimeMillis();
+          if (event == HEARTBEAT) emitter.send(SseEmitter.event().comment("hb"));
+          else emitter.send(SseEmitter.event().name("appointment").data(event, MediaType.APPLICATION_JSON));
+          sendingSince = 0;
+        }
+      } catch (IOException | IllegalStateException e) {
+        sendingSince = 0;
+        closed.set(true);
+        remove(this);
+        emitter.completeWithError(e);
+        return;
+      } finally {
+        draining.set(false);
+      }
+      if (closed.get()) {
+        emitter.complete();
+        return;
+      }
+      if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+        try {
+          drainer.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+          draining.set(false);
+          drop("no drain thread");
+        }
+      }
+    }
+  }
+}
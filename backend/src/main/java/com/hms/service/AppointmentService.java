@@ -1,136 +1,259 @@
 package com.hms.service;
 
 import com.hms.dto.BookAppointmentRequest;
+import com.hms.dto.DoctorDto;
 import com.hms.dto.ExtendAppointmentRequest;
 import com.hms.dto.VisitTimingRequest;
 import com.hms.model.*;
 import com.hms.repository.AppointmentRepository;
 import com.hms.repository.DoctorRepository;
 import com.hms.repository.PatientRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @Service
 public class AppointmentService {
+  private static final List<AppointmentStatus> MOVABLE = List.of(AppointmentStatus.ACCEPTED, AppointmentStatus.PENDING);
+
   private final AppointmentRepository appointmentRepository;
   private final DoctorRepository doctorRepository;
   private final PatientRepository patientRepository;
   private final SlotService slotService;
+  private final OccupancyIndex occupancyIndex;
+  private final SlotReservationService slotReservationService;
+  private final DoctorDirectory doctorDirectory;
+  private final MongoTemplate mongoTemplate;
+  private final MeterRegistry meterRegistry;
+  private final DelayPropagationEngine delayPropagationEngine;
+  private final boolean asyncCascade;
+  private final AppointmentEventHub eventHub;
+  private final TimelineService timelineService;
 
-  public AppointmentService(AppointmentRepository appointmentRepository, DoctorRepository doctorRepository, PatientRepository patientRepository, SlotService slotService) {
+  public AppointmentService(AppointmentRepository appointmentRepository, DoctorRepository doctorRepository, PatientRepository patientRepository, SlotService slotService, OccupancyIndex occupancyIndex, SlotReservationService slotReservationService, DoctorDirectory doctorDirectory, MongoTemplate mongoTemplate, MeterRegistry meterRegistry, DelayPropagationEngine delayPropagationEngine, @Value("${hms.cascade.async:true}") boolean asyncCascade, AppointmentEventHub eventHub, TimelineService timelineService) {
     this.appointmentRepository = appointmentRepository;
     this.doctorRepository = doctorRepository;
     this.patientRepository = patientRepository;
     this.slotService = slotService;
+    this.occupancyIndex = occupancyIndex;
+    this.slotReservationService = slotReservationService;
+    this.doctorDirectory = doctorDirectory;
+    this.mongoTemplate = mongoTemplate;
+    this.meterRegistry = meterRegistry;
+    this.delayPropagationEngine = delayPropagationEngine;
+    this.asyncCascade = asyncCascade;
+    this.eventHub = eventHub;
+    this.timelineService = timelineService;
   }
 
   public Appointment book(String patientId, BookAppointmentRequest request) {
-    Doctor doctor = doctorRepository.findById(request.getDoctorId()).orElseThrow();
-    int duration = doctor.getSlotDuration() != null ? doctor.getSlotDuration() : 30;
-    Instant start = Instant.parse(request.getSlotStartTime());
-    Instant end = start.plusSeconds(duration * 60L);
-    ZoneId zone = ZoneId.of("UTC");
-    LocalDate date = LocalDate.ofInstant(start, zone);
-    boolean withinHours = doctor.getWorkingHours() != null && doctor.getWorkingHours().stream().anyMatch(w -> w.getDay() == date.getDayOfWeek() && !start.isBefore(date.atTime(w.getStartTime()).atZone(zone).toInstant()) && !end.isAfter(date.atTime(w.getEndTime()).atZone(zone).toInstant()));
-    if (!withinHours) throw new RuntimeException("Slot not available");
-    List<Appointment> accepted = appointmentRepository.findByDoctorIdAndStatus(doctor.getId(), AppointmentStatus.ACCEPTED);
-    boolean conflict = accepted.stream().anyMatch(x -> slotService.overlaps(start, end, x.getStartTime(), x.getEndTime()));
-    if (conflict) throw new RuntimeException("Slot not available");
-    Appointment a = new Appointment();
-    a.setDoctorId(doctor.getId());
-    a.setPatientId(patientId);
-    a.setStartTime(start);
-    a.setEndTime(end);
-    a.setStatus(AppointmentStatus.PENDING);
-    a.setReason(request.getReason());
-    a.setCreatedAt(Instant.now());
-    a.setUpdatedAt(Instant.now());
-    return appointmentRepository.save(a);
+    return timed("book", () -> {
+      Doctor doctor = doctorRepository.findById(request.getDoctorId()).orElseThrow();
+      int duration = doctor.getSlotDuration() != null ? doctor.getSlotDuration() : 30;
+      Instant start = Instant.parse(request.getSlotStartTime());
+      Instant end = start.plusSeconds(duration * 60L);
+      if (!SlotService.withinWorkingHours(doctor.getWorkingHours(), start, end)) throw new ConflictException("Slot not available");
+      if (!slotReservationService.isFree(doctor.getId(), start, end)) throw new ConflictException("Slot not available");
+      Appointment a = new Appointment();
+      a.setDoctorId(doctor.getId());
+      a.setPatientId(patientId);
+      a.setStartTime(start);
+      a.setEndTime(end);
+      a.setStatus(AppointmentStatus.PENDING);
+      a.setReason(request.getReason());
+      a.setCreatedAt(Instant.now());
+      a.setUpdatedAt(Instant.now());
+      return save(a);
+    });
   }
 
   public Appointment accept(String doctorId, String appointmentId) {
-    Appointment a = appointmentRepository.findById(appointmentId).orElseThrow();
-    if (!a.getDoctorId().equals(doctorId)) throw new RuntimeException("Forbidden");
-    List<Appointment> conflicts = appointmentRepository.findByDoctorIdAndStatus(doctorId, AppointmentStatus.ACCEPTED);
-    boolean conflict = conflicts.stream().anyMatch(x -> slotService.overlaps(a.getStartTime(), a.getEndTime(), x.getStartTime(), x.getEndTime()));
-    if (conflict) throw new RuntimeException("Conflict exists");
-    a.setStatus(AppointmentStatus.ACCEPTED);
-    a.setUpdatedAt(Instant.now());
-    return appointmentRepository.save(a);
+    return timed("accept", () -> {
+      Appointment a = appointmentRepository.findById(appointmentId).orElseThrow();
+      if (!a.getDoctorId().equals(doctorId)) throw new RuntimeException("Forbidden");
+      a.setUpdatedAt(Instant.now());
+      return reserveAndAccept(a, "Conflict exists");
+    });
   }
 
   public Appointment acceptKeepTime(String doctorId, String appointmentId) {
-    Appointment chosen = appointmentRepository.findById(appointmentId).orElseThrow();
-    if (!chosen.getDoctorId().equals(doctorId)) throw new RuntimeException("Forbidden");
-    chosen.setStatus(AppointmentStatus.ACCEPTED);
-    appointmentRepository.save(chosen);
-    List<Appointment> pending = appointmentRepository.findByDoctorIdAndStatus(doctorId, AppointmentStatus.PENDING);
-    for (Appointment p : pending) {
-      boolean conflict = slotService.overlaps(chosen.getStartTime(), chosen.getEndTime(), p.getStartTime(), p.getEndTime());
-      if (conflict) {
-        Instant next = slotService.findNextAvailableSlot(doctorId, chosen.getEndTime(), durationForDoctor(doctorId));
-        if (next != null) {
-          p.setRescheduledFrom(p.getStartTime());
-          p.setProposedStartTime(next);
-          p.setProposedEndTime(next.plusSeconds(durationForDoctor(doctorId) * 60L));
-          p.setStatus(AppointmentStatus.RESCHEDULE_PENDING_PATIENT);
-          p.setUpdatedAt(Instant.now());
-          appointmentRepository.save(p);
-        }
+    return timed("acceptKeepTime", () -> {
+      Appointment chosen = appointmentRepository.findById(appointmentId).orElseThrow();
+      if (!chosen.getDoctorId().equals(doctorId)) throw new RuntimeException("Forbidden");
+      chosen.setUpdatedAt(Instant.now());
+      reserveAndAccept(chosen, "Conflict exists");
+      Timer.Sample sample = Timer.start(meterRegistry);
+      int duration = durationForDoctor(doctorId);
+      List<Appointment> pending = appointmentRepository.findByDoctorIdAndStatus(doctorId, AppointmentStatus.PENDING);
+      List<Appointment> changed = new ArrayList<>();
+      List<Instant> readAt = new ArrayList<>();
+      Instant searchFrom = chosen.getEndTime();
+      for (Appointment p : pending) {
+        if (!slotService.overlaps(chosen.getStartTime(), chosen.getEndTime(), p.getStartTime(), p.getEndTime())) continue;
+        Instant next = slotService.findNextAvailableSlot(doctorId, searchFrom, duration);
+        if (next == null) continue;
+        readAt.add(p.getUpdatedAt());
+        propose(p, next, duration);
+        changed.add(p);
+        searchFrom = p.getProposedEndTime();
       }
+      applyCascade(changed, readAt, List.of(), doctorId, "accept-keep-time", sample);
+      return chosen;
+    });
+  }
+
+  private <T> T timed(String operation, Supplier<T> body) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "error";
+    try {
+      T out = body.get();
+      outcome = "success";
+      return out;
+    } catch (ConflictException e) {
+      outcome = "conflict";
+      throw e;
+    } finally {
+      sample.stop(meterRegistry.timer("hms.appointments", "operation", operation, "outcome", outcome));
     }
-    return chosen;
   }
 
   private int durationForDoctor(String doctorId) {
-    Doctor d = doctorRepository.findById(doctorId).orElseThrow();
+    DoctorDto d = doctorFor(doctorId);
     return d.getSlotDuration() != null ? d.getSlotDuration() : 30;
   }
 
+  // The directory reads a doctor missing from its snapshot from Mongo.
+  private DoctorDto doctorFor(String doctorId) {
+    return doctorDirectory.require(doctorId);
+  }
+
   public Appointment reject(String doctorId, String appointmentId) {
     Appointment a = appointmentRepository.findById(appointmentId).orElseThrow();
     if (!a.getDoctorId().equals(doctorId)) throw new RuntimeException("Forbidden");
+    releaseIfAccepted(a);
     a.setStatus(AppointmentStatus.REJECTED);
     a.setUpdatedAt(Instant.now());
-    return appointmentRepository.save(a);
+    return save(a);
   }
 
   public Appointment visited(String doctorId, String appointmentId, VisitTimingRequest req) {
-    Appointment a = appointmentRepository.findById(appointmentId).orElseThrow();
-    if (!a.getDoctorId().equals(doctorId)) throw new RuntimeException("Forbidden");
-    if (req.getActualStartTime() != null) a.setStartTime(Instant.parse(req.getActualStartTime()));
-    if (req.getActualEndTime() != null) a.setEndTime(Instant.parse(req.getActualEndTime()));
-    a.setStatus(AppointmentStatus.VISITED);
-    a.setUpdatedAt(Instant.now());
-    rescheduleAfterDelay(doctorId, a.getEndTime());
-    return appointmentRepository.save(a);
+    return timed("visited", () -> {
+      Appointment a = appointmentRepository.findById(appointmentId).orElseThrow();
+      if (!a.getDoctorId().equals(doctorId)) throw new RuntimeException("Forbidden");
+      releaseIfAccepted(a);
+      if (req.getActualStartTime() != null) a.setStartTime(Instant.parse(req.getActualStartTime()));
+      if (req.getActualEndTime() != null) a.setEndTime(Instant.parse(req.getActualEndTime()));
+      a.setStatus(AppointmentStatus.VISITED);
+      a.setUpdatedAt(Instant.now());
+      scheduleCascade(a, "visited");
+      return save(a);
+    });
   }
 
   public Appointment extend(String doctorId, String appointmentId, ExtendAppointmentRequest req) {
-    Appointment a = appointmentRepository.findById(appointmentId).orElseThrow();
-    if (!a.getDoctorId().equals(doctorId)) throw new RuntimeException("Forbidden");
-    a.setEndTime(a.getEndTime().plusSeconds(req.getExtraMinutes() * 60L));
+    return timed("extend", () -> {
+      Appointment a = appointmentRepository.findById(appointmentId).orElseThrow();
+      if (!a.getDoctorId().equals(doctorId)) throw new RuntimeException("Forbidden");
+      a.setEndTime(a.getEndTime().plusSeconds(req.getExtraMinutes() * 60L));
+      a.setUpdatedAt(Instant.now());
+      if (a.getStatus() == AppointmentStatus.ACCEPTED) slotReservationService.resize(doctorId, a.getId(), a.getStartTime(), a.getEndTime());
+      scheduleCascade(a, "extend");
+      return save(a);
+    });
+  }
+
+  // With async cascades the event rides in the same document write as the appointment update and
+  // CascadeWorker applies it; otherwise the cascade runs on the request thread.
+  private void scheduleCascade(Appointment a, String trigger) {
+    if (asyncCascade) a.setCascade(CascadeEvent.of(trigger, a.getEndTime()));
+    else rescheduleAfterDelay(a, a.getEndTime(), trigger);
+  }
+
+  public void runCascade(String appointmentId, CascadeEvent event) {
+    Appointment a = appointmentRepository.findById(appointmentId).orElse(null);
+    if (a != null) rescheduleAfterDelay(a, event.getNewEnd(), event.getTrigger());
+  }
+
+  private void rescheduleAfterDelay(Appointment delayed, Instant newEnd, String trigger) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String doctorId = delayed.getDoctorId();
+    List<Appointment> changed = new ArrayList<>();
+    List<Instant> readAt = new ArrayList<>();
+    List<String> released = new ArrayList<>();
+    for (DelayPropagationEngine.Shift shift : delayPropagationEngine.plan(doctorFor(doctorId), delayed, newEnd)) {
+      Appointment s = shift.getAppointment();
+      if (s.getStatus() == AppointmentStatus.ACCEPTED) released.add(s.getId());
+      readAt.add(s.getUpdatedAt());
+      propose(s, shift.getStart(), shift.getEnd());
+      changed.add(s);
+    }
+    applyCascade(changed, readAt, released, doctorId, trigger, sample);
+  }
+
+  private static void propose(Appointment a, Instant start, int duration) {
+    propose(a, start, start.plusSeconds(duration * 60L));
+  }
+
+  private static void propose(Appointment a, Instant start, Instant end) {
+    a.setRescheduledFrom(a.getStartTime());
+    a.setProposedStartTime(start);
+    a.setProposedEndTime(end);
+    a.setStatus(AppointmentStatus.RESCHEDULE_PENDING_PATIENT);
     a.setUpdatedAt(Instant.now());
-    appointmentRepository.save(a);
-    rescheduleAfterDelay(doctorId, a.getEndTime());
-    return a;
-  }
-
-  private void rescheduleAfterDelay(String doctorId, Instant newEnd) {
-    List<Appointment> subsequent = appointmentRepository.findByDoctorIdAndStartTimeAfterOrderByStartTimeAsc(doctorId, newEnd);
-    Instant cursor = newEnd;
-    int duration = durationForDoctor(doctorId);
-    for (Appointment s : subsequent) {
-      s.setRescheduledFrom(s.getStartTime());
-      s.setProposedStartTime(cursor);
-      s.setProposedEndTime(cursor.plusSeconds(duration * 60L));
-      s.setStatus(AppointmentStatus.RESCHEDULE_PENDING_PATIENT);
-      s.setUpdatedAt(Instant.now());
-      appointmentRepository.save(s);
-      cursor = s.getProposedEndTime();
+  }
+
+  // One unordered bulk of $set updates for the whole cascade instead of a save per appointment.
+  // Each update only applies while the appointment is still movable and unchanged since it was
+  // read (readAt, its updatedAt then); rows that lost that race keep the concurrent change, and
+  // only the reservations of rows actually moved are released, after the write.
+  private void applyCascade(List<Appointment> changed, List<Instant> readAt, List<String> released, String doctorId, String trigger, Timer.Sample sample) {
+    List<Appointment> applied = changed;
+    if (!changed.isEmpty()) {
+      Instant stamp = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+      BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Appointment.class);
+      for (int i = 0; i < changed.size(); i++) {
+        Appointment a = changed.get(i);
+        a.setUpdatedAt(stamp);
+        ops.updateOne(new Query(Criteria.where("_id").is(a.getId()).and("status").in(MOVABLE).and("updatedAt").is(readAt.get(i))), new Update()
+            .set("rescheduledFrom", a.getRescheduledFrom())
+            .set("proposedStartTime", a.getProposedStartTime())
+            .set("proposedEndTime", a.getProposedEndTime())
+            .set("status", a.getStatus())
+            .set("updatedAt", stamp));
+      }
+      if (ops.execute().getMatchedCount() < changed.size()) applied = written(changed, stamp);
+      List<String> moved = applied.stream().map(Appointment::getId).filter(released::contains).toList();
+      if (!moved.isEmpty()) slotReservationService.releaseAll(doctorId, moved);
+      applied.forEach(occupancyIndex::apply);
+      timelineService.onAppointments(applied);
+      eventHub.publish(applied);
+      if (applied.size() < changed.size()) meterRegistry.counter("hms.cascade.skipped", "trigger", trigger).increment(changed.size() - applied.size());
     }
+    meterRegistry.summary("hms.cascade.writes", "trigger", trigger).record(applied.size());
+    sample.stop(meterRegistry.timer("hms.cascade.duration", "trigger", trigger));
+  }
+
+  // The subset of changed whose conditional update matched, i.e. that now carry this cascade's stamp.
+  private List<Appointment> written(List<Appointment> changed, Instant stamp) {
+    Query query = new Query(Criteria.where("_id").in(changed.stream().map(Appointment::getId).toList()).and("updatedAt").is(stamp));
+    query.fields().include("_id");
+    Set<String> ids = new HashSet<>();
+    for (Appointment a : mongoTemplate.find(query, Appointment.class)) ids.add(a.getId());
+    return changed.stream().filter(a -> ids.contains(a.getId())).toList();
   }
 
   public Appointment patientAcceptReschedule(String patientId, String appointmentId) {
@@ -139,9 +262,8 @@ public class AppointmentService {
     if (a.getStatus() != AppointmentStatus.RESCHEDULE_PENDING_PATIENT) throw new RuntimeException("Invalid state");
     a.setStartTime(a.getProposedStartTime());
     a.setEndTime(a.getProposedEndTime());
-    a.setStatus(AppointmentStatus.ACCEPTED);
     a.setUpdatedAt(Instant.now());
-    return appointmentRepository.save(a);
+    return reserveAndAccept(a, "Slot not available");
   }
 
   public Appointment patientRejectReschedule(String patientId, String appointmentId) {
@@ -150,6 +272,29 @@ public class AppointmentService {
     if (a.getStatus() != AppointmentStatus.RESCHEDULE_PENDING_PATIENT) throw new RuntimeException("Invalid state");
     a.setStatus(AppointmentStatus.CANCELLED);
     a.setUpdatedAt(Instant.now());
-    return appointmentRepository.save(a);
+    return save(a);
+  }
+
+  private Appointment reserveAndAccept(Appointment a, String conflictMessage) {
+    if (!slotReservationService.reserve(a.getDoctorId(), a.getId(), a.getStartTime(), a.getEndTime())) throw new ConflictException(conflictMessage);
+    a.setStatus(AppointmentStatus.ACCEPTED);
+    try {
+      return save(a);
+    } catch (RuntimeException e) {
+      slotReservationService.release(a.getDoctorId(), a.getId());
+      throw e;
+    }
+  }
+
+  private void releaseIfAccepted(Appointment a) {
+    if (a.getStatus() == AppointmentStatus.ACCEPTED) slotReservationService.release(a.getDoctorId(), a.getId());
+  }
+
+  private Appointment save(Appointment a) {
+    Appointment saved = appointmentRepository.save(a);
+    occupancyIndex.apply(saved);
+    timelineService.onAppointment(saved);
+    eventHub.publish(saved);
+    return saved;
   }
 }
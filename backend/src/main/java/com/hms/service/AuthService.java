@@ -8,10 +8,9 @@ import com.hms.model.Role;
 import com.hms.model.User;
 import com.hms.repository.PatientRepository;
 import com.hms.repository.UserRepository;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
 import com.hms.config.JwtTokenProvider;
 
@@ -19,33 +18,47 @@ import java.time.Instant;
 
 @Service
 public class AuthService {
-  private final AuthenticationManager authenticationManager;
   private final JwtTokenProvider jwtTokenProvider;
   private final UserRepository userRepository;
   private final PatientRepository patientRepository;
-  private final PasswordEncoder passwordEncoder;
+  private final PasswordHashingService passwordHashingService;
+  private final IdentityService identityService;
+  private final RefreshTokenService refreshTokenService;
+  private final MeterRegistry meterRegistry;
 
-  public AuthService(AuthenticationManager authenticationManager, JwtTokenProvider jwtTokenProvider, UserRepository userRepository, PatientRepository patientRepository, PasswordEncoder passwordEncoder) {
-    this.authenticationManager = authenticationManager;
+  public AuthService(JwtTokenProvider jwtTokenProvider, UserRepository userRepository, PatientRepository patientRepository, PasswordHashingService passwordHashingService, IdentityService identityService, RefreshTokenService refreshTokenService, MeterRegistry meterRegistry) {
     this.jwtTokenProvider = jwtTokenProvider;
     this.userRepository = userRepository;
     this.patientRepository = patientRepository;
-    this.passwordEncoder = passwordEncoder;
+    this.passwordHashingService = passwordHashingService;
+    this.identityService = identityService;
+    this.refreshTokenService = refreshTokenService;
+    this.meterRegistry = meterRegistry;
   }
 
   public LoginResponse login(LoginRequest request) {
-    Authentication auth = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
-    User user = userRepository.findByEmail(request.getEmail()).orElseThrow();
-    String token = jwtTokenProvider.generateToken(auth);
-    return new LoginResponse(token, user.getId(), user.getName(), user.getRole().name());
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String outcome = "failure";
+    try {
+      User user = userRepository.findByEmail(request.getEmail()).orElse(null);
+      if (!passwordHashingService.matches(request.getPassword(), user != null ? user.getPasswordHash() : null)) throw new BadCredentialsException("Bad credentials");
+      passwordHashingService.rehashIfNeeded(user, request.getPassword());
+      String domainId = identityService.domainIdOf(user);
+      String token = jwtTokenProvider.generateToken(user, domainId);
+      String refreshToken = refreshTokenService.issue(user, domainId);
+      outcome = "success";
+      return new LoginResponse(token, user.getId(), user.getName(), user.getRole().name(), refreshToken);
+    } finally {
+      sample.stop(meterRegistry.timer("hms.auth.login", "outcome", outcome));
+    }
   }
 
   public LoginResponse signupPatient(PatientSignupRequest request) {
-    if (userRepository.findByEmail(request.getEmail()).isPresent()) throw new RuntimeException("Email already exists");
+    if (userRepository.findByEmail(request.getEmail()).isPresent()) throw new ConflictException("Email already exists");
     User user = new User();
     user.setName(request.getName());
     user.setEmail(request.getEmail());
-    user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
+    user.setPasswordHash(passwordHashingService.encode(request.getPassword()));
     user.setRole(Role.PATIENT);
     user.setCreatedAt(Instant.now());
     user.setUpdatedAt(Instant.now());
@@ -55,9 +68,16 @@ public class AuthService {
     patient.setAge(request.getAge());
     patient.setGender(request.getGender());
     patient.setContactInfo(request.getContactInfo());
-    patientRepository.save(patient);
-    Authentication auth = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
-    String token = jwtTokenProvider.generateToken(auth);
-    return new LoginResponse(token, user.getId(), user.getName(), user.getRole().name());
+    patient = patientRepository.save(patient);
+    String token = jwtTokenProvider.generateToken(user, patient.getId());
+    return new LoginResponse(token, user.getId(), user.getName(), user.getRole().name(), refreshTokenService.issue(user, patient.getId()));
+  }
+
+  public LoginResponse refresh(String refreshToken) {
+    return refreshTokenService.refresh(refreshToken);
+  }
+
+  public void logout(String refreshToken) {
+    refreshTokenService.logout(refreshToken);
   }
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+package com.hms.service;
+
+import com.hms.model.Appointment;
+import com.hms.model.CascadeEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains reschedule cascades written into appointments as outbox events. Events are claimed with a
+ * lease via findAndModify, so several instances can poll safely, and are run on single-threaded
+ * lanes picked by doctor id, which keeps one doctor's cascades in order within one instance and
+ * one poll. Order is not guaranteed across instances, nor once a failed event is backing off: a
+ * later event for the same doctor can then run first. That is tolerated because every cascade
+ * plans from the doctor's current appointments and its write skips rows changed since it read
+ * them, so the later event is computed as if the earlier one had not happened yet, and the
+ * earlier one, when it runs, plans against the result. The lease is renewed when
+ * the lane starts the event, so time spent queued behind a busy doctor does not count against it,
+ * and an event whose lease was lost meanwhile is left to its new owner. A cascade recomputes from
+ * current state, so replays after a crash or lease expiry are harmless; the event is cleared only
+ * if it is still the one that was claimed.
+ *
+ * <p>An event that fails {@code hms.cascade.max-attempts} times is dead-lettered: it keeps its
+ * last error, gets deadAt and loses availableAt, so it drops out of the due index. Dead letters
+ * are counted in the {@code hms.cascade.dead} gauge, can be listed, retried or discarded by an
+ * admin, and are removed after {@code hms.cascade.dead-retention-days}.
+ */
+@Component
+public class CascadeWorker {
+  private static final Logger log = LoggerFactory.getLogger(CascadeWorker.class);
+
+  private final MongoTemplate mongoTemplate;
+  private final AppointmentService appointmentService;
+  private final MeterRegistry meterRegistry;
+  private final ExecutorService[] lanes;
+  private final int batchSize;
+  private final long leaseMillis;
+  private final int maxAttempts;
+  private final Duration deadRetention;
+  private final AtomicLong deadLetters = new AtomicLong();
+
+  public CascadeWorker(MongoTemplate mongoTemplate, AppointmentService appointmentService, MeterRegistry meterRegistry,
+                       @Value("${hms.cascade.workers:4}") int workers,
+                       @Value("${hms.cascade.batch-size:50}") int batchSize,
+                       @Value("${hms.cascade.lease-ms:60000}") long leaseMillis,
+                       @Value("${hms.cascade.max-attempts:8}") int maxAttempts,
+                       @Value("${hms.cascade.dead-retention-days:7}") int deadRetentionDays) {
+    this.mongoTemplate = mongoTemplate;
+    this.appointmentService = appointmentService;
+    this.meterRegistry = meterRegistry;
+    this.batchSize = batchSize;
+    this.leaseMillis = leaseMillis;
+    this.maxAttempts = maxAttempts;
+    this.deadRetention = Duration.ofDays(deadRetentionDays);
+    meterRegistry.gauge("hms.cascade.dead", deadLetters);
+    this.lanes = new ExecutorService[Math.max(1, workers)];
+    for (int i = 0; i < lanes.length; i++) {
+      int lane = i;
+      lanes[i] = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "cascade-" + lane);
+        t.setDaemon(true);
+        return t;
+      });
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${hms.cascade.poll-ms:250}")
+  public void poll() {
+    List<Appointment> claimed = new ArrayList<>();
+    try {
+      Appointment a;
+      while (claimed.size() < batchSize && (a = claim()) != null) claimed.add(a);
+    } catch (RuntimeException e) {
+      log.debug("Cascade poll failed: {}", e.getMessage());
+    }
+    for (Appointment a : claimed) {
+      lanes[Math.floorMod(a.getDoctorId().hashCode(), lanes.length)].execute(() -> process(a));
+    }
+  }
+
+  private Appointment claim() {
+    Instant now = Instant.now();
+    Query due = new Query(new Criteria().andOperator(
+        Criteria.where("cascade.availableAt").lte(now),
+        new Criteria().orOperator(Criteria.where("cascade.leaseUntil").is(null), Criteria.where("cascade.leaseUntil").lt(now))));
+    due.with(Sort.by("cascade.availableAt"));
+    Update lease = new Update().set("cascade.leaseUntil", now.plusMillis(leaseMillis)).inc("cascade.attempts", 1);
+    return mongoTemplate.findAndModify(due, lease, FindAndModifyOptions.options().returnNew(true), Appointment.class);
+  }
+
+  private void process(Appointment a) {
+    CascadeEvent event = a.getCascade();
+    if (!renewLease(a.getId(), event)) {
+      meterRegistry.counter("hms.cascade.lease.lost", "trigger", String.valueOf(event.getTrigger())).increment();
+      return;
+    }
+    try {
+      appointmentService.runCascade(a.getId(), event);
+      mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(a.getId()).and("cascade.id").is(event.getId())), new Update().unset("cascade"), Appointment.class);
+    } catch (RuntimeException e) {
+      meterRegistry.counter("hms.cascade.failures", "trigger", String.valueOf(event.getTrigger())).increment();
+      Update retry = new Update().unset("cascade.leaseUntil").set("cascade.lastError", String.valueOf(e.getMessage()));
+      if (event.getAttempts() >= maxAttempts) {
+        retry.set("cascade.deadAt", Instant.now()).unset("cascade.availableAt");
+        meterRegistry.counter("hms.cascade.dead.total", "trigger", String.valueOf(event.getTrigger())).increment();
+        deadLetters.incrementAndGet();
+        log.error("Cascade {} for appointment {} failed {} times, giving up", event.getId(), a.getId(), event.getAttempts(), e);
+      } else {
+        retry.set("cascade.availableAt", Instant.now().plus(backoff(event.getAttempts())));
+        log.warn("Cascade {} for appointment {} failed (attempt {}): {}", event.getId(), a.getId(), event.getAttempts(), e.getMessage());
+      }
+      mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(a.getId()).and("cascade.id").is(event.getId())), retry, Appointment.class);
+    }
+  }
+
+  // Only succeeds while the claim made in poll() still holds; another instance may have taken the
+  // event over if it waited in the lane past its lease.
+  private boolean renewLease(String appointmentId, CascadeEvent event) {
+    Query claimed = new Query(Criteria.where("_id").is(appointmentId).and("cascade.id").is(event.getId()).and("cascade.leaseUntil").is(event.getLeaseUntil()));
+    return mongoTemplate.updateFirst(claimed, new Update().set("cascade.leaseUntil", Instant.now().plusMillis(leaseMillis)), Appointment.class).getMatchedCount() > 0;
+  }
+
+  /** Drops dead letters past retention and refreshes the hms.cascade.dead gauge. */
+  @Scheduled(fixedDelayString = "${hms.cascade.dead-check-ms:60000}")
+  public void sweepDeadLetters() {
+    try {
+      Query expired = new Query(Criteria.where("cascade.deadAt").lt(Instant.now().minus(deadRetention)));
+      long purged = mongoTemplate.updateMulti(expired, new Update().unset("cascade"), Appointment.class).getModifiedCount();
+      if (purged > 0) log.warn("Discarded {} dead cascade events older than {}", purged, deadRetention);
+      long dead = mongoTemplate.count(new Query(Criteria.where("cascade.deadAt").exists(true)), Appointment.class);
+      deadLetters.set(dead);
+      if (dead > 0) log.warn("{} cascade events are dead-lettered; see GET /admin/cascades/dead", dead);
+    } catch (RuntimeException e) {
+      log.debug("Dead-letter sweep failed: {}", e.getMessage());
+    }
+  }
+
+  public List<Appointment> deadLetters(int limit) {
+    Query dead = new Query(Criteria.where("cascade.deadAt").exists(true)).with(Sort.by("cascade.deadAt")).limit(Math.max(1, Math.min(limit, 500)));
+    return mongoTemplate.find(dead, Appointment.class);
+  }
+
+  /** Puts a dead-lettered event back in the queue with a fresh attempt budget. */
+  public void retry(String appointmentId) {
+    Update requeue = new Update().set("cascade.availableAt", Instant.now()).set("cascade.attempts", 0).unset("cascade.deadAt").unset("cascade.leaseUntil");
+    if (mongoTemplate.updateFirst(deadLetter(appointmentId), requeue, Appointment.class).getModifiedCount() == 0) throw new RuntimeException("No dead cascade for appointment");
+    deadLetters.updateAndGet(n -> Math.max(0, n - 1));
+  }
+
+  public void discard(String appointmentId) {
+    if (mongoTemplate.updateFirst(deadLetter(appointmentId), new Update().unset("cascade"), Appointment.class).getModifiedCount() == 0) throw new RuntimeException("No dead cascade for appointment");
+    deadLetters.updateAndGet(n -> Math.max(0, n - 1));
+  }
+
+  private static Query deadLetter(String appointmentId) {
+    return new Query(Criteria.where("_id").is(appointmentId).and("cascade.deadAt").exists(true));
+  }
+
+  private static Duration backoff(int attempts) {
+    return Duration.ofSeconds(Math.min(300, 1L << Math.min(attempts, 8)));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    for (ExecutorService lane : lanes) lane.shutdown();
+  }
+}
@@ -0,0 +1,8 @@
+package com.hms.service;
+
+/** The request lost to existing state (a taken slot, a duplicate email); mapped to 409. */
+public class ConflictException extends RuntimeException {
+  public ConflictException(String message) {
+    super(message);
+  }
+}
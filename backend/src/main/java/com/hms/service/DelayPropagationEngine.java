@@ -0,0 +1,89 @@
+package com.hms.service;
+
+import com.hms.dto.DoctorDto;
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.WorkingHoursEntry;
+import com.hms.repository.AppointmentRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Pushes an overrun forward through the rest of the doctor's working window. Only ACCEPTED and
+ * PENDING appointments starting at or after the trigger are considered, including those the
+ * overrun swallows whole; each one that now overlaps is shifted to start when its predecessor
+ * ends, and propagation stops at the first appointment the delay no longer reaches, so gaps in
+ * the schedule absorb it.
+ */
+@Component
+public class DelayPropagationEngine {
+  private static final ZoneId UTC = ZoneId.of("UTC");
+  private static final List<AppointmentStatus> MOVABLE = List.of(AppointmentStatus.ACCEPTED, AppointmentStatus.PENDING);
+
+  private final AppointmentRepository appointmentRepository;
+
+  public DelayPropagationEngine(AppointmentRepository appointmentRepository) {
+    this.appointmentRepository = appointmentRepository;
+  }
+
+  public List<Shift> plan(DoctorDto doctor, Appointment trigger, Instant newEnd) {
+    Instant[] window = window(doctor, trigger.getStartTime());
+    if (!newEnd.isBefore(window[1])) window[1] = newEnd.plusSeconds(1);
+    List<Appointment> candidates = new ArrayList<>();
+    for (Appointment a : appointmentRepository.findByDoctorIdAndStatusInAndStartTimeBetween(doctor.getId(), MOVABLE, window[0].minusSeconds(1), window[1])) {
+      if (!a.getId().equals(trigger.getId()) && !a.getStartTime().isBefore(trigger.getStartTime())) candidates.add(a);
+    }
+    candidates.sort(Comparator.comparing(Appointment::getStartTime).thenComparing(Appointment::getId));
+    return absorb(newEnd, candidates);
+  }
+
+  /** Shifts for {@code following} (sorted by start) after the preceding work now ends at {@code newEnd}. */
+  public static List<Shift> absorb(Instant newEnd, List<Appointment> following) {
+    List<Shift> shifts = new ArrayList<>();
+    Instant cursor = newEnd;
+    for (Appointment a : following) {
+      if (!a.getStartTime().isBefore(cursor)) break;
+      Instant end = cursor.plus(Duration.between(a.getStartTime(), a.getEndTime()));
+      shifts.add(new Shift(a, cursor, end));
+      cursor = end;
+    }
+    return shifts;
+  }
+
+  // The working window containing the trigger's start; the rest of its UTC day when it is off-hours.
+  private static Instant[] window(DoctorDto doctor, Instant at) {
+    LocalDate date = LocalDate.ofInstant(at, UTC);
+    if (doctor.getWorkingHours() != null) {
+      for (WorkingHoursEntry w : doctor.getWorkingHours()) {
+        if (w.getDay() != date.getDayOfWeek()) continue;
+        Instant start = date.atTime(w.getStartTime()).atZone(UTC).toInstant();
+        Instant end = date.atTime(w.getEndTime()).atZone(UTC).toInstant();
+        if (!at.isBefore(start) && at.isBefore(end)) return new Instant[] {start, end};
+      }
+    }
+    return new Instant[] {at, date.plusDays(1).atStartOfDay(UTC).toInstant()};
+  }
+
+  public static final class Shift {
+    private final Appointment appointment;
+    private final Instant start;
+    private final Instant end;
+
+    public Shift(Appointment appointment, Instant start, Instant end) {
+      this.appointment = appointment;
+      this.start = start;
+      this.end = end;
+    }
+
+    public Appointment getAppointment() { return appointment; }
+    public Instant getStart() { return start; }
+    public Instant getEnd() { return end; }
+  }
+}
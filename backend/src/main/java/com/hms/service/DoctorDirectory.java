@@ -0,0 +1,149 @@
+package com.hms.service;
+
+import com.hms.dto.CursorPage;
+import com.hms.dto.DoctorDto;
+import com.hms.dto.PageCursor;
+import com.hms.model.Doctor;
+import com.hms.model.User;
+import com.hms.model.WorkingHoursEntry;
+import com.hms.repository.DoctorRepository;
+import com.hms.repository.KeysetQueries;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Immutable in-memory snapshot of the doctor roster. Reads never touch Mongo; AdminService
+ * patches the snapshot copy-on-write, and a periodic refresh picks up changes made by other nodes.
+ * A lookup by id that misses the snapshot reads the doctor from Mongo and adds it, so a doctor
+ * created on another node is usable before the next refresh.
+ */
+@Service
+public class DoctorDirectory {
+  private final DoctorRepository doctorRepository;
+  private final EnrichmentService enrichmentService;
+  private volatile Snapshot snapshot;
+
+  public DoctorDirectory(DoctorRepository doctorRepository, EnrichmentService enrichmentService) {
+    this.doctorRepository = doctorRepository;
+    this.enrichmentService = enrichmentService;
+  }
+
+  public Snapshot snapshot() {
+    Snapshot s = snapshot;
+    return s != null ? s : refresh();
+  }
+
+  /** The doctor, or null if it exists neither in the snapshot nor in Mongo. */
+  public DoctorDto get(String doctorId) {
+    DoctorDto dto = snapshot().get(doctorId);
+    if (dto != null || doctorId == null) return dto;
+    Doctor doctor = doctorRepository.findById(doctorId).orElse(null);
+    if (doctor == null) return null;
+    dto = enrichmentService.doctor(doctor);
+    put(dto);
+    return dto;
+  }
+
+  public DoctorDto require(String doctorId) {
+    return Optional.ofNullable(get(doctorId)).orElseThrow();
+  }
+
+  @Scheduled(fixedDelayString = "${hms.directory.refresh-ms:300000}", initialDelayString = "${hms.directory.refresh-ms:300000}")
+  public synchronized Snapshot refresh() {
+    snapshot = new Snapshot(enrichmentService.doctors(doctorRepository.findAll()));
+    return snapshot;
+  }
+
+  public synchronized void upsert(Doctor doctor, User user) {
+    Map<String, DoctorDto> next = new LinkedHashMap<>(snapshot().byId);
+    DoctorDto dto = EnrichmentService.toDoctorDto(doctor, user);
+    DoctorDto previous = next.get(doctor.getId());
+    if (user == null && previous != null) {
+      dto.setName(previous.getName());
+      dto.setEmail(previous.getEmail());
+    }
+    next.put(doctor.getId(), dto);
+    snapshot = new Snapshot(new ArrayList<>(next.values()));
+  }
+
+  private synchronized void put(DoctorDto dto) {
+    Map<String, DoctorDto> next = new LinkedHashMap<>(snapshot().byId);
+    next.putIfAbsent(dto.getId(), dto);
+    snapshot = new Snapshot(new ArrayList<>(next.values()));
+  }
+
+  public synchronized void remove(String doctorId) {
+    Map<String, DoctorDto> next = new LinkedHashMap<>(snapshot().byId);
+    if (next.remove(doctorId) != null) snapshot = new Snapshot(new ArrayList<>(next.values()));
+  }
+
+  public static final class Snapshot {
+    private final List<DoctorDto> doctors;
+    private final Map<String, DoctorDto> byId;
+    private final Map<String, List<DoctorDto>> bySpecialization;
+    private final String version;
+
+    private Snapshot(List<DoctorDto> doctors) {
+      List<DoctorDto> sorted = new ArrayList<>(doctors);
+      sorted.sort(Comparator.comparing(DoctorDto::getId));
+      Map<String, DoctorDto> index = new LinkedHashMap<>();
+      for (DoctorDto d : sorted) index.put(d.getId(), d);
+      this.doctors = Collections.unmodifiableList(sorted);
+      this.byId = Collections.unmodifiableMap(index);
+      Map<String, List<DoctorDto>> specs = new HashMap<>();
+      for (DoctorDto d : sorted) {
+        if (d.getSpecialization() != null) specs.computeIfAbsent(normalize(d.getSpecialization()), k -> new ArrayList<>()).add(d);
+      }
+      specs.replaceAll((k, v) -> Collections.unmodifiableList(v));
+      this.bySpecialization = Collections.unmodifiableMap(specs);
+      this.version = fingerprint(sorted);
+    }
+
+    public List<DoctorDto> getDoctors() { return doctors; }
+    public DoctorDto get(String doctorId) { return byId.get(doctorId); }
+    public String getVersion() { return version; }
+    public List<DoctorDto> bySpecialization(String specialization) { return bySpecialization.getOrDefault(normalize(specialization), List.of()); }
+
+    public CursorPage<DoctorDto> page(String cursor, Integer limit) {
+      PageCursor after = PageCursor.decode(cursor);
+      int from = 0;
+      if (after != null) {
+        DoctorDto key = new DoctorDto();
+        key.setId(after.getId());
+        int pos = Collections.binarySearch(doctors, key, Comparator.comparing(DoctorDto::getId));
+        from = pos >= 0 ? pos + 1 : -pos - 1;
+      }
+      int to = Math.min(doctors.size(), from + KeysetQueries.pageSize(limit));
+      List<DoctorDto> items = doctors.subList(from, to);
+      String next = to < doctors.size() ? PageCursor.encode(items.get(items.size() - 1).getId()) : null;
+      return new CursorPage<>(items, next);
+    }
+
+    private static String normalize(String specialization) {
+      return specialization.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Content-derived so every node serving the same roster hands out the same ETag.
+    private static String fingerprint(List<DoctorDto> doctors) {
+      long h = 1125899906842597L;
+      for (DoctorDto d : doctors) {
+        h = 31 * h + Objects.hash(d.getId(), d.getUserId(), d.getName(), d.getEmail(), d.getSpecialization(), d.getExperienceYears(), d.getSlotDuration());
+        if (d.getWorkingHours() != null) {
+          for (WorkingHoursEntry w : d.getWorkingHours()) h = 31 * h + Objects.hash(w.getDay(), w.getStartTime(), w.getEndTime());
+        }
+      }
+      return Long.toHexString(h);
+    }
+  }
+}
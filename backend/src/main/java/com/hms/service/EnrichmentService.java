@@ -0,0 +1,168 @@
+package com.hms.service;
+
+import com.hms.dto.AdminPatientDto;
+import com.hms.dto.AppointmentHistoryItem;
+import com.hms.dto.AppointmentWithPatientDto;
+import com.hms.dto.DoctorDto;
+import com.hms.dto.PrescriptionWithDoctorDto;
+import com.hms.model.Appointment;
+import com.hms.model.Doctor;
+import com.hms.model.Patient;
+import com.hms.model.Prescription;
+import com.hms.model.User;
+import com.hms.repository.DoctorRepository;
+import com.hms.repository.PatientRepository;
+import com.hms.repository.UserRepository;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Assembles response DTOs for a page of rows. Foreign keys are collected from the whole page
+ * and resolved with one findAllById per referenced collection, so each list costs a constant
+ * number of queries regardless of its size.
+ */
+@Service
+public class EnrichmentService {
+  private final UserRepository userRepository;
+  private final DoctorRepository doctorRepository;
+  private final PatientRepository patientRepository;
+
+  public EnrichmentService(UserRepository userRepository, DoctorRepository doctorRepository, PatientRepository patientRepository) {
+    this.userRepository = userRepository;
+    this.doctorRepository = doctorRepository;
+    this.patientRepository = patientRepository;
+  }
+
+  public List<DoctorDto> doctors(List<Doctor> doctors) {
+    Map<String, User> users = byId(userRepository, doctors, Doctor::getUserId, User::getId);
+    return doctors.stream().map(d -> toDoctorDto(d, users.get(d.getUserId()))).toList();
+  }
+
+  public DoctorDto doctor(Doctor doctor) {
+    return doctors(List.of(doctor)).get(0);
+  }
+
+  public List<AdminPatientDto> patients(List<Patient> patients) {
+    Map<String, User> users = byId(userRepository, patients, Patient::getUserId, User::getId);
+    return patients.stream().map(p -> toAdminPatientDto(p, users.get(p.getUserId()))).toList();
+  }
+
+  public AdminPatientDto patient(Patient patient) {
+    return patients(List.of(patient)).get(0);
+  }
+
+  public List<AppointmentWithPatientDto> appointmentsWithPatient(List<Appointment> appointments) {
+    Map<String, Patient> patients = byId(patientRepository, appointments, Appointment::getPatientId, Patient::getId);
+    Map<String, User> users = byId(userRepository, patients.values(), Patient::getUserId, User::getId);
+    return appointments.stream().map(a -> {
+      Patient p = patients.get(a.getPatientId());
+      User u = p != null ? users.get(p.getUserId()) : null;
+      return toAppointmentWithPatientDto(a, u);
+    }).toList();
+  }
+
+  public List<AppointmentHistoryItem> historyItems(List<Appointment> appointments) {
+    Map<String, Doctor> doctors = byId(doctorRepository, appointments, Appointment::getDoctorId, Doctor::getId);
+    Map<String, User> users = byId(userRepository, doctors.values(), Doctor::getUserId, User::getId);
+    return appointments.stream().map(a -> {
+      Doctor d = doctors.get(a.getDoctorId());
+      User u = d != null ? users.get(d.getUserId()) : null;
+      return toHistoryItem(a, u);
+    }).toList();
+  }
+
+  public List<PrescriptionWithDoctorDto> prescriptions(List<Prescription> prescriptions) {
+    Map<String, Doctor> doctors = byId(doctorRepository, prescriptions, Prescription::getDoctorId, Doctor::getId);
+    Map<String, User> users = byId(userRepository, doctors.values(), Doctor::getUserId, User::getId);
+    return prescriptions.stream().map(p -> {
+      Doctor d = doctors.get(p.getDoctorId());
+      User u = d != null ? users.get(d.getUserId()) : null;
+      return toPrescriptionDto(p, d, u);
+    }).toList();
+  }
+
+  public static DoctorDto toDoctorDto(Doctor d, User u) {
+    DoctorDto dto = new DoctorDto();
+    dto.setId(d.getId());
+    dto.setUserId(d.getUserId());
+    dto.setName(u != null ? u.getName() : null);
+    dto.setEmail(u != null ? u.getEmail() : null);
+    dto.setSpecialization(d.getSpecialization());
+    dto.setExperienceYears(d.getExperienceYears());
+    dto.setSlotDuration(d.getSlotDuration());
+    dto.setWorkingHours(d.getWorkingHours());
+    return dto;
+  }
+
+  public static AdminPatientDto toAdminPatientDto(Patient p, User u) {
+    AdminPatientDto dto = new AdminPatientDto();
+    dto.setId(p.getId());
+    dto.setUserId(p.getUserId());
+    dto.setName(u != null ? u.getName() : null);
+    dto.setEmail(u != null ? u.getEmail() : null);
+    dto.setAge(p.getAge());
+    dto.setGender(p.getGender());
+    dto.setContactInfo(p.getContactInfo());
+    return dto;
+  }
+
+  public static AppointmentWithPatientDto toAppointmentWithPatientDto(Appointment a, User patientUser) {
+    AppointmentWithPatientDto dto = new AppointmentWithPatientDto();
+    dto.setId(a.getId());
+    dto.setDoctorId(a.getDoctorId());
+    dto.setPatientId(a.getPatientId());
+    dto.setStartTime(a.getStartTime());
+    dto.setEndTime(a.getEndTime());
+    dto.setStatus(a.getStatus());
+    dto.setReason(a.getReason());
+    dto.setRescheduledFrom(a.getRescheduledFrom());
+    dto.setProposedStartTime(a.getProposedStartTime());
+    dto.setProposedEndTime(a.getProposedEndTime());
+    dto.setCreatedAt(a.getCreatedAt());
+    dto.setUpdatedAt(a.getUpdatedAt());
+    dto.setPatientName(patientUser != null ? patientUser.getName() : null);
+    return dto;
+  }
+
+  public static AppointmentHistoryItem toHistoryItem(Appointment a, User doctorUser) {
+    AppointmentHistoryItem dto = new AppointmentHistoryItem();
+    dto.setId(a.getId());
+    dto.setStartTime(a.getStartTime());
+    dto.setEndTime(a.getEndTime());
+    dto.setStatus(a.getStatus());
+    dto.setReason(a.getReason());
+    dto.setDoctorName(doctorUser != null ? doctorUser.getName() : null);
+    return dto;
+  }
+
+  public static PrescriptionWithDoctorDto toPrescriptionDto(Prescription p, Doctor d, User doctorUser) {
+    PrescriptionWithDoctorDto dto = new PrescriptionWithDoctorDto();
+    dto.setId(p.getId());
+    dto.setAppointmentId(p.getAppointmentId());
+    dto.setPatientId(p.getPatientId());
+    dto.setMedications(p.getMedications());
+    dto.setNotes(p.getNotes());
+    dto.setCreatedAt(p.getCreatedAt());
+    dto.setDoctorName(doctorUser != null ? doctorUser.getName() : null);
+    dto.setDoctorSpecialization(d != null ? d.getSpecialization() : null);
+    return dto;
+  }
+
+  private static <R, T> Map<String, T> byId(CrudRepository<T, String> repository, Collection<R> rows, Function<R, String> foreignKey, Function<T, String> id) {
+    Set<String> ids = rows.stream().map(foreignKey).filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+    if (ids.isEmpty()) return new HashMap<>();
+    Map<String, T> out = new HashMap<>();
+    for (T t : repository.findAllById(ids)) out.put(id.apply(t), t);
+    return out;
+  }
+}
@@ -0,0 +1,135 @@
+package com.hms.service;
+
+import com.hms.config.QueryRecorder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent lookups of one request concurrently so the request pays the slowest lookup
+ * rather than the sum. Work is scoped: {@link Scope#join()} takes forks in completion order, so
+ * the first failure surfaces as soon as it happens and cancels the rest, and closing the scope
+ * cancels anything still running. Forks run on a bounded pool that falls back to the caller
+ * thread when saturated; with {@code hms.fanout.enabled=false} they run inline on the caller.
+ */
+@Component
+public class FanOut {
+
+  private final ExecutorService executor;
+  private final long timeoutMillis;
+
+  public FanOut(@Value("${hms.fanout.enabled:true}") boolean enabled, @Value("${hms.fanout.threads:64}") int threads, @Value("${hms.fanout.timeout-ms:10000}") long timeoutMillis) {
+    this.executor = enabled ? createExecutor(threads) : new InlineExecutor();
+    this.timeoutMillis = timeoutMillis;
+  }
+
+  public Scope scope() {
+    return new Scope();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private static ExecutorService createExecutor(int threads) {
+    AtomicInteger n = new AtomicInteger();
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(threads * 4), r -> {
+      Thread t = new Thread(r, "fanout-" + n.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    }, new ThreadPoolExecutor.CallerRunsPolicy());
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  public final class Scope implements AutoCloseable {
+    private final CompletionService<Object> completions = new ExecutorCompletionService<>(executor);
+    private final List<Future<?>> forks = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> Supplier<T> fork(Callable<T> task) {
+      Future<T> f = (Future<T>) completions.submit((Callable<Object>) QueryRecorder.propagate(task));
+      forks.add(f);
+      return () -> {
+        if (!f.isDone()) throw new IllegalStateException("Scope not joined");
+        try {
+          return f.get();
+        } catch (InterruptedException | ExecutionException e) {
+          throw new IllegalStateException(e);
+        }
+      };
+    }
+
+    public void join() {
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+      try {
+        for (int i = 0; i < forks.size(); i++) {
+          Future<?> done = completions.poll(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+          if (done == null) throw new TimeoutException();
+          done.get();
+        }
+      } catch (ExecutionException e) {
+        cancelAll();
+        if (e.getCause() instanceof RuntimeException re) throw re;
+        throw new IllegalStateException(e.getCause());
+      } catch (TimeoutException | CancellationException e) {
+        cancelAll();
+        throw new IllegalStateException("Fan-out timed out", e);
+      } catch (InterruptedException e) {
+        cancelAll();
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+
+    @Override
+    public void close() {
+      cancelAll();
+    }
+
+    private void cancelAll() {
+      for (Future<?> f : forks) f.cancel(true);
+    }
+  }
+
+  // Runs each task on the submitting thread; used when fan-out is disabled.
+  private static final class InlineExecutor extends AbstractExecutorService {
+    private volatile boolean shutdown;
+
+    @Override
+    public void execute(Runnable command) { command.run(); }
+
+    @Override
+    public void shutdown() { shutdown = true; }
+
+    @Override
+    public List<Runnable> shutdownNow() { shutdown = true; return List.of(); }
+
+    @Override
+    public boolean isShutdown() { return shutdown; }
+
+    @Override
+    public boolean isTerminated() { return shutdown; }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) { return true; }
+  }
+}
@@ -0,0 +1,89 @@
+package com.hms.service;
+
+import com.hms.dto.CurrentDoctor;
+import com.hms.dto.CurrentPatient;
+import com.hms.model.Doctor;
+import com.hms.model.Patient;
+import com.hms.model.Role;
+import com.hms.model.User;
+import com.hms.repository.DoctorRepository;
+import com.hms.repository.PatientRepository;
+import com.hms.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Resolves an authenticated email to its user id, role and doctor/patient id.
+ * Results are kept in a bounded LRU cache; admin operations that delete or
+ * re-key a user must call {@link #evictUser(String)}.
+ */
+@Service
+public class IdentityService {
+  private final UserRepository userRepository;
+  private final DoctorRepository doctorRepository;
+  private final PatientRepository patientRepository;
+  private final Map<String, Identity> cache;
+
+  public IdentityService(UserRepository userRepository, DoctorRepository doctorRepository, PatientRepository patientRepository, @Value("${hms.identity.cache-size:10000}") int cacheSize) {
+    this.userRepository = userRepository;
+    this.doctorRepository = doctorRepository;
+    this.patientRepository = patientRepository;
+    this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Identity> eldest) {
+        return size() > cacheSize;
+      }
+    });
+  }
+
+  public CurrentDoctor currentDoctor(String email) {
+    Identity identity = resolve(email);
+    if (identity.role != Role.DOCTOR) throw new RuntimeException("Forbidden");
+    return new CurrentDoctor(identity.userId, identity.domainId);
+  }
+
+  public CurrentPatient currentPatient(String email) {
+    Identity identity = resolve(email);
+    if (identity.role != Role.PATIENT) throw new RuntimeException("Forbidden");
+    return new CurrentPatient(identity.userId, identity.domainId);
+  }
+
+  public void evictUser(String userId) {
+    synchronized (cache) {
+      cache.values().removeIf(i -> i.userId.equals(userId));
+    }
+  }
+
+  public String domainIdOf(User user) {
+    if (user.getRole() == Role.DOCTOR) return doctorRepository.findByUserId(user.getId()).map(Doctor::getId).orElse(null);
+    if (user.getRole() == Role.PATIENT) return patientRepository.findByUserId(user.getId()).map(Patient::getId).orElse(null);
+    return null;
+  }
+
+  private Identity resolve(String email) {
+    Identity cached = cache.get(email);
+    if (cached != null) return cached;
+    User user = userRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("Forbidden"));
+    String domainId = domainIdOf(user);
+    if (user.getRole() != Role.ADMIN && domainId == null) throw new RuntimeException("Forbidden");
+    Identity identity = new Identity(user.getId(), user.getRole(), domainId);
+    cache.put(email, identity);
+    return identity;
+  }
+
+  private static final class Identity {
+    private final String userId;
+    private final Role role;
+    private final String domainId;
+
+    private Identity(String userId, Role role, String domainId) {
+      this.userId = userId;
+      this.role = role;
+      this.domainId = domainId;
+    }
+  }
+}
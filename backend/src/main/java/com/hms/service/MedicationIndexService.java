@@ -0,0 +1,296 @@
+package com.hms.service;
+
+import com.hms.dto.CursorPage;
+import com.hms.dto.MedicationReindexReport;
+import com.hms.model.Medication;
+import com.hms.model.MedicationIndexEntry;
+import com.hms.model.MedicationIndexPending;
+import com.hms.model.MedicationName;
+import com.hms.model.Prescription;
+import com.hms.repository.KeysetQueries;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains medication_index (one entry per medication per prescription) and medication_catalog
+ * (one entry per folded name). PrescriptionService updates both on create; reindex() rebuilds
+ * them from prescriptions in batches. Searches only ever touch the index, never prescriptions.
+ * A failed update is recorded in medication_index_pending (and in memory, in case that write
+ * fails too) and retried by retryPending().
+ */
+@Service
+public class MedicationIndexService {
+  public static final int DEFAULT_LIMIT = 100;
+  public static final int MAX_CATALOG_LIMIT = 100;
+  private static final Logger log = LoggerFactory.getLogger(MedicationIndexService.class);
+  private static final Pattern REGEX_SPECIAL = Pattern.compile("[\\\\^$.|?*+()\\[\\]{}]");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+  private static final Pattern COURSE = Pattern.compile("(\\d+)\\s*(d|days?|w|wks?|weeks?|m|mos?|months?)\\b");
+  private static final Pattern ONGOING = Pattern.compile("ongoing|continuous|indefinite|long[- ]term|lifelong");
+  private static final Instant ONGOING_UNTIL = Instant.parse("9999-12-31T00:00:00Z");
+
+  private final MongoTemplate mongoTemplate;
+  private final KeysetQueries keysetQueries;
+  private final Counter failures;
+  private final int batchSize;
+  private final Duration defaultCourse;
+  private final Map<String, String> pending = new ConcurrentHashMap<>();
+
+  public MedicationIndexService(MongoTemplate mongoTemplate, KeysetQueries keysetQueries, MeterRegistry meterRegistry,
+                                @Value("${hms.medications.batch-size:500}") int batchSize, @Value("${hms.medications.default-course-days:30}") int defaultCourseDays) {
+    this.mongoTemplate = mongoTemplate;
+    this.keysetQueries = keysetQueries;
+    this.failures = meterRegistry.counter("hms.medications.index.failures");
+    this.batchSize = batchSize;
+    this.defaultCourse = Duration.ofDays(defaultCourseDays);
+    meterRegistry.gauge("hms.medications.index.pending", pending, Map::size);
+  }
+
+  /** Case-, width- and whitespace-folded form used as the catalog and index key. */
+  public static String normalize(String name) {
+    if (name == null) return "";
+    String folded = Normalizer.normalize(name, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    return WHITESPACE.matcher(folded).replaceAll(" ").trim();
+  }
+
+  public void onPrescription(Prescription p) {
+    try {
+      List<MedicationIndexEntry> entries = entriesOf(p);
+      if (entries.isEmpty()) return;
+      writeEntries(entries);
+      BulkOperations catalog = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MedicationName.class);
+      for (MedicationIndexEntry e : entries) {
+        catalog.upsert(new Query(Criteria.where("_id").is(e.getMedication())), new Update()
+            .setOnInsert("displayName", e.getName())
+            .inc("prescriptionCount", 1)
+            .min("firstPrescribedAt", e.getPrescribedAt())
+            .max("lastPrescribedAt", e.getPrescribedAt()));
+      }
+      catalog.execute();
+    } catch (RuntimeException e) {
+      failures.increment();
+      log.warn("Medication index update failed for prescription {}: {}", p.getId(), e.getMessage());
+      pending.put(p.getId(), p.getPatientId());
+      try {
+        mongoTemplate.save(new MedicationIndexPending(p.getId(), p.getPatientId(), Instant.now()));
+      } catch (RuntimeException ignored) {
+        log.warn("Could not record pending medication index update for prescription {}", p.getId());
+      }
+    }
+  }
+
+  /**
+   * Re-indexes prescriptions whose update failed, including those recorded by other instances.
+   * The failed write may have landed in part, so catalog entries are recounted from the index
+   * rather than incremented again.
+   */
+  @Scheduled(fixedDelayString = "${hms.medications.retry-ms:30000}")
+  public void retryPending() {
+    try {
+      for (MedicationIndexPending r : mongoTemplate.findAll(MedicationIndexPending.class)) pending.putIfAbsent(r.getId(), r.getPatientId());
+    } catch (RuntimeException e) {
+      log.warn("Medication index retry could not read medication_index_pending: {}", e.getMessage());
+    }
+    for (String prescriptionId : List.copyOf(pending.keySet())) {
+      try {
+        Prescription p = mongoTemplate.findById(prescriptionId, Prescription.class);
+        if (p != null) {
+          List<MedicationIndexEntry> entries = entriesOf(p);
+          if (!entries.isEmpty()) writeEntries(entries);
+          recount(entries.stream().map(MedicationIndexEntry::getMedication).toList());
+        }
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(prescriptionId)), MedicationIndexPending.class);
+        pending.remove(prescriptionId);
+      } catch (RuntimeException e) {
+        log.warn("Medication index retry failed for prescription {}: {}", prescriptionId, e.getMessage());
+      }
+    }
+  }
+
+  /** Drops a deleted patient's index entries and recounts the catalog entries they contributed to. */
+  public void removePatient(String patientId) {
+    Query byPatient = new Query(Criteria.where("patientId").is(patientId));
+    List<String> medications = mongoTemplate.findDistinct(byPatient, "medication", MedicationIndexEntry.class, String.class);
+    mongoTemplate.remove(byPatient, MedicationIndexEntry.class);
+    mongoTemplate.remove(new Query(Criteria.where("patientId").is(patientId)), MedicationIndexPending.class);
+    pending.values().removeIf(patientId::equals);
+    recount(medications);
+  }
+
+  public List<MedicationName> catalog(String prefix, Integer limit) {
+    int size = Math.max(1, Math.min(limit == null ? 20 : limit, MAX_CATALOG_LIMIT));
+    String folded = normalize(prefix);
+    Criteria c = folded.isEmpty() ? new Criteria() : Criteria.where("_id").regex("^" + REGEX_SPECIAL.matcher(folded).replaceAll("\\\\$0"));
+    return mongoTemplate.find(new Query(c).with(Sort.by("_id")).limit(size), MedicationName.class);
+  }
+
+  /**
+   * Prescriptions of one medication. With current, only courses still running now, ordered by
+   * when they end; otherwise by prescribedAt within [from, to). Either way one index range scan.
+   */
+  public CursorPage<MedicationIndexEntry> search(String name, String doctorId, Instant from, Instant to, boolean current, String cursor, Integer limit) {
+    String medication = normalize(name);
+    if (medication.isEmpty()) throw new RuntimeException("Medication name required");
+    int size = limit == null ? DEFAULT_LIMIT : limit;
+    Criteria c = Criteria.where("medication").is(medication);
+    if (doctorId != null) c = c.and("doctorId").is(doctorId);
+    if (current) {
+      if (from != null || to != null) throw new RuntimeException("current cannot be combined with from/to");
+      c = c.and("activeUntil").gte(Instant.now());
+      return keysetQueries.byTime(MedicationIndexEntry.class, "activeUntil", c, cursor, size, MedicationIndexEntry::getActiveUntil, MedicationIndexEntry::getId);
+    }
+    if (from != null && to != null && !from.isBefore(to)) throw new RuntimeException("from must be before to");
+    if (from != null || to != null) {
+      Criteria range = c.and("prescribedAt");
+      if (from != null) range = range.gte(from);
+      if (to != null) range = range.lt(to);
+      c = range;
+    }
+    return keysetQueries.byTime(MedicationIndexEntry.class, "prescribedAt", c, cursor, size, MedicationIndexEntry::getPrescribedAt, MedicationIndexEntry::getId);
+  }
+
+  /**
+   * Re-derives index entries from prescriptions in _id order and rewrites the catalog from the
+   * totals. Entries have deterministic ids, so rerunning is safe; a prescription created while
+   * the rebuild runs may be missing from the catalog counts until the next reindex.
+   */
+  public MedicationReindexReport reindex() {
+    long started = System.currentTimeMillis();
+    long prescriptions = 0, entries = 0, batches = 0;
+    Map<String, MedicationName> names = new HashMap<>();
+    String after = null;
+    while (true) {
+      Criteria c = after == null ? new Criteria() : Criteria.where("_id").gt(after);
+      List<Prescription> batch = mongoTemplate.find(new Query(c).with(Sort.by("_id")).limit(batchSize), Prescription.class);
+      if (batch.isEmpty()) break;
+      BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MedicationIndexEntry.class);
+      int queued = 0;
+      for (Prescription p : batch) {
+        for (MedicationIndexEntry e : entriesOf(p)) {
+          ops.replaceOne(new Query(Criteria.where("_id").is(e.getId())), e, FindAndReplaceOptions.options().upsert());
+          tally(names, e);
+          queued++;
+        }
+      }
+      if (queued > 0) ops.execute();
+      prescriptions += batch.size();
+      entries += queued;
+      batches++;
+      after = batch.get(batch.size() - 1).getId();
+    }
+    if (!names.isEmpty()) {
+      BulkOperations catalog = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MedicationName.class);
+      for (MedicationName n : names.values()) catalog.replaceOne(new Query(Criteria.where("_id").is(n.getId())), n, FindAndReplaceOptions.options().upsert());
+      catalog.execute();
+    }
+    MedicationReindexReport report = new MedicationReindexReport(prescriptions, entries, names.size(), batches, System.currentTimeMillis() - started);
+    log.info("Medication index rebuilt: {} prescriptions, {} entries, {} names in {} ms", prescriptions, entries, names.size(), report.getElapsedMillis());
+    return report;
+  }
+
+  private void writeEntries(List<MedicationIndexEntry> entries) {
+    BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, MedicationIndexEntry.class);
+    for (MedicationIndexEntry e : entries) ops.replaceOne(new Query(Criteria.where("_id").is(e.getId())), e, FindAndReplaceOptions.options().upsert());
+    ops.execute();
+  }
+
+  // Same result as reindex() gives for these names: count, earliest and latest, earliest spelling.
+  private void recount(Collection<String> medications) {
+    for (String medication : medications) {
+      Query byMedication = new Query(Criteria.where("medication").is(medication));
+      long count = mongoTemplate.count(byMedication, MedicationIndexEntry.class);
+      Query catalogEntry = new Query(Criteria.where("_id").is(medication));
+      if (count == 0) {
+        mongoTemplate.remove(catalogEntry, MedicationName.class);
+        continue;
+      }
+      MedicationIndexEntry first = mongoTemplate.findOne(Query.of(byMedication).with(Sort.by("prescribedAt", "_id")), MedicationIndexEntry.class);
+      MedicationIndexEntry last = mongoTemplate.findOne(Query.of(byMedication).with(Sort.by(Sort.Direction.DESC, "prescribedAt", "_id")), MedicationIndexEntry.class);
+      mongoTemplate.upsert(catalogEntry, new Update()
+          .set("displayName", first.getName())
+          .set("prescriptionCount", count)
+          .set("firstPrescribedAt", first.getPrescribedAt())
+          .set("lastPrescribedAt", last.getPrescribedAt()), MedicationName.class);
+    }
+  }
+
+  private List<MedicationIndexEntry> entriesOf(Prescription p) {
+    if (p.getMedications() == null) return List.of();
+    Map<String, MedicationIndexEntry> byName = new LinkedHashMap<>();
+    for (Medication m : p.getMedications()) {
+      String medication = normalize(m.getName());
+      if (medication.isEmpty() || byName.containsKey(medication)) continue;
+      MedicationIndexEntry e = new MedicationIndexEntry();
+      e.setId(p.getId() + ":" + medication);
+      e.setMedication(medication);
+      e.setName(m.getName().trim());
+      e.setPrescriptionId(p.getId());
+      e.setAppointmentId(p.getAppointmentId());
+      e.setPatientId(p.getPatientId());
+      e.setDoctorId(p.getDoctorId());
+      e.setDosage(m.getDosage());
+      e.setFrequency(m.getFrequency());
+      e.setDuration(m.getDuration());
+      e.setPrescribedAt(p.getCreatedAt());
+      e.setActiveUntil(activeUntil(p.getCreatedAt(), m.getDuration()));
+      byName.put(medication, e);
+    }
+    return new ArrayList<>(byName.values());
+  }
+
+  // Durations are free text ("7 days", "2 wks", "ongoing"); anything unparseable gets the default course.
+  private Instant activeUntil(Instant prescribedAt, String duration) {
+    if (prescribedAt == null) return null;
+    String d = normalize(duration);
+    if (ONGOING.matcher(d).find()) return ONGOING_UNTIL;
+    Matcher m = COURSE.matcher(d);
+    if (!m.find()) return prescribedAt.plus(defaultCourse);
+    long n = Long.parseLong(m.group(1));
+    char unit = m.group(2).charAt(0);
+    long days = unit == 'w' ? n * 7 : unit == 'm' ? n * 30 : n;
+    return prescribedAt.plus(Duration.ofDays(days));
+  }
+
+  private static void tally(Map<String, MedicationName> names, MedicationIndexEntry e) {
+    MedicationName n = names.computeIfAbsent(e.getMedication(), k -> {
+      MedicationName created = new MedicationName();
+      created.setId(k);
+      created.setDisplayName(e.getName());
+      return created;
+    });
+    n.setPrescriptionCount(n.getPrescriptionCount() + 1);
+    Instant at = e.getPrescribedAt();
+    if (at == null) return;
+    if (n.getFirstPrescribedAt() == null || at.isBefore(n.getFirstPrescribedAt())) {
+      n.setFirstPrescribedAt(at);
+      n.setDisplayName(e.getName());
+    }
+    if (n.getLastPrescribedAt() == null || at.isAfter(n.getLastPrescribedAt())) n.setLastPrescribedAt(at);
+  }
+}
@@ -0,0 +1,213 @@
+package com.hms.service;
+
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process index of ACCEPTED appointment time per doctor per UTC day, one bit per minute.
+ * Days are loaded from Mongo on first use (or once their TTL lapses) and patched in place by
+ * AppointmentService on every appointment write, so slot lookups need no database access. An
+ * appointment that crosses midnight occupies both days, as in SlotReservationService.
+ */
+@Component
+public class OccupancyIndex {
+  private static final Logger log = LoggerFactory.getLogger(OccupancyIndex.class);
+  private static final ZoneId UTC = ZoneId.of("UTC");
+  private static final int MINUTES_PER_DAY = 24 * 60;
+
+  private final MongoTemplate mongoTemplate;
+  private final long ttlMillis;
+  private final Counter appointmentsScanned;
+  private final Map<String, ConcurrentHashMap<LocalDate, DayOccupancy>> doctors = new ConcurrentHashMap<>();
+  private final Map<String, AtomicLong> writeCounters = new ConcurrentHashMap<>();
+
+  public OccupancyIndex(MongoTemplate mongoTemplate, @Value("${hms.occupancy.ttl-ms:60000}") long ttlMillis, MeterRegistry meterRegistry) {
+    this.mongoTemplate = mongoTemplate;
+    this.ttlMillis = ttlMillis;
+    this.appointmentsScanned = meterRegistry.counter("hms.slots.appointments.scanned");
+  }
+
+  /**
+   * Returns the day, loading it from Mongo outside the map so other days of the doctor are not
+   * blocked behind the query. A load that raced a write for the doctor is returned but not cached.
+   */
+  public DayOccupancy day(String doctorId, LocalDate date) {
+    ConcurrentHashMap<LocalDate, DayOccupancy> days = days(doctorId);
+    DayOccupancy current = days.get(date);
+    if (current != null && isFresh(current)) return current;
+    long before = writeCounter(doctorId).get();
+    DayOccupancy loaded = load(doctorId, date);
+    if (writeCounter(doctorId).get() != before) return loaded;
+    if (current == null) {
+      DayOccupancy raced = days.putIfAbsent(date, loaded);
+      return raced != null ? raced : loaded;
+    }
+    return days.replace(date, current, loaded) ? loaded : days.getOrDefault(date, loaded);
+  }
+
+  /**
+   * Returns every day in [from, to], loading all missing or stale days with a single range query.
+   * If the doctor's appointments change while that query runs, the affected days fall back to
+   * per-day loads so a concurrent write is never lost.
+   */
+  public Map<LocalDate, DayOccupancy> range(String doctorId, LocalDate from, LocalDate to) {
+    ConcurrentHashMap<LocalDate, DayOccupancy> days = days(doctorId);
+    List<LocalDate> missing = new ArrayList<>();
+    for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+      DayOccupancy current = days.get(d);
+      if (current == null || !isFresh(current)) missing.add(d);
+    }
+    if (missing.size() > 1) {
+      long before = writeCounter(doctorId).get();
+      Map<LocalDate, DayOccupancy> loaded = load(doctorId, missing.get(0), missing.get(missing.size() - 1));
+      if (writeCounter(doctorId).get() == before) {
+        for (LocalDate d : missing) days.compute(d, (k, current) -> current != null && isFresh(current) ? current : loaded.get(k));
+      }
+    }
+    Map<LocalDate, DayOccupancy> out = new TreeMap<>();
+    for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) out.put(d, day(doctorId, d));
+    return out;
+  }
+
+  public void apply(Appointment a) {
+    writeCounter(a.getDoctorId()).incrementAndGet();
+    ConcurrentHashMap<LocalDate, DayOccupancy> days = doctors.get(a.getDoctorId());
+    if (days == null) return;
+    boolean occupies = a.getStatus() == AppointmentStatus.ACCEPTED && a.getStartTime() != null && a.getEndTime() != null;
+    List<LocalDate> covered = occupies ? SlotReservationService.days(a.getStartTime(), a.getEndTime()) : List.of();
+    for (LocalDate date : new ArrayList<>(days.keySet())) {
+      days.computeIfPresent(date, (d, current) -> {
+        DayOccupancy next = current.without(a.getId());
+        return covered.contains(d) ? next.with(a) : next;
+      });
+    }
+  }
+
+  public void evictDoctor(String doctorId) {
+    doctors.remove(doctorId);
+    writeCounters.remove(doctorId);
+  }
+
+  /**
+   * Rebuilds the day from Mongo and compares it with the cached copy. A mismatch replaces the
+   * cached day and is logged; returns whether the index agreed with the database.
+   */
+  public boolean verify(String doctorId, LocalDate date) {
+    ConcurrentHashMap<LocalDate, DayOccupancy> days = doctors.get(doctorId);
+    DayOccupancy cached = days != null ? days.get(date) : null;
+    if (cached == null) return true;
+    DayOccupancy fresh = load(doctorId, date);
+    if (fresh.minutes.equals(cached.minutes)) return true;
+    log.warn("Occupancy index drift for doctor {} on {}; rebuilt from database", doctorId, date);
+    days.put(date, fresh);
+    return false;
+  }
+
+  @Scheduled(fixedDelayString = "${hms.occupancy.verify-ms:300000}", initialDelayString = "${hms.occupancy.verify-ms:300000}")
+  public void sweep() {
+    LocalDate oldest = LocalDate.now(UTC).minusDays(1);
+    for (Map.Entry<String, ConcurrentHashMap<LocalDate, DayOccupancy>> e : doctors.entrySet()) {
+      e.getValue().entrySet().removeIf(d -> d.getKey().isBefore(oldest) || !isFresh(d.getValue()));
+      for (LocalDate date : new ArrayList<>(e.getValue().keySet())) verify(e.getKey(), date);
+    }
+    doctors.values().removeIf(Map::isEmpty);
+  }
+
+  private ConcurrentHashMap<LocalDate, DayOccupancy> days(String doctorId) {
+    return doctors.computeIfAbsent(doctorId, id -> new ConcurrentHashMap<>());
+  }
+
+  private AtomicLong writeCounter(String doctorId) {
+    return writeCounters.computeIfAbsent(doctorId, id -> new AtomicLong());
+  }
+
+  private boolean isFresh(DayOccupancy day) {
+    return System.currentTimeMillis() - day.loadedAt < ttlMillis;
+  }
+
+  private DayOccupancy load(String doctorId, LocalDate date) {
+    return load(doctorId, date, date).get(date);
+  }
+
+  private Map<LocalDate, DayOccupancy> load(String doctorId, LocalDate from, LocalDate to) {
+    Instant rangeStart = from.atStartOfDay(UTC).toInstant();
+    Instant rangeEnd = to.plusDays(1).atStartOfDay(UTC).toInstant();
+    // Includes appointments from the day before the range that run past midnight.
+    Query query = new Query(Criteria.where("doctorId").is(doctorId).and("status").is(AppointmentStatus.ACCEPTED)
+        .and("startTime").gte(rangeStart.minusSeconds(24 * 3600L)).lt(rangeEnd).and("endTime").gt(rangeStart));
+    query.fields().include("startTime", "endTime");
+    long now = System.currentTimeMillis();
+    Map<LocalDate, DayOccupancy> out = new HashMap<>();
+    for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) out.put(d, new DayOccupancy(d, Map.of(), now));
+    List<Appointment> accepted = mongoTemplate.find(query, Appointment.class);
+    appointmentsScanned.increment(accepted.size());
+    for (Appointment a : accepted) {
+      for (LocalDate d : SlotReservationService.days(a.getStartTime(), a.getEndTime())) out.computeIfPresent(d, (k, day) -> day.with(a));
+    }
+    return out;
+  }
+
+  public static final class DayOccupancy {
+    private final Instant dayStart;
+    private final Map<String, int[]> ranges;
+    private final BitSet minutes;
+    private final long loadedAt;
+
+    private DayOccupancy(LocalDate date, Map<String, int[]> ranges, long loadedAt) {
+      this.dayStart = date.atStartOfDay(UTC).toInstant();
+      this.ranges = Collections.unmodifiableMap(ranges);
+      this.loadedAt = loadedAt;
+      BitSet bits = new BitSet(MINUTES_PER_DAY);
+      for (int[] r : ranges.values()) bits.set(r[0], r[1]);
+      this.minutes = bits;
+    }
+
+    /** True when no occupied minute falls in [fromMinute, toMinute). */
+    public boolean isFree(int fromMinute, int toMinute) {
+      int next = minutes.nextSetBit(fromMinute);
+      return next < 0 || next >= toMinute;
+    }
+
+    public Instant getDayStart() { return dayStart; }
+
+    private DayOccupancy with(Appointment a) {
+      long startSec = a.getStartTime().getEpochSecond() - dayStart.getEpochSecond();
+      long endSec = a.getEndTime().getEpochSecond() - dayStart.getEpochSecond();
+      int from = (int) Math.max(0, Math.min(MINUTES_PER_DAY, Math.floorDiv(startSec, 60)));
+      int to = (int) Math.max(0, Math.min(MINUTES_PER_DAY, -Math.floorDiv(-endSec, 60)));
+      Map<String, int[]> next = new HashMap<>(ranges);
+      next.put(a.getId(), new int[] { from, to });
+      return new DayOccupancy(LocalDate.ofInstant(dayStart, UTC), next, loadedAt);
+    }
+
+    private DayOccupancy without(String appointmentId) {
+      if (!ranges.containsKey(appointmentId)) return this;
+      Map<String, int[]> next = new HashMap<>(ranges);
+      next.remove(appointmentId);
+      return new DayOccupancy(LocalDate.ofInstant(dayStart, UTC), next, loadedAt);
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package com.hms.service;
+
+import com.hms.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs BCrypt on a dedicated pool (one thread per core by default) so login bursts queue here
+ * instead of piling onto the request threads. What happens when the pool cannot keep up is set by
+ * hms.passwords.overload: REJECT fails fast with "Server busy" (503 with Retry-After) when the
+ * bounded queue is full or a hash waits longer than hms.passwords.wait-ms; WAIT never rejects, and
+ * once the queue is full the caller hashes on its own thread, so overload shows up as latency.
+ */
+@Service
+public class PasswordHashingService {
+  private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+
+  public enum Overload { REJECT, WAIT }
+
+  private final PasswordEncoder passwordEncoder;
+  private final MongoTemplate mongoTemplate;
+  private final ThreadPoolExecutor executor;
+  private final int strength;
+  private final long waitMillis;
+  private final Overload overload;
+  private final String dummyHash;
+  private final Counter rejected;
+  private final Timer queueWait;
+
+  public PasswordHashingService(PasswordEncoder passwordEncoder, MongoTemplate mongoTemplate, MeterRegistry meterRegistry,
+                                @Value("${hms.passwords.threads:0}") int threads, @Value("${hms.passwords.queue:100}") int queue,
+                                @Value("${hms.passwords.wait-ms:5000}") long waitMillis, @Value("${hms.passwords.overload:REJECT}") Overload overload,
+                                @Value("${hms.passwords.bcrypt-strength:10}") int strength) {
+    this.passwordEncoder = passwordEncoder;
+    this.mongoTemplate = mongoTemplate;
+    this.strength = strength;
+    this.waitMillis = waitMillis;
+    this.overload = overload;
+    int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    AtomicInteger n = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queue), r -> {
+      Thread t = new Thread(r, "password-hash-" + n.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    }, overload == Overload.WAIT ? new ThreadPoolExecutor.CallerRunsPolicy() : new ThreadPoolExecutor.AbortPolicy());
+    this.dummyHash = passwordEncoder.encode("not-a-real-password");
+    this.rejected = meterRegistry.counter("hms.passwords.rejected");
+    this.queueWait = meterRegistry.timer("hms.passwords.wait");
+    meterRegistry.gauge("hms.passwords.queue", executor, e -> e.getQueue().size());
+    meterRegistry.gauge("hms.passwords.active", executor, ThreadPoolExecutor::getActiveCount);
+  }
+
+  public String encode(CharSequence raw) {
+    return run(() -> passwordEncoder.encode(raw));
+  }
+
+  // Unknown users are checked against a dummy hash so they cost the same as a wrong password.
+  public boolean matches(CharSequence raw, String hash) {
+    boolean ok = run(() -> passwordEncoder.matches(raw, hash != null ? hash : dummyHash));
+    return hash != null && ok;
+  }
+
+  public boolean needsRehash(String hash) {
+    try {
+      return hash == null || !hash.startsWith("$2") || Integer.parseInt(hash.substring(4, 6)) != strength;
+    } catch (RuntimeException e) {
+      return true;
+    }
+  }
+
+  /**
+   * After a successful login, re-hashes the password in the background when its cost differs from
+   * hms.passwords.bcrypt-strength. The write only lands if the hash has not changed meanwhile; a
+   * full queue just leaves it for the next login.
+   */
+  public void rehashIfNeeded(User user, String raw) {
+    if (!needsRehash(user.getPasswordHash()) || executor.getQueue().remainingCapacity() == 0) return;
+    String previous = user.getPasswordHash();
+    try {
+      executor.execute(() -> {
+        Query query = new Query(Criteria.where("_id").is(user.getId()).and("passwordHash").is(previous));
+        mongoTemplate.updateFirst(query, new Update().set("passwordHash", passwordEncoder.encode(raw)).set("updatedAt", Instant.now()), User.class);
+      });
+    } catch (RejectedExecutionException e) {
+      log.debug("Skipping rehash for {}: hashing queue full", user.getId());
+    }
+  }
+
+  private <T> T run(Callable<T> task) {
+    long queuedAt = System.nanoTime();
+    Future<T> f;
+    try {
+      f = executor.submit(() -> {
+        queueWait.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+        return task.call();
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new RuntimeException("Server busy");
+    }
+    try {
+      return overload == Overload.WAIT ? f.get() : f.get(waitMillis, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      f.cancel(true);
+      rejected.increment();
+      throw new RuntimeException("Server busy");
+    } catch (InterruptedException e) {
+      f.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Server busy");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException re) throw re;
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
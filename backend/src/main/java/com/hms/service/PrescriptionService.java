@@ -18,10 +18,14 @@ import java.util.stream.Collectors;
 public class PrescriptionService {
   private final PrescriptionRepository prescriptionRepository;
   private final AppointmentRepository appointmentRepository;
+  private final TimelineService timelineService;
+  private final MedicationIndexService medicationIndexService;
 
-  public PrescriptionService(PrescriptionRepository prescriptionRepository, AppointmentRepository appointmentRepository) {
+  public PrescriptionService(PrescriptionRepository prescriptionRepository, AppointmentRepository appointmentRepository, TimelineService timelineService, MedicationIndexService medicationIndexService) {
     this.prescriptionRepository = prescriptionRepository;
     this.appointmentRepository = appointmentRepository;
+    this.timelineService = timelineService;
+    this.medicationIndexService = medicationIndexService;
   }
 
   public Prescription create(String doctorId, String appointmentId, PrescriptionRequest request) {
@@ -36,7 +40,10 @@ public class PrescriptionService {
     p.setMedications(meds);
     p.setNotes(request.getNotes());
     p.setCreatedAt(Instant.now());
-    return prescriptionRepository.save(p);
+    p = prescriptionRepository.save(p);
+    timelineService.onPrescription(a, p);
+    medicationIndexService.onPrescription(p);
+    return p;
   }
 
   private Medication toMedication(MedicationDto dto) {
@@ -0,0 +1,143 @@
+package com.hms.service;
+
+import com.hms.config.JwtTokenProvider;
+import com.hms.config.TokenVersionRegistry;
+import com.hms.dto.LoginResponse;
+import com.hms.model.RefreshToken;
+import com.hms.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Issues and rotates opaque refresh tokens. A refresh is one conditional findAndModify on the
+ * token's hash plus one insert and one HMAC sign, with no password hashing. Each rotation extends
+ * the session by the token lifetime, but never past the family's absolute lifetime from login.
+ */
+@Service
+public class RefreshTokenService {
+  private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+  private final MongoTemplate mongoTemplate;
+  private final JwtTokenProvider jwtTokenProvider;
+  private final TokenVersionRegistry tokenVersionRegistry;
+  private final long ttlMillis;
+  private final long familyTtlMillis;
+  private final long graceMillis;
+  private final SecureRandom random = new SecureRandom();
+  private final Counter reuseDetected;
+  private final Counter graceReissued;
+
+  public RefreshTokenService(MongoTemplate mongoTemplate, JwtTokenProvider jwtTokenProvider, TokenVersionRegistry tokenVersionRegistry, MeterRegistry meterRegistry,
+                             @Value("${jwt.refresh-expiration:1209600000}") long ttlMillis,
+                             @Value("${jwt.refresh-family-expiration:2592000000}") long familyTtlMillis,
+                             @Value("${jwt.refresh-grace-ms:10000}") long graceMillis) {
+    this.mongoTemplate = mongoTemplate;
+    this.jwtTokenProvider = jwtTokenProvider;
+    this.tokenVersionRegistry = tokenVersionRegistry;
+    this.ttlMillis = ttlMillis;
+    this.familyTtlMillis = familyTtlMillis;
+    this.graceMillis = graceMillis;
+    this.reuseDetected = meterRegistry.counter("hms.auth.refresh.reuse");
+    this.graceReissued = meterRegistry.counter("hms.auth.refresh.grace");
+  }
+
+  public String issue(User user, String domainId) {
+    RefreshToken t = new RefreshToken();
+    t.setFamily(UUID.randomUUID().toString());
+    t.setUserId(user.getId());
+    t.setEmail(user.getEmail());
+    t.setName(user.getName());
+    t.setRole(user.getRole());
+    t.setDomainId(domainId);
+    t.setFamilyExpiresAt(Instant.now().plusMillis(familyTtlMillis));
+    return store(t);
+  }
+
+  public LoginResponse refresh(String raw) {
+    String id = hash(raw);
+    Query current = new Query(Criteria.where("_id").is(id).and("rotatedAt").is(null).and("expiresAt").gt(Instant.now()));
+    RefreshToken t = mongoTemplate.findAndModify(current, new Update().set("rotatedAt", Instant.now()), RefreshToken.class);
+    if (t == null) t = graceReissue(id);
+    if (t == null) {
+      RefreshToken seen = mongoTemplate.findById(id, RefreshToken.class);
+      if (seen != null && seen.getRotatedAt() != null) {
+        reuseDetected.increment();
+        log.warn("Rotated refresh token presented again for user {}; revoking its session", seen.getUserId());
+        revokeFamily(seen.getFamily());
+      }
+      throw new RuntimeException("Invalid refresh token");
+    }
+    if (t.getVersion() < tokenVersionRegistry.current(t.getUserId())) {
+      revokeFamily(t.getFamily());
+      throw new RuntimeException("Invalid refresh token");
+    }
+    String next = store(t);
+    String access = jwtTokenProvider.generateToken(t.getEmail(), t.getRole(), t.getUserId(), t.getDomainId());
+    return new LoginResponse(access, t.getUserId(), t.getName(), t.getRole().name(), next);
+  }
+
+  // Another tab rotated this token moments ago; let this one late caller branch the family once.
+  private RefreshToken graceReissue(String id) {
+    if (graceMillis <= 0) return null;
+    Instant now = Instant.now();
+    Query justRotated = new Query(Criteria.where("_id").is(id).and("rotatedAt").gte(now.minusMillis(graceMillis)).and("graceUsedAt").is(null).and("expiresAt").gt(now));
+    RefreshToken t = mongoTemplate.findAndModify(justRotated, new Update().set("graceUsedAt", now), RefreshToken.class);
+    if (t != null) graceReissued.increment();
+    return t;
+  }
+
+  public void logout(String raw) {
+    RefreshToken t = mongoTemplate.findById(hash(raw), RefreshToken.class);
+    if (t != null) revokeFamily(t.getFamily());
+  }
+
+  public void revokeUser(String userId) {
+    mongoTemplate.remove(new Query(Criteria.where("userId").is(userId)), RefreshToken.class);
+  }
+
+  private void revokeFamily(String family) {
+    mongoTemplate.remove(new Query(Criteria.where("family").is(family)), RefreshToken.class);
+  }
+
+  // Reuses the session fields of t for a fresh token in the same family.
+  private String store(RefreshToken t) {
+    byte[] bytes = new byte[32];
+    random.nextBytes(bytes);
+    String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    t.setId(hash(raw));
+    t.setVersion(tokenVersionRegistry.current(t.getUserId()));
+    t.setRotatedAt(null);
+    t.setGraceUsedAt(null);
+    Instant expiresAt = Instant.now().plusMillis(ttlMillis);
+    // Tokens issued before the family cap existed carry none and keep the sliding expiry.
+    if (t.getFamilyExpiresAt() != null && t.getFamilyExpiresAt().isBefore(expiresAt)) expiresAt = t.getFamilyExpiresAt();
+    t.setExpiresAt(expiresAt);
+    mongoTemplate.insert(t);
+    return raw;
+  }
+
+  private static String hash(String raw) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8));
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
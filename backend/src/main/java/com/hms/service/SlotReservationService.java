@@ -0,0 +1,135 @@
+package com.hms.service;
+
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.ReservedInterval;
+import com.hms.model.SlotReservation;
+import org.bson.Document;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Database-arbitrated slot reservations. A reservation is a conditional {@code $push} onto the
+ * doctor's day document that only matches when no other interval overlaps, so the conflict check
+ * and the write are one atomic round trip. An interval that crosses midnight is recorded on every
+ * UTC day it touches: any two overlapping intervals then share a day document, and the conditional
+ * push on that document lets only one of them land. Day documents are seeded from ACCEPTED
+ * appointments the first time they are touched.
+ */
+@Service
+public class SlotReservationService {
+  private static final ZoneId UTC = ZoneId.of("UTC");
+
+  private final MongoTemplate mongoTemplate;
+
+  public SlotReservationService(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  public boolean reserve(String doctorId, String appointmentId, Instant start, Instant end) {
+    List<String> pushed = new ArrayList<>();
+    for (LocalDate day : days(start, end)) {
+      String id = ensureDay(doctorId, day);
+      Query free = new Query(Criteria.where("_id").is(id)
+          .and("intervals").not().elemMatch(Criteria.where("start").lt(end).and("end").gt(start).and("appointmentId").ne(appointmentId))
+          .and("intervals.appointmentId").ne(appointmentId));
+      Update push = new Update().push("intervals", new ReservedInterval(appointmentId, start, end));
+      if (mongoTemplate.updateFirst(free, push, SlotReservation.class).getModifiedCount() == 1) {
+        pushed.add(id);
+      } else if (!holds(id, appointmentId, start, end)) {
+        if (!pushed.isEmpty()) pull(Criteria.where("_id").in(pushed), appointmentId);
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public boolean isFree(String doctorId, Instant start, Instant end) {
+    for (LocalDate day : days(start, end)) {
+      Query overlapping = new Query(Criteria.where("_id").is(ensureDay(doctorId, day))
+          .and("intervals").elemMatch(Criteria.where("start").lt(end).and("end").gt(start)));
+      if (mongoTemplate.exists(overlapping, SlotReservation.class)) return false;
+    }
+    return true;
+  }
+
+  public void release(String doctorId, String appointmentId) {
+    pull(Criteria.where("doctorId").is(doctorId).and("intervals.appointmentId").is(appointmentId), appointmentId);
+  }
+
+  public void releaseAll(String doctorId, Collection<String> appointmentIds) {
+    Query q = new Query(Criteria.where("doctorId").is(doctorId).and("intervals.appointmentId").in(appointmentIds));
+    mongoTemplate.updateMulti(q, new Update().pull("intervals", new Document("appointmentId", new Document("$in", appointmentIds))), SlotReservation.class);
+  }
+
+  /**
+   * Moves the end of an existing reservation. Like the extend it backs, this is a doctor override
+   * and is not conflict-checked; if the new end crosses midnight the interval is added to the
+   * following day so reservations made there see it.
+   */
+  public void resize(String doctorId, String appointmentId, Instant start, Instant end) {
+    Query held = new Query(Criteria.where("doctorId").is(doctorId).and("intervals.appointmentId").is(appointmentId));
+    mongoTemplate.updateMulti(held, new Update().set("intervals.$.end", end), SlotReservation.class);
+    List<LocalDate> days = days(start, end);
+    for (LocalDate day : days) {
+      Query missing = new Query(Criteria.where("_id").is(ensureDay(doctorId, day)).and("intervals.appointmentId").ne(appointmentId));
+      mongoTemplate.updateFirst(missing, new Update().push("intervals", new ReservedInterval(appointmentId, start, end)), SlotReservation.class);
+    }
+    pull(Criteria.where("doctorId").is(doctorId).and("day").gt(days.get(days.size() - 1).toString()).and("intervals.appointmentId").is(appointmentId), appointmentId);
+  }
+
+  private void pull(Criteria which, String appointmentId) {
+    mongoTemplate.updateMulti(new Query(which), new Update().pull("intervals", new Document("appointmentId", appointmentId)), SlotReservation.class);
+  }
+
+  private boolean holds(String id, String appointmentId, Instant start, Instant end) {
+    Query q = new Query(Criteria.where("_id").is(id)
+        .and("intervals").elemMatch(Criteria.where("appointmentId").is(appointmentId).and("start").is(start).and("end").is(end)));
+    return mongoTemplate.exists(q, SlotReservation.class);
+  }
+
+  private String ensureDay(String doctorId, LocalDate day) {
+    String id = doctorId + ":" + day;
+    if (mongoTemplate.exists(new Query(Criteria.where("_id").is(id)), SlotReservation.class)) return id;
+    Instant dayStart = day.atStartOfDay(UTC).toInstant();
+    Instant dayEnd = dayStart.plusSeconds(24 * 3600L);
+    // Includes appointments from the previous day that run past midnight.
+    Query accepted = new Query(Criteria.where("doctorId").is(doctorId).and("status").is(AppointmentStatus.ACCEPTED)
+        .and("startTime").gte(dayStart.minusSeconds(24 * 3600L)).lt(dayEnd).and("endTime").gt(dayStart));
+    accepted.fields().include("startTime").include("endTime");
+    SlotReservation r = new SlotReservation();
+    r.setId(id);
+    r.setDoctorId(doctorId);
+    r.setDay(day.toString());
+    r.setCreatedAt(Instant.now());
+    for (Appointment a : mongoTemplate.find(accepted, Appointment.class)) {
+      r.getIntervals().add(new ReservedInterval(a.getId(), a.getStartTime(), a.getEndTime()));
+    }
+    try {
+      mongoTemplate.insert(r);
+    } catch (DuplicateKeyException ignored) {
+      // seeded concurrently by another request
+    }
+    return id;
+  }
+
+  /** UTC days touched by [start, end); an interval ending exactly at midnight stays on its day. */
+  static List<LocalDate> days(Instant start, Instant end) {
+    LocalDate first = LocalDate.ofInstant(start, UTC);
+    LocalDate last = end.isAfter(start) ? LocalDate.ofInstant(end.minusNanos(1), UTC) : first;
+    List<LocalDate> out = new ArrayList<>();
+    for (LocalDate d = first; !d.isAfter(last); d = d.plusDays(1)) out.add(d);
+    return out;
+  }
+}
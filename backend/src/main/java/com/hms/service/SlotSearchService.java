@@ -0,0 +1,102 @@
+package com.hms.service;
+
+import com.hms.dto.DoctorDto;
+import com.hms.dto.SlotSuggestion;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the earliest free slots across every doctor of a specialization. Each doctor contributes a
+ * lazy, time-ordered slot stream; a k-way merge pops the global minimum until K slots are found,
+ * so only the days needed to produce those K slots are ever computed.
+ */
+@Service
+public class SlotSearchService {
+  public static final int MAX_RESULTS = 50;
+
+  private final DoctorDirectory doctorDirectory;
+  private final SlotService slotService;
+  private final OccupancyIndex occupancyIndex;
+  private final FanOut fanOut;
+
+  public SlotSearchService(DoctorDirectory doctorDirectory, SlotService slotService, OccupancyIndex occupancyIndex, FanOut fanOut) {
+    this.doctorDirectory = doctorDirectory;
+    this.slotService = slotService;
+    this.occupancyIndex = occupancyIndex;
+    this.fanOut = fanOut;
+  }
+
+  public List<SlotSuggestion> earliest(String specialization, Integer minExperienceYears, Instant from, Instant to, int limit) {
+    Instant now = Instant.now();
+    Instant start = from == null || from.isBefore(now) ? now : from;
+    Instant end = to != null ? to : start.plus(Duration.ofDays(14));
+    if (!end.isAfter(start) || Duration.between(start, end).toDays() >= SlotService.MAX_RANGE_DAYS) throw new RuntimeException("Invalid range");
+    int k = Math.max(1, Math.min(limit, MAX_RESULTS));
+
+    List<DoctorDto> candidates = new ArrayList<>();
+    for (DoctorDto d : doctorDirectory.snapshot().bySpecialization(specialization)) {
+      if (minExperienceYears == null || (d.getExperienceYears() != null && d.getExperienceYears() >= minExperienceYears)) candidates.add(d);
+    }
+    prefetchFirstDay(candidates, start);
+
+    PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing((Head h) -> h.slot).thenComparing(h -> h.doctor.getId()));
+    for (DoctorDto d : candidates) {
+      Iterator<Instant> slots = slotService.slotIterator(d, start, end);
+      if (slots.hasNext()) heads.add(new Head(d, slots.next(), slots));
+    }
+
+    List<SlotSuggestion> out = new ArrayList<>(k);
+    while (out.size() < k && !heads.isEmpty()) {
+      Head h = heads.poll();
+      out.add(toSuggestion(h.doctor, h.slot));
+      if (h.rest.hasNext()) heads.add(new Head(h.doctor, h.rest.next(), h.rest));
+    }
+    return out;
+  }
+
+  // Warm every candidate's first day concurrently; the merge then mostly reads from the index.
+  private void prefetchFirstDay(List<DoctorDto> candidates, Instant start) {
+    if (candidates.size() < 2) return;
+    LocalDate day = LocalDate.ofInstant(start, ZoneId.of("UTC"));
+    try (FanOut.Scope scope = fanOut.scope()) {
+      for (DoctorDto d : candidates) {
+        boolean works = d.getWorkingHours() != null && d.getWorkingHours().stream().anyMatch(w -> w.getDay() == day.getDayOfWeek());
+        if (works) scope.fork(() -> occupancyIndex.day(d.getId(), day));
+      }
+      scope.join();
+    }
+  }
+
+  private static SlotSuggestion toSuggestion(DoctorDto d, Instant slot) {
+    int duration = d.getSlotDuration() != null ? d.getSlotDuration() : 30;
+    SlotSuggestion s = new SlotSuggestion();
+    s.setDoctorId(d.getId());
+    s.setDoctorName(d.getName());
+    s.setSpecialization(d.getSpecialization());
+    s.setExperienceYears(d.getExperienceYears());
+    s.setStartTime(slot);
+    s.setEndTime(slot.plusSeconds(duration * 60L));
+    return s;
+  }
+
+  private static final class Head {
+    private final DoctorDto doctor;
+    private final Instant slot;
+    private final Iterator<Instant> rest;
+
+    private Head(DoctorDto doctor, Instant slot, Iterator<Instant> rest) {
+      this.doctor = doctor;
+      this.slot = slot;
+      this.rest = rest;
+    }
+  }
+}
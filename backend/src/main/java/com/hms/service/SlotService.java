@@ -1,56 +1,124 @@
 package com.hms.service;
 
-import com.hms.model.Appointment;
-import com.hms.model.AppointmentStatus;
-import com.hms.model.Doctor;
+import com.hms.dto.DoctorDto;
 import com.hms.model.WorkingHoursEntry;
-import com.hms.repository.AppointmentRepository;
-import com.hms.repository.DoctorRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 
 import java.time.*;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 @Service
 public class SlotService {
-  private final DoctorRepository doctorRepository;
-  private final AppointmentRepository appointmentRepository;
+  public static final int MAX_RANGE_DAYS = 31;
 
-  public SlotService(DoctorRepository doctorRepository, AppointmentRepository appointmentRepository) {
-    this.doctorRepository = doctorRepository;
-    this.appointmentRepository = appointmentRepository;
+  private final DoctorDirectory doctorDirectory;
+  private final OccupancyIndex occupancyIndex;
+  private final Counter candidatesChecked;
+  private final Counter slotsComputed;
+
+  public SlotService(DoctorDirectory doctorDirectory, OccupancyIndex occupancyIndex, MeterRegistry meterRegistry) {
+    this.doctorDirectory = doctorDirectory;
+    this.occupancyIndex = occupancyIndex;
+    this.candidatesChecked = meterRegistry.counter("hms.slots.candidates");
+    this.slotsComputed = meterRegistry.counter("hms.slots.computed");
   }
 
   public List<Instant> getAvailableSlots(String doctorId, LocalDate date) {
-    Doctor doctor = doctorRepository.findById(doctorId).orElseThrow();
-    int duration = doctor.getSlotDuration() != null ? doctor.getSlotDuration() : 30;
+    return getAvailableSlots(doctorId, date, date);
+  }
+
+  public List<Instant> getAvailableSlots(String doctorId, LocalDate from, LocalDate to) {
+    if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) throw new RuntimeException("Invalid range");
+    DoctorDto doctor = doctorDirectory.require(doctorId);
+    if (doctor.getWorkingHours() == null || doctor.getWorkingHours().isEmpty()) return List.of();
+    Map<LocalDate, OccupancyIndex.DayOccupancy> days = occupancyIndex.range(doctorId, from, to);
+    List<Instant> allSlots = new ArrayList<>();
+    for (Map.Entry<LocalDate, OccupancyIndex.DayOccupancy> day : days.entrySet()) {
+      allSlots.addAll(slotsForDay(doctor, day.getKey(), day.getValue()));
+    }
+    return allSlots;
+  }
+
+  /**
+   * Lazily walks the doctor's free slots starting in [from, to), one day at a time, so callers
+   * that only need the first few slots never load later days.
+   */
+  public Iterator<Instant> slotIterator(DoctorDto doctor, Instant from, Instant to) {
     ZoneId zone = ZoneId.of("UTC");
-    List<WorkingHoursEntry> windows = doctor.getWorkingHours() == null ? List.of() : doctor.getWorkingHours().stream().filter(w -> w.getDay() == date.getDayOfWeek()).toList();
+    LocalDate last = LocalDate.ofInstant(to, zone);
+    return new Iterator<>() {
+      private LocalDate date = LocalDate.ofInstant(from, zone);
+      private Iterator<Instant> current = Collections.emptyIterator();
+      private Instant next = advance();
+
+      private Instant advance() {
+        while (true) {
+          while (current.hasNext()) {
+            Instant s = current.next();
+            if (!s.isBefore(to)) return null;
+            if (!s.isBefore(from)) return s;
+          }
+          if (date.isAfter(last)) return null;
+          LocalDate d = date;
+          date = date.plusDays(1);
+          if (!windowsFor(doctor, d).isEmpty()) current = slotsForDay(doctor, d, occupancyIndex.day(doctor.getId(), d)).iterator();
+        }
+      }
+
+      @Override
+      public boolean hasNext() { return next != null; }
+
+      @Override
+      public Instant next() {
+        if (next == null) throw new NoSuchElementException();
+        Instant out = next;
+        next = advance();
+        return out;
+      }
+    };
+  }
+
+  List<Instant> slotsForDay(DoctorDto doctor, LocalDate date, OccupancyIndex.DayOccupancy occupancy) {
+    int duration = doctor.getSlotDuration() != null ? doctor.getSlotDuration() : 30;
+    List<WorkingHoursEntry> windows = windowsFor(doctor, date);
     if (windows.isEmpty()) return List.of();
-    List<Instant> allSlots = new ArrayList<>();
+    List<Instant> slots = new ArrayList<>();
+    long step = duration * 60L;
+    int candidates = 0;
     for (WorkingHoursEntry win : windows) {
       LocalTime start = win.getStartTime();
       LocalTime end = win.getEndTime();
       if (start == null || end == null || !start.isBefore(end)) continue;
-      Instant winStart = date.atTime(start).atZone(zone).toInstant();
-      Instant winEnd = date.atTime(end).atZone(zone).toInstant();
-      List<Appointment> occupied = appointmentRepository.findByDoctorIdAndStatusInAndStartTimeBetween(doctorId, List.of(AppointmentStatus.ACCEPTED), winStart, winEnd);
-      Instant cursor = winStart;
-      while (!cursor.isAfter(winEnd.minusSeconds(duration * 60L))) {
-        Instant slotEnd = cursor.plusSeconds(duration * 60L);
-        boolean conflict = false;
-        for (Appointment a : occupied) {
-          if (overlaps(cursor, slotEnd, a.getStartTime(), a.getEndTime())) { conflict = true; break; }
-        }
-        if (!conflict) allSlots.add(cursor);
-        cursor = cursor.plusSeconds(duration * 60L);
+      long winEnd = end.toSecondOfDay();
+      for (long cursor = start.toSecondOfDay(); cursor + step <= winEnd; cursor += step) {
+        candidates++;
+        int fromMinute = (int) (cursor / 60);
+        int toMinute = (int) -Math.floorDiv(-(cursor + step), 60);
+        if (occupancy.isFree(fromMinute, toMinute)) slots.add(occupancy.getDayStart().plusSeconds(cursor));
       }
     }
-    allSlots.sort(java.util.Comparator.naturalOrder());
-    return allSlots;
+    slots.sort(java.util.Comparator.naturalOrder());
+    candidatesChecked.increment(candidates);
+    slotsComputed.increment(slots.size());
+    return slots;
+  }
+
+  public static boolean withinWorkingHours(List<WorkingHoursEntry> workingHours, Instant start, Instant end) {
+    ZoneId zone = ZoneId.of("UTC");
+    LocalDate date = LocalDate.ofInstant(start, zone);
+    return workingHours != null && workingHours.stream().anyMatch(w -> w.getDay() == date.getDayOfWeek() && !start.isBefore(date.atTime(w.getStartTime()).atZone(zone).toInstant()) && !end.isAfter(date.atTime(w.getEndTime()).atZone(zone).toInstant()));
+  }
+
+  private static List<WorkingHoursEntry> windowsFor(DoctorDto doctor, LocalDate date) {
+    return doctor.getWorkingHours() == null ? List.of() : doctor.getWorkingHours().stream().filter(w -> w.getDay() == date.getDayOfWeek()).toList();
   }
 
   public boolean overlaps(Instant s1, Instant e1, Instant s2, Instant e2) {
@@ -58,15 +126,7 @@ public class SlotService {
   }
 
   public Instant findNextAvailableSlot(String doctorId, Instant after, int durationMinutes) {
-    Doctor doctor = doctorRepository.findById(doctorId).orElseThrow();
-    ZoneId zone = ZoneId.of("UTC");
-    LocalDate date = LocalDate.ofInstant(after, zone);
-    for (int i = 0; i < 7; i++) {
-      LocalDate d = date.plusDays(i);
-      List<Instant> slots = getAvailableSlots(doctorId, d);
-      Optional<Instant> next = slots.stream().filter(s -> !s.isBefore(after)).findFirst();
-      if (next.isPresent()) return next.get();
-    }
-    return null;
+    LocalDate date = LocalDate.ofInstant(after, ZoneId.of("UTC"));
+    return getAvailableSlots(doctorId, date, date.plusDays(6)).stream().filter(s -> !s.isBefore(after)).findFirst().orElse(null);
   }
 }
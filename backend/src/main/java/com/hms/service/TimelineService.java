@@ -0,0 +1,361 @@
+package com.hms.service;
+
+import com.hms.dto.AppointmentHistoryItem;
+import com.hms.dto.CursorPage;
+import com.hms.dto.DoctorDto;
+import com.hms.dto.PrescriptionWithDoctorDto;
+import com.hms.dto.TimelineRebuildReport;
+import com.hms.model.Appointment;
+import com.hms.model.Prescription;
+import com.hms.model.TimelineDirty;
+import com.hms.model.TimelineEntry;
+import com.hms.model.TimelinePrescription;
+import com.hms.repository.KeysetQueries;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Maintains patient_timeline, the read model behind the patient's history and prescription
+ * lists. AppointmentService and PrescriptionService update entries on every write; rebuild()
+ * backfills them from appointments and prescriptions in batches. Until the timeline covers every
+ * appointment, {@link #isReady()} is false and the endpoints keep reading the source collections.
+ * A failed update marks the patients it touched dirty (timeline_dirty, mirrored in memory so the
+ * check costs no query); {@link #isReady(String)} is false for them until repairDirty() rebuilds
+ * their entries.
+ */
+@Service
+public class TimelineService {
+  private static final Logger log = LoggerFactory.getLogger(TimelineService.class);
+  private static final String PATIENT = "patient:";
+  private static final String DOCTOR = "doctor:";
+  private static final int DUPLICATE_KEY = 11000;
+
+  private final MongoTemplate mongoTemplate;
+  private final DoctorDirectory doctorDirectory;
+  private final KeysetQueries keysetQueries;
+  private final Counter failures;
+  private final int batchSize;
+  private final boolean backfillOnStartup;
+  private volatile boolean ready;
+  private final Map<String, Instant> dirty = new ConcurrentHashMap<>();
+
+  public TimelineService(MongoTemplate mongoTemplate, DoctorDirectory doctorDirectory, KeysetQueries keysetQueries, MeterRegistry meterRegistry,
+                         @Value("${hms.timeline.batch-size:500}") int batchSize, @Value("${hms.timeline.backfill-on-startup:true}") boolean backfillOnStartup) {
+    this.mongoTemplate = mongoTemplate;
+    this.doctorDirectory = doctorDirectory;
+    this.keysetQueries = keysetQueries;
+    this.failures = meterRegistry.counter("hms.timeline.failures");
+    meterRegistry.gauge("hms.timeline.dirty", dirty, Map::size);
+    this.batchSize = batchSize;
+    this.backfillOnStartup = backfillOnStartup;
+  }
+
+  public boolean isReady() { return ready; }
+
+  // A dirty doctor leaves stale names on entries of patients we can't list without a query.
+  public boolean isReady(String patientId) {
+    if (!ready) return false;
+    if (dirty.isEmpty()) return true;
+    return !dirty.containsKey(PATIENT + patientId) && dirty.keySet().stream().noneMatch(k -> k.startsWith(DOCTOR));
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void checkCoverage() {
+    try {
+      if (mongoTemplate.estimatedCount(TimelineEntry.class) >= mongoTemplate.estimatedCount(Appointment.class)) {
+        ready = true;
+      } else if (backfillOnStartup) {
+        Thread t = new Thread(() -> {
+          try {
+            rebuild(null);
+          } catch (RuntimeException e) {
+            log.warn("Timeline backfill failed; history is served from source collections until POST /admin/timelines/rebuild", e);
+          }
+        }, "timeline-backfill");
+        t.setDaemon(true);
+        t.start();
+      }
+    } catch (RuntimeException e) {
+      log.warn("Timeline coverage check failed: {}", e.getMessage());
+    }
+  }
+
+  public void onAppointment(Appointment a) {
+    try {
+      mongoTemplate.upsert(new Query(Criteria.where("_id").is(a.getId())), fieldsOf(a), TimelineEntry.class);
+    } catch (RuntimeException e) {
+      failed(a.getId(), List.of(PATIENT + a.getPatientId()), e);
+    }
+  }
+
+  public void onAppointments(List<Appointment> appointments) {
+    if (appointments.isEmpty()) return;
+    try {
+      BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TimelineEntry.class);
+      for (Appointment a : appointments) ops.upsert(new Query(Criteria.where("_id").is(a.getId())), fieldsOf(a));
+      ops.execute();
+    } catch (RuntimeException e) {
+      failed(appointments.size() + " appointments", appointments.stream().map(a -> PATIENT + a.getPatientId()).distinct().toList(), e);
+    }
+  }
+
+  public void onPrescription(Appointment a, Prescription p) {
+    try {
+      Update push = new Update().push("prescriptions", TimelinePrescription.of(p)).inc("prescriptionCount", 1).set("updatedAt", Instant.now());
+      Query entry = new Query(Criteria.where("_id").is(a.getId()));
+      if (mongoTemplate.updateFirst(entry, push, TimelineEntry.class).getMatchedCount() == 0) {
+        mongoTemplate.upsert(entry, fieldsOf(a), TimelineEntry.class);
+        mongoTemplate.updateFirst(entry, push, TimelineEntry.class);
+      }
+    } catch (RuntimeException e) {
+      failed(a.getId(), List.of(PATIENT + a.getPatientId()), e);
+    }
+  }
+
+  public void onDoctorChanged(DoctorDto doctor) {
+    try {
+      applyDoctor(doctor);
+    } catch (RuntimeException e) {
+      failed("doctor " + doctor.getId(), List.of(DOCTOR + doctor.getId()), e);
+    }
+  }
+
+  public void removePatient(String patientId) {
+    mongoTemplate.remove(new Query(Criteria.where("patientId").is(patientId)), TimelineEntry.class);
+    mongoTemplate.remove(new Query(Criteria.where("_id").is(PATIENT + patientId)), TimelineDirty.class);
+    dirty.remove(PATIENT + patientId);
+  }
+
+  /**
+   * Rebuilds every dirty patient and re-applies every dirty doctor, including those marked by
+   * other instances. A scope marked again while its repair runs keeps its newer mark and is
+   * repaired on the next pass.
+   */
+  @Scheduled(fixedDelayString = "${hms.timeline.repair-ms:30000}")
+  public void repairDirty() {
+    try {
+      for (TimelineDirty d : mongoTemplate.findAll(TimelineDirty.class)) dirty.merge(d.getId(), d.getMarkedAt(), (a, b) -> a.isAfter(b) ? a : b);
+    } catch (RuntimeException e) {
+      log.warn("Timeline repair could not read timeline_dirty: {}", e.getMessage());
+    }
+    for (Map.Entry<String, Instant> d : List.copyOf(dirty.entrySet())) {
+      try {
+        if (d.getKey().startsWith(PATIENT)) {
+          rebuild(d.getKey().substring(PATIENT.length()));
+        } else {
+          DoctorDto doctor = doctorDirectory.get(d.getKey().substring(DOCTOR.length()));
+          if (doctor != null) applyDoctor(doctor);
+        }
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(d.getKey()).and("markedAt").lte(d.getValue())), TimelineDirty.class);
+        dirty.remove(d.getKey(), d.getValue());
+      } catch (RuntimeException e) {
+        log.warn("Timeline repair failed for {}: {}", d.getKey(), e.getMessage());
+      }
+    }
+  }
+
+  void markPatientsDirty(Collection<String> patientIds) {
+    markDirty(patientIds.stream().map(id -> PATIENT + id).toList());
+  }
+
+  public CursorPage<TimelineEntry> history(String patientId, String cursor, Integer limit) {
+    return keysetQueries.byStartTime(TimelineEntry.class, historyFilter(patientId), cursor, limit, TimelineEntry::getStartTime, TimelineEntry::getId);
+  }
+
+  public Stream<TimelineEntry> streamHistory(String patientId) {
+    return keysetQueries.stream(TimelineEntry.class, historyFilter(patientId), KeysetQueries.START_TIME_ORDER);
+  }
+
+  // Pages count visits, so a visit with several prescriptions contributes all of them to its page.
+  public CursorPage<TimelineEntry> prescribedVisits(String patientId, String cursor, Integer limit) {
+    return keysetQueries.byStartTime(TimelineEntry.class, prescribedFilter(patientId), cursor, limit, TimelineEntry::getStartTime, TimelineEntry::getId);
+  }
+
+  public Stream<TimelineEntry> streamPrescribedVisits(String patientId) {
+    return keysetQueries.stream(TimelineEntry.class, prescribedFilter(patientId), KeysetQueries.START_TIME_ORDER);
+  }
+
+  /**
+   * Re-derives entries from appointments and prescriptions, for every patient or just one, one
+   * batch of appointments at a time in _id order. An entry is only replaced if no live update
+   * touched it since its batch was read; the patients of skipped entries are marked dirty, and a
+   * full rebuild repairs them before it declares the timeline ready.
+   */
+  public TimelineRebuildReport rebuild(String patientId) {
+    long started = System.currentTimeMillis();
+    long entries = 0, prescriptions = 0, batches = 0;
+    Set<String> raced = new HashSet<>();
+    String after = null;
+    while (true) {
+      Criteria c = patientId != null ? Criteria.where("patientId").is(patientId) : new Criteria();
+      if (after != null) c = new Criteria().andOperator(c, Criteria.where("_id").gt(after));
+      Instant readAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+      List<Appointment> batch = mongoTemplate.find(new Query(c).with(Sort.by("_id")).limit(batchSize), Appointment.class);
+      if (batch.isEmpty()) break;
+      List<String> ids = batch.stream().map(Appointment::getId).toList();
+      Map<String, List<TimelinePrescription>> byAppointment = new HashMap<>();
+      for (Prescription p : mongoTemplate.find(new Query(Criteria.where("appointmentId").in(ids)).with(Sort.by("_id")), Prescription.class)) {
+        byAppointment.computeIfAbsent(p.getAppointmentId(), k -> new ArrayList<>()).add(TimelinePrescription.of(p));
+        prescriptions++;
+      }
+      BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TimelineEntry.class);
+      for (Appointment a : batch) {
+        ops.replaceOne(untouchedSince(a.getId(), readAt), entryOf(a, byAppointment.getOrDefault(a.getId(), List.of())), FindAndReplaceOptions.options().upsert());
+      }
+      try {
+        ops.execute();
+      } catch (BulkOperationException e) {
+        for (BulkWriteError error : e.getErrors()) {
+          if (error.getCode() != DUPLICATE_KEY) throw e;
+          raced.add(batch.get(error.getIndex()).getPatientId());
+        }
+      }
+      entries += batch.size();
+      batches++;
+      after = batch.get(batch.size() - 1).getId();
+    }
+    if (!raced.isEmpty()) {
+      log.info("Timeline rebuild skipped entries of {} patients updated meanwhile; repairing", raced.size());
+      markPatientsDirty(raced);
+    }
+    if (patientId == null) {
+      if (!raced.isEmpty()) repairDirty();
+      ready = true;
+    }
+    TimelineRebuildReport report = new TimelineRebuildReport(entries, prescriptions, batches, System.currentTimeMillis() - started);
+    log.info("Timeline rebuilt{}: {} entries, {} prescriptions in {} ms", patientId != null ? " for patient " + patientId : "", entries, prescriptions, report.getElapsedMillis());
+    return report;
+  }
+
+  public static List<AppointmentHistoryItem> historyItems(List<TimelineEntry> entries) {
+    return entries.stream().map(e -> {
+      AppointmentHistoryItem dto = new AppointmentHistoryItem();
+      dto.setId(e.getId());
+      dto.setStartTime(e.getStartTime());
+      dto.setEndTime(e.getEndTime());
+      dto.setStatus(e.getStatus());
+      dto.setReason(e.getReason());
+      dto.setDoctorName(e.getDoctorName());
+      return dto;
+    }).toList();
+  }
+
+  public static List<PrescriptionWithDoctorDto> prescriptions(List<TimelineEntry> entries) {
+    List<PrescriptionWithDoctorDto> out = new ArrayList<>();
+    for (TimelineEntry e : entries) {
+      for (TimelinePrescription p : e.getPrescriptions()) {
+        PrescriptionWithDoctorDto dto = new PrescriptionWithDoctorDto();
+        dto.setId(p.getId());
+        dto.setAppointmentId(e.getId());
+        dto.setPatientId(e.getPatientId());
+        dto.setMedications(p.getMedications());
+        dto.setNotes(p.getNotes());
+        dto.setCreatedAt(p.getCreatedAt());
+        dto.setDoctorName(e.getDoctorName());
+        dto.setDoctorSpecialization(e.getDoctorSpecialization());
+        out.add(dto);
+      }
+    }
+    return out;
+  }
+
+  private static Criteria historyFilter(String patientId) {
+    return Criteria.where("patientId").is(patientId).and("endTime").lt(Instant.now());
+  }
+
+  private static Criteria prescribedFilter(String patientId) {
+    return Criteria.where("patientId").is(patientId).and("prescriptionCount").gt(0);
+  }
+
+  // Live updates stamp updatedAt; an entry stamped after the rebuild read its source is newer than
+  // what the rebuild would write. The upsert then collides with it on _id instead of replacing it.
+  private static Query untouchedSince(String id, Instant readAt) {
+    return new Query(Criteria.where("_id").is(id).orOperator(Criteria.where("updatedAt").lt(readAt), Criteria.where("updatedAt").exists(false)));
+  }
+
+  private void applyDoctor(DoctorDto doctor) {
+    Update update = new Update().set("doctorSpecialization", doctor.getSpecialization());
+    if (doctor.getName() != null) update.set("doctorName", doctor.getName());
+    mongoTemplate.updateMulti(new Query(Criteria.where("doctorId").is(doctor.getId())), update, TimelineEntry.class);
+  }
+
+  private Update fieldsOf(Appointment a) {
+    DoctorDto d = doctorDirectory.get(a.getDoctorId());
+    return new Update()
+        .set("patientId", a.getPatientId())
+        .set("doctorId", a.getDoctorId())
+        .set("doctorName", d != null ? d.getName() : null)
+        .set("doctorSpecialization", d != null ? d.getSpecialization() : null)
+        .set("startTime", a.getStartTime())
+        .set("endTime", a.getEndTime())
+        .set("status", a.getStatus())
+        .set("reason", a.getReason())
+        .set("updatedAt", Instant.now());
+  }
+
+  private TimelineEntry entryOf(Appointment a, List<TimelinePrescription> prescriptions) {
+    DoctorDto d = doctorDirectory.get(a.getDoctorId());
+    TimelineEntry e = new TimelineEntry();
+    e.setId(a.getId());
+    e.setPatientId(a.getPatientId());
+    e.setDoctorId(a.getDoctorId());
+    e.setDoctorName(d != null ? d.getName() : null);
+    e.setDoctorSpecialization(d != null ? d.getSpecialization() : null);
+    e.setStartTime(a.getStartTime());
+    e.setEndTime(a.getEndTime());
+    e.setStatus(a.getStatus());
+    e.setReason(a.getReason());
+    e.setPrescriptions(new ArrayList<>(prescriptions));
+    e.setPrescriptionCount(prescriptions.size());
+    e.setUpdatedAt(Instant.now());
+    return e;
+  }
+
+  // The source write has already landed; the affected patients read it from there until repaired.
+  private void failed(String what, List<String> scopes, RuntimeException e) {
+    failures.increment();
+    log.warn("Timeline update failed for {}: {}", what, e.getMessage());
+    markDirty(scopes);
+  }
+
+  // The in-memory mark is what reads check; the stored one survives restarts and reaches other instances.
+  private void markDirty(List<String> scopes) {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    for (String scope : scopes) {
+      dirty.put(scope, now);
+      try {
+        mongoTemplate.save(new TimelineDirty(scope, now));
+      } catch (RuntimeException e) {
+        log.warn("Could not record dirty timeline scope {}: {}", scope, e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package com.hms;
+
+import com.hms.config.JwtTokenProvider;
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.Doctor;
+import com.hms.model.Patient;
+import com.hms.model.Role;
+import com.hms.model.User;
+import com.hms.model.WorkingHoursEntry;
+import com.hms.service.DoctorDirectory;
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.net.InetSocketAddress;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Boots the whole application once per test JVM against an in-process Mongo wire server
+ * (mongo-java-server), shared by every subclass. Tests create their own users and doctors with
+ * fresh ids, so they do not depend on each other's data.
+ */
+@SpringBootTest(properties = {
+    "logging.level.de.bwaldvogel=WARN",
+    "logging.level.org.mongodb.driver=WARN",
+    "spring.data.mongodb.database=hms-test",
+    "hms.indexes.ensure-on-startup=false"
+})
+@AutoConfigureMockMvc
+public abstract class IntegrationTest {
+  private static final MongoServer MONGO = new MongoServer(new MemoryBackend());
+  private static final InetSocketAddress MONGO_ADDRESS = MONGO.bind();
+
+  @Autowired
+  protected MongoTemplate mongoTemplate;
+  @Autowired
+  protected MockMvc mockMvc;
+  @Autowired
+  protected JwtTokenProvider jwtTokenProvider;
+  @Autowired
+  protected DoctorDirectory doctorDirectory;
+
+  @DynamicPropertySource
+  static void mongo(DynamicPropertyRegistry registry) {
+    registry.add("MONGO_URI", () -> "mongodb://" + MONGO_ADDRESS.getHostString() + ":" + MONGO_ADDRESS.getPort());
+    registry.add("JWT_SECRET", () -> "integration-test-secret-integration-test-secret");
+  }
+
+  protected User user(Role role, String name) {
+    User u = new User();
+    u.setName(name);
+    u.setEmail(UUID.randomUUID() + "@test.local");
+    u.setPasswordHash("x");
+    u.setRole(role);
+    u.setCreatedAt(Instant.now());
+    u.setUpdatedAt(Instant.now());
+    return mongoTemplate.insert(u);
+  }
+
+  /** A doctor working 00:00-23:59 every day with the given slot length, registered in the directory. */
+  protected Doctor doctor(int slotMinutes) {
+    Doctor d = unlistedDoctor(slotMinutes);
+    doctorDirectory.upsert(d, mongoTemplate.findById(d.getUserId(), User.class));
+    return d;
+  }
+
+  /** Like {@link #doctor(int)}, but written straight to Mongo, as another node would. */
+  protected Doctor unlistedDoctor(int slotMinutes) {
+    User u = user(Role.DOCTOR, "Dr " + UUID.randomUUID().toString().substring(0, 8));
+    Doctor d = new Doctor();
+    d.setUserId(u.getId());
+    d.setSpecialization("Cardiology");
+    d.setExperienceYears(10);
+    d.setSlotDuration(slotMinutes);
+    List<WorkingHoursEntry> hours = new ArrayList<>();
+    for (DayOfWeek day : DayOfWeek.values()) {
+      WorkingHoursEntry w = new WorkingHoursEntry();
+      w.setDay(day);
+      w.setStartTime(LocalTime.MIN);
+      w.setEndTime(LocalTime.of(23, 59));
+      hours.add(w);
+    }
+    d.setWorkingHours(hours);
+    return mongoTemplate.insert(d);
+  }
+
+  protected Patient patient() {
+    User u = user(Role.PATIENT, "Patient " + UUID.randomUUID().toString().substring(0, 8));
+    Patient p = new Patient();
+    p.setUserId(u.getId());
+    p.setAge(40);
+    p.setGender("F");
+    return mongoTemplate.insert(p);
+  }
+
+  protected Appointment appointment(Doctor doctor, Patient patient, Instant start, int minutes, AppointmentStatus status) {
+    Appointment a = new Appointment();
+    a.setDoctorId(doctor.getId());
+    a.setPatientId(patient.getId());
+    a.setStartTime(start);
+    a.setEndTime(start.plusSeconds(minutes * 60L));
+    a.setStatus(status);
+    a.setReason("Checkup");
+    a.setCreatedAt(Instant.now());
+    a.setUpdatedAt(Instant.now());
+    return mongoTemplate.insert(a);
+  }
+
+  protected String bearer(Doctor doctor) {
+    return "Bearer " + jwtTokenProvider.generateToken(mongoTemplate.findById(doctor.getUserId(), User.class), doctor.getId());
+  }
+
+  protected String bearer(Patient patient) {
+    return "Bearer " + jwtTokenProvider.generateToken(mongoTemplate.findById(patient.getUserId(), User.class), patient.getId());
+  }
+
+  /** Midnight UTC {@code days} from today; far enough ahead that nothing else has booked it. */
+  protected static Instant day(int days) {
+    return LocalDate.now(ZoneOffset.UTC).plusDays(days).atStartOfDay(ZoneOffset.UTC).toInstant();
+  }
+}
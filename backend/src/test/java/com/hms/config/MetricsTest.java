@@ -0,0 +1,65 @@
+package com.hms.config;
+
+import com.hms.IntegrationTest;
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.Doctor;
+import com.hms.model.Patient;
+import com.hms.model.Role;
+import com.hms.service.SlotReservationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureObservability
+class MetricsTest extends IntegrationTest {
+  @Autowired
+  private MeterRegistry meterRegistry;
+  @Autowired
+  private SlotReservationService slotReservationService;
+
+  @Test
+  void prometheusIsOpenToAllowListedAddressesOnly() throws Exception {
+    mockMvc.perform(scrape("127.0.0.1")).andExpect(status().isOk());
+    mockMvc.perform(scrape("10.1.2.3")).andExpect(status().isUnauthorized());
+    mockMvc.perform(scrape("10.1.2.3").header(HttpHeaders.AUTHORIZATION, bearer(patient()))).andExpect(status().isForbidden());
+    String admin = "Bearer " + jwtTokenProvider.generateToken(user(Role.ADMIN, "Admin"), null);
+    mockMvc.perform(scrape("10.1.2.3").header(HttpHeaders.AUTHORIZATION, admin)).andExpect(status().isOk());
+  }
+
+  @Test
+  void lostBookingIsRecordedAsAConflict() throws Exception {
+    Doctor doctor = doctor(30);
+    Patient patient = patient();
+    Appointment taken = appointment(doctor, patient, day(60).plusSeconds(9 * 3600), 30, AppointmentStatus.ACCEPTED);
+    assertThat(slotReservationService.reserve(doctor.getId(), taken.getId(), taken.getStartTime(), taken.getEndTime())).isTrue();
+    double before = conflicts();
+
+    mockMvc.perform(post("/patient/appointments").header(HttpHeaders.AUTHORIZATION, bearer(patient())).contentType(MediaType.APPLICATION_JSON)
+            .content("{\"doctorId\":\"" + doctor.getId() + "\",\"slotStartTime\":\"" + taken.getStartTime() + "\",\"reason\":\"Checkup\"}"))
+        .andExpect(status().isConflict());
+
+    assertThat(conflicts() - before).isEqualTo(1.0);
+  }
+
+  private static MockHttpServletRequestBuilder scrape(String remoteAddress) {
+    return get("/actuator/prometheus").with(request -> {
+      request.setRemoteAddr(remoteAddress);
+      return request;
+    });
+  }
+
+  private double conflicts() {
+    var timer = meterRegistry.find("hms.appointments").tags("operation", "book", "outcome", "conflict").timer();
+    return timer == null ? 0 : timer.count();
+  }
+}
@@ -0,0 +1,117 @@
+package com.hms.config;
+
+import com.hms.repository.AppointmentRepository;
+import com.hms.repository.DoctorRepository;
+import com.hms.repository.PatientRepository;
+import com.hms.repository.PrescriptionRepository;
+import com.hms.repository.UserRepository;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Every known query shape must be served by a declared index. The static checks apply the
+ * planner's rules to the declared index keys and always run: an index is only eligible when its
+ * first key is predicated (otherwise COLLSCAN), and a sorted shape needs an index whose keys after
+ * the equality fields are the sort keys (otherwise an in-memory SORT). With HMS_TEST_MONGO_URI
+ * (or -Dhms.test.mongo-uri) pointing at a real mongod, the shapes are also explained there.
+ */
+class MongoIndexManagerTest {
+  private static final MongoMappingContext MAPPING = new MongoMappingContext();
+  private static final Map<Class<?>, String> REPOSITORIES = Map.of(
+      AppointmentRepository.class, "appointments",
+      DoctorRepository.class, "doctors",
+      PatientRepository.class, "patients",
+      PrescriptionRepository.class, "prescriptions",
+      UserRepository.class, "users");
+
+  static {
+    MAPPING.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+  }
+
+  static Stream<Arguments> shapes() {
+    return MongoIndexManager.queryShapes().stream().map(s -> Arguments.of(s.name, s));
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("shapes")
+  void shapeUsesAnIndex(String name, MongoIndexManager.QueryShape shape) {
+    List<Document> indexes = declaredIndexes(shape.collection);
+    assertThat(indexes).as("declared indexes on %s", shape.collection).isNotEmpty();
+    assertThat(indexes.stream().anyMatch(ix -> shape.filter.containsKey(ix.keySet().iterator().next())))
+        .as("%s would be a COLLSCAN: no index on %s starts with one of %s", name, shape.collection, shape.filter.keySet())
+        .isTrue();
+  }
+
+  @ParameterizedTest(name = "{0}")
+  @MethodSource("shapes")
+  void sortedShapeNeedsNoInMemorySort(String name, MongoIndexManager.QueryShape shape) {
+    assumeTrue(shape.sort != null, "unsorted shape");
+    List<String> sort = new ArrayList<>(shape.sort.keySet());
+    assertThat(declaredIndexes(shape.collection).stream().anyMatch(ix -> providesSort(new ArrayList<>(ix.keySet()), shape.filter, sort)))
+        .as("%s needs an index on %s whose keys after the equality fields are %s", name, shape.collection, sort)
+        .isTrue();
+  }
+
+  @Test
+  void everyRepositoryQueryHasAShape() {
+    List<String> names = MongoIndexManager.queryShapes().stream().map(s -> s.name).toList();
+    REPOSITORIES.forEach((repository, collection) -> {
+      for (Method m : repository.getDeclaredMethods()) {
+        if (m.getName().startsWith("find")) assertThat(names).contains(collection + "." + m.getName());
+      }
+    });
+  }
+
+  @Test
+  void noShapeIsACollectionScanOnRealMongo() {
+    String uri = System.getProperty("hms.test.mongo-uri", System.getenv("HMS_TEST_MONGO_URI"));
+    assumeTrue(uri != null && !uri.isBlank(), "set HMS_TEST_MONGO_URI to explain against a real mongod");
+    try (MongoClient client = MongoClients.create(uri)) {
+      MongoIndexManager manager = new MongoIndexManager(new MongoTemplate(client, "hms-index-test"), false);
+      manager.ensureIndexes();
+      assertThat(manager.collectionScans()).isEmpty();
+    }
+  }
+
+  private static List<Document> declaredIndexes(String collection) {
+    MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(MAPPING);
+    List<Document> out = new ArrayList<>();
+    for (Class<?> entity : MongoIndexManager.ENTITIES) {
+      if (!MAPPING.getRequiredPersistentEntity(entity).getCollection().equals(collection)) continue;
+      for (IndexDefinition def : resolver.resolveIndexFor(entity)) out.add(def.getIndexKeys());
+    }
+    return out;
+  }
+
+  // Equality (and $in) fields may lead the index in any order; the sort keys must follow directly.
+  private static boolean providesSort(List<String> keys, Document filter, List<String> sort) {
+    int i = 0;
+    while (i < keys.size() && isEquality(filter.get(keys.get(i))) && !keys.get(i).equals(sort.get(0))) i++;
+    return keys.size() - i >= sort.size() && keys.subList(i, i + sort.size()).equals(sort);
+  }
+
+  private static boolean isEquality(Object predicate) {
+    if (predicate == null) return false;
+    if (predicate instanceof Document d) return d.containsKey("$in");
+    return true;
+  }
+}
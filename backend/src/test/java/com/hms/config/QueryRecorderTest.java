@@ -0,0 +1,71 @@
+package com.hms.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QueryRecorderTest {
+  @Test
+  void nestedRecordingCountsIntoTheOuterOne() {
+    QueryRecorder.Recording outer = QueryRecorder.captureRun(() -> {
+      issue("find users {_id: ?}");
+      QueryRecorder.Recording r = QueryRecorder.captureRun(() -> issue("find patients {_id: ?}"));
+      assertThat(r.getShapes()).containsOnlyKeys("find patients {_id: ?}");
+    });
+    assertThat(outer.getCommands()).isEqualTo(2);
+    assertThat(outer.getShapes()).containsOnlyKeys("find users {_id: ?}", "find patients {_id: ?}");
+    assertThat(QueryRecorder.current()).isNull();
+  }
+
+  @Test
+  void filterStyleStartStopRestoresTheEnclosingRecording() {
+    QueryRecorder.captureRun(() -> {
+      QueryRecorder.Recording enclosing = QueryRecorder.current();
+      QueryRecorder.start();
+      issue("find users {_id: ?}");
+      QueryRecorder.stop();
+      assertThat(QueryRecorder.current()).isSameAs(enclosing);
+      assertThat(enclosing.getCommands()).isEqualTo(1);
+    });
+  }
+
+  @Test
+  void budgetAssertionsReportTheBreakdown() {
+    QueryRecorder.Recording r = QueryRecorder.captureRun(() -> {
+      issue("find users {_id: ?}");
+      issue("find users {_id: ?}");
+      issue("find patients {}");
+    });
+    r.assertQueriesAtMost(3);
+    assertThatThrownBy(() -> r.assertQueriesAtMost(2)).isInstanceOf(AssertionError.class)
+        .hasMessageContaining("at most 2").hasMessageContaining("2x find users {_id: ?}");
+    r.assertNoRepeatsOver(2);
+    assertThatThrownBy(() -> r.assertNoRepeatsOver(1)).isInstanceOf(AssertionError.class).hasMessageContaining("find users {_id: ?}");
+  }
+
+  @Test
+  void propagatedTaskRecordsIntoTheCallersRecording() throws Exception {
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      QueryRecorder.Recording r = QueryRecorder.captureRun(() -> {
+        try {
+          pool.submit(QueryRecorder.propagate(() -> { issue("find appointments {doctorId: ?}"); return null; })).get();
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      assertThat(r.getCommands()).isEqualTo(1);
+      assertThat(pool.submit(QueryRecorder::current).get()).isNull();
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private static void issue(String shape) {
+    QueryRecorder.current().record(shape, 1, 1_000);
+  }
+}
@@ -0,0 +1,49 @@
+package com.hms.controller;
+
+import com.hms.IntegrationTest;
+import com.hms.model.Patient;
+import com.hms.model.Role;
+import com.hms.repository.KeysetQueries;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PaginationTest extends IntegrationTest {
+  @Test
+  void listWithoutALimitIsPagedAtTheDefault() throws Exception {
+    for (int i = 0; i <= KeysetQueries.DEFAULT_LIMIT; i++) patient();
+    String admin = "Bearer " + jwtTokenProvider.generateToken(user(Role.ADMIN, "Admin"), null);
+
+    MvcResult first = page(admin, null);
+    List<String> seen = new ArrayList<>(ids(first));
+
+    assertThat(seen).hasSize(KeysetQueries.DEFAULT_LIMIT);
+    String cursor = first.getResponse().getHeader("X-Next-Cursor");
+    assertThat(cursor).isNotNull();
+    while (cursor != null) {
+      MvcResult next = page(admin, cursor);
+      seen.addAll(ids(next));
+      cursor = next.getResponse().getHeader("X-Next-Cursor");
+    }
+    assertThat(seen).doesNotHaveDuplicates().hasSize((int) mongoTemplate.count(new Query(), Patient.class));
+  }
+
+  private MvcResult page(String admin, String cursor) throws Exception {
+    var request = get("/admin/patients").header(HttpHeaders.AUTHORIZATION, admin);
+    if (cursor != null) request.param("cursor", cursor);
+    return mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+  }
+
+  private static List<String> ids(MvcResult result) throws Exception {
+    return JsonPath.read(result.getResponse().getContentAsString(), "$[*].id");
+  }
+}
@@ -0,0 +1,121 @@
+package com.hms.controller;
+
+import com.hms.IntegrationTest;
+import com.hms.config.QueryRecorder;
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.Doctor;
+import com.hms.model.Medication;
+import com.hms.model.Patient;
+import com.hms.model.Prescription;
+import com.hms.model.Role;
+import com.hms.service.TimelineService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pins the number of Mongo commands the hot read endpoints issue, so an N+1 lookup shows up as a
+ * failing test rather than as latency in production. Each request runs once to warm the caches
+ * (token versions, doctor directory, occupancy) and is then measured; budgets hold regardless of
+ * how many rows the page returns.
+ */
+class QueryBudgetTest extends IntegrationTest {
+  private static final int ROWS = 8;
+
+  @Autowired
+  private TimelineService timelineService;
+
+  private Doctor doctor;
+  private Patient patient;
+  private Instant clinicDay;
+
+  @BeforeEach
+  void seed() {
+    doctor = doctor(30);
+    patient = patient();
+    clinicDay = day(70).plusSeconds(9 * 3600);
+    for (int i = 0; i < ROWS; i++) {
+      appointment(doctor, patient(), clinicDay.plusSeconds(i * 1800L), 30, AppointmentStatus.ACCEPTED);
+      appointment(doctor, patient, day(71 + i).plusSeconds(9 * 3600), 30, AppointmentStatus.PENDING);
+      Appointment visit = appointment(doctor, patient, day(-30 + i).plusSeconds(9 * 3600), 30, AppointmentStatus.VISITED);
+      prescription(visit);
+    }
+    timelineService.rebuild(patient.getId());
+  }
+
+  @Test
+  void doctorDay() throws Exception {
+    measure(get("/doctor/appointments").param("date", LocalDate.ofInstant(clinicDay, ZoneOffset.UTC).toString()).header(HttpHeaders.AUTHORIZATION, bearer(doctor)), 3);
+  }
+
+  @Test
+  void doctorPatientHistory() throws Exception {
+    measure(get("/doctor/patients/" + patient.getId() + "/history").header(HttpHeaders.AUTHORIZATION, bearer(doctor)), 2);
+  }
+
+  @Test
+  void patientUpcoming() throws Exception {
+    measure(get("/patient/appointments").header(HttpHeaders.AUTHORIZATION, bearer(patient)), 1);
+  }
+
+  @Test
+  void patientHistory() throws Exception {
+    measure(get("/patient/appointments/history").header(HttpHeaders.AUTHORIZATION, bearer(patient)), 1);
+  }
+
+  @Test
+  void patientPrescriptions() throws Exception {
+    measure(get("/patient/prescriptions").header(HttpHeaders.AUTHORIZATION, bearer(patient)), 1);
+  }
+
+  @Test
+  void doctorSlots() throws Exception {
+    measure(get("/patient/doctors/" + doctor.getId() + "/slots").param("date", LocalDate.ofInstant(clinicDay, ZoneOffset.UTC).toString())
+        .header(HttpHeaders.AUTHORIZATION, bearer(patient)), 1);
+  }
+
+  @Test
+  void adminPatients() throws Exception {
+    String admin = "Bearer " + jwtTokenProvider.generateToken(user(Role.ADMIN, "Admin"), null);
+    measure(get("/admin/patients").param("limit", "20").header(HttpHeaders.AUTHORIZATION, admin), 2);
+  }
+
+  private void measure(RequestBuilder request, int budget) throws Exception {
+    mockMvc.perform(request).andExpect(status().isOk());
+    QueryRecorder.Recording recording = QueryRecorder.captureRun(() -> {
+      try {
+        mockMvc.perform(request).andExpect(status().isOk());
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    recording.assertQueriesAtMost(budget);
+    recording.assertNoRepeatsOver(1);
+  }
+
+  private void prescription(Appointment visit) {
+    Medication m = new Medication();
+    m.setName("Amoxicillin");
+    m.setDosage("500mg");
+    m.setFrequency("3x daily");
+    m.setDuration("7 days");
+    Prescription p = new Prescription();
+    p.setAppointmentId(visit.getId());
+    p.setDoctorId(visit.getDoctorId());
+    p.setPatientId(visit.getPatientId());
+    p.setMedications(List.of(m));
+    p.setCreatedAt(visit.getEndTime());
+    mongoTemplate.insert(p);
+  }
+}
@@ -0,0 +1,102 @@
+package com.hms.service;
+
+import com.hms.IntegrationTest;
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.Doctor;
+import com.hms.model.Patient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AppointmentEventHubTest extends IntegrationTest {
+  @Test
+  void changeMadeOnAnotherInstanceIsRelayedOnce() throws InterruptedException {
+    AppointmentEventHub here = hub(1000);
+    AppointmentEventHub there = hub(1000);
+    Doctor doctor = doctor(30);
+    Patient patient = patient();
+    Appointment a = appointment(doctor, patient, day(60).plusSeconds(9 * 3600), 30, AppointmentStatus.PENDING);
+    Recording patientHere = new Recording();
+    Recording doctorThere = new Recording();
+    here.subscribe("patient:" + patient.getId(), patientHere);
+    there.subscribe("doctor:" + doctor.getId(), doctorThere);
+
+    there.publish(a);
+    here.relay();
+    here.relay();
+    there.relay();
+
+    assertThat(patientHere.await(1)).containsExactly(a.getId());
+    assertThat(doctorThere.await(1)).containsExactly(a.getId());
+    Thread.sleep(100);
+    assertThat(patientHere.appointments).hasSize(1);
+    assertThat(doctorThere.appointments).hasSize(1);
+  }
+
+  @Test
+  void stalledSubscriberIsDroppedWithoutHoldingUpOthers() throws InterruptedException {
+    AppointmentEventHub hub = hub(50);
+    Doctor doctor = doctor(30);
+    Patient patient = patient();
+    CountDownLatch release = new CountDownLatch(1);
+    Recording stalled = new Recording(release);
+    Recording healthy = new Recording();
+    hub.subscribe("doctor:" + doctor.getId(), stalled);
+    hub.subscribe("patient:" + patient.getId(), healthy);
+
+    Appointment a = appointment(doctor, patient, day(61).plusSeconds(9 * 3600), 30, AppointmentStatus.PENDING);
+    hub.publish(a);
+
+    assertThat(healthy.await(1)).containsExactly(a.getId());
+    Thread.sleep(100);
+    hub.dropStalled();
+    assertThat(hub.connectionCount()).isEqualTo(1);
+    release.countDown();
+  }
+
+  private AppointmentEventHub hub(long sendTimeoutMillis) {
+    return new AppointmentEventHub(mongoTemplate, new SimpleMeterRegistry(), 64, 60_000, 1, 8, sendTimeoutMillis, true, 2000);
+  }
+
+  /** Records the appointment ids it is sent; with a latch, every send blocks until it opens. */
+  private static final class Recording extends SseEmitter {
+    private final CountDownLatch release;
+    private final List<String> appointments = new CopyOnWriteArrayList<>();
+
+    private Recording() { this(null); }
+
+    private Recording(CountDownLatch release) {
+      super(60_000L);
+      this.release = release;
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      if (release != null) {
+        try {
+          release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      for (var part : builder.build()) {
+        if (part.getData() instanceof Appointment a) appointments.add(a.getId());
+      }
+    }
+
+    private List<String> await(int count) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 5_000;
+      while (appointments.size() < count && System.currentTimeMillis() < deadline) Thread.sleep(10);
+      return appointments;
+    }
+  }
+}
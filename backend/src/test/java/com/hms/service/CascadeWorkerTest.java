@@ -0,0 +1,111 @@
+package com.hms.service;
+
+import com.hms.IntegrationTest;
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.CascadeEvent;
+import com.hms.model.Doctor;
+import com.hms.model.Patient;
+import com.hms.model.Role;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** The background worker polls on its own schedule; these tests wait for it. */
+class CascadeWorkerTest extends IntegrationTest {
+  @Autowired
+  private CascadeWorker cascadeWorker;
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Test
+  void exhaustedEventIsDeadLetteredThenRetriedOrDiscarded() throws Exception {
+    Appointment retried = failingOnLastAttempt();
+    Appointment discarded = failingOnLastAttempt();
+    CascadeEvent dead = awaitDead(retried);
+    awaitDead(discarded);
+
+    assertThat(dead.getAvailableAt()).isNull();
+    assertThat(dead.getLastError()).isNotBlank();
+    assertThat(cascadeWorker.deadLetters(500)).extracting(Appointment::getId).contains(retried.getId(), discarded.getId());
+    String admin = "Bearer " + jwtTokenProvider.generateToken(user(Role.ADMIN, "Admin"), null);
+    String body = mockMvc.perform(get("/admin/cascades/dead").param("limit", "500").header(HttpHeaders.AUTHORIZATION, admin))
+        .andExpect(status().isOk()).andReturn().getResponse().getContentAsString();
+    List<Map<String, Object>> listed = JsonPath.read(body, "$[?(@.appointmentId == '" + retried.getId() + "')].cascade");
+    assertThat(listed).singleElement().satisfies(c -> {
+      assertThat(c).containsEntry("trigger", "extend").containsEntry("attempts", 8).containsEntry("lastError", dead.getLastError());
+      assertThat(c.get("deadAt")).isNotNull();
+    });
+    cascadeWorker.sweepDeadLetters();
+    assertThat(meterRegistry.get("hms.cascade.dead").gauge().value()).isGreaterThanOrEqualTo(2.0);
+
+    cascadeWorker.retry(retried.getId());
+    CascadeEvent requeued = mongoTemplate.findById(retried.getId(), Appointment.class).getCascade();
+    assertThat(requeued.getDeadAt()).isNull();
+    assertThat(requeued.getAvailableAt()).isNotNull();
+    assertThat(requeued.getAttempts()).isLessThanOrEqualTo(1);
+
+    cascadeWorker.discard(discarded.getId());
+    assertThat(mongoTemplate.findById(discarded.getId(), Appointment.class).getCascade()).isNull();
+    assertThatThrownBy(() -> cascadeWorker.discard(discarded.getId())).hasMessage("No dead cascade for appointment");
+  }
+
+  @Test
+  void eventForADoctorMissingFromTheDirectoryIsApplied() throws InterruptedException {
+    Doctor doctor = unlistedDoctor(30);
+    Patient patient = patient();
+    Instant ten = day(52).plusSeconds(10 * 3600);
+    Appointment next = appointment(doctor, patient, ten.plusSeconds(1800), 30, AppointmentStatus.ACCEPTED);
+    Appointment trigger = appointment(doctor, patient, ten, 30, AppointmentStatus.ACCEPTED);
+    trigger.setEndTime(ten.plusSeconds(3600));
+    trigger.setCascade(CascadeEvent.of("extend", trigger.getEndTime()));
+    mongoTemplate.save(trigger);
+
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (mongoTemplate.findById(trigger.getId(), Appointment.class).getCascade() != null && System.currentTimeMillis() < deadline) Thread.sleep(50);
+
+    assertThat(mongoTemplate.findById(trigger.getId(), Appointment.class).getCascade()).isNull();
+    Appointment moved = mongoTemplate.findById(next.getId(), Appointment.class);
+    assertThat(moved.getStatus()).isEqualTo(AppointmentStatus.RESCHEDULE_PENDING_PATIENT);
+    assertThat(moved.getProposedStartTime()).isEqualTo(ten.plusSeconds(3600));
+  }
+
+  // The doctor does not exist, so the cascade throws; one attempt short of the default budget of 8.
+  private Appointment failingOnLastAttempt() {
+    Patient patient = patient();
+    Appointment a = new Appointment();
+    a.setDoctorId("missing-" + UUID.randomUUID());
+    a.setPatientId(patient.getId());
+    a.setStartTime(day(50));
+    a.setEndTime(day(50).plusSeconds(1800));
+    a.setStatus(AppointmentStatus.VISITED);
+    a.setCreatedAt(Instant.now());
+    a.setUpdatedAt(Instant.now());
+    CascadeEvent event = CascadeEvent.of("extend", a.getEndTime());
+    event.setAttempts(7);
+    a.setCascade(event);
+    return mongoTemplate.insert(a);
+  }
+
+  private CascadeEvent awaitDead(Appointment a) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10_000;
+    while (System.currentTimeMillis() < deadline) {
+      CascadeEvent event = mongoTemplate.findById(a.getId(), Appointment.class).getCascade();
+      if (event != null && event.getDeadAt() != null) return event;
+      Thread.sleep(50);
+    }
+    throw new AssertionError("cascade for " + a.getId() + " was not dead-lettered");
+  }
+}
@@ -0,0 +1,72 @@
+package com.hms.service;
+
+import com.hms.IntegrationTest;
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.CascadeEvent;
+import com.hms.model.Doctor;
+import com.hms.model.Patient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/** A cascade must not overwrite an appointment that changed between planning and the bulk write. */
+class CascadeWriteTest extends IntegrationTest {
+  @SpyBean
+  private DelayPropagationEngine delayPropagationEngine;
+  @Autowired
+  private AppointmentService appointmentService;
+  @Autowired
+  private SlotReservationService slotReservationService;
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Test
+  void appointmentChangedAfterPlanningKeepsTheConcurrentChange() {
+    Doctor doctor = doctor(30);
+    Patient patient = patient();
+    Instant ten = day(40).plusSeconds(10 * 3600);
+    Appointment trigger = appointment(doctor, patient, ten, 30, AppointmentStatus.ACCEPTED);
+    Appointment cancelled = accepted(doctor, patient, ten.plusSeconds(1800));
+    Appointment moved = accepted(doctor, patient, ten.plusSeconds(3600));
+    Instant newEnd = ten.plusSeconds(3600);
+    mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(trigger.getId())), new Update().set("endTime", newEnd), Appointment.class);
+    doAnswer(inv -> {
+      Object plan = inv.callRealMethod();
+      mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(cancelled.getId())),
+          new Update().set("status", AppointmentStatus.CANCELLED).set("updatedAt", Instant.now()), Appointment.class);
+      return plan;
+    }).when(delayPropagationEngine).plan(any(), any(), any());
+    double skippedBefore = skipped();
+
+    appointmentService.runCascade(trigger.getId(), CascadeEvent.of("extend", newEnd));
+
+    assertThat(mongoTemplate.findById(cancelled.getId(), Appointment.class).getStatus()).isEqualTo(AppointmentStatus.CANCELLED);
+    Appointment after = mongoTemplate.findById(moved.getId(), Appointment.class);
+    assertThat(after.getStatus()).isEqualTo(AppointmentStatus.RESCHEDULE_PENDING_PATIENT);
+    assertThat(after.getProposedStartTime()).isEqualTo(newEnd.plusSeconds(1800));
+    assertThat(slotReservationService.isFree(doctor.getId(), moved.getStartTime(), moved.getEndTime())).isTrue();
+    assertThat(slotReservationService.isFree(doctor.getId(), cancelled.getStartTime(), cancelled.getEndTime())).isFalse();
+    assertThat(skipped() - skippedBefore).isEqualTo(1.0);
+  }
+
+  private Appointment accepted(Doctor doctor, Patient patient, Instant start) {
+    Appointment a = appointment(doctor, patient, start, 30, AppointmentStatus.ACCEPTED);
+    assertThat(slotReservationService.reserve(doctor.getId(), a.getId(), a.getStartTime(), a.getEndTime())).isTrue();
+    return a;
+  }
+
+  private double skipped() {
+    return meterRegistry.counter("hms.cascade.skipped", "trigger", "extend").count();
+  }
+}
@@ -0,0 +1,104 @@
+package com.hms.service;
+
+import com.hms.dto.DoctorDto;
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.WorkingHoursEntry;
+import com.hms.repository.AppointmentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DelayPropagationEngineTest {
+  private static final String DAY = "2030-01-07T"; // a Monday
+
+  private final AppointmentRepository repository = mock(AppointmentRepository.class);
+  private final DelayPropagationEngine engine = new DelayPropagationEngine(repository);
+  private final List<Appointment> schedule = new ArrayList<>();
+
+  @BeforeEach
+  void stubSchedule() {
+    when(repository.findByDoctorIdAndStatusInAndStartTimeBetween(eq("d"), anyList(), any(), any())).thenReturn(schedule);
+  }
+
+  @Test
+  void appointmentSwallowedByTheOverrunIsMovedAfterIt() {
+    Appointment trigger = appointment("t", "10:00", "11:15"); // was 10:00-10:30, extended by 45 minutes
+    Appointment swallowed = appointment("a", "10:30", "10:45");
+    Appointment next = appointment("b", "11:00", "11:30");
+
+    List<DelayPropagationEngine.Shift> shifts = engine.plan(doctor(), trigger, trigger.getEndTime());
+
+    assertThat(shifts).extracting(s -> s.getAppointment().getId()).containsExactly("a", "b");
+    assertThat(shifts.get(0).getStart()).isEqualTo(at("11:15"));
+    assertThat(shifts.get(0).getEnd()).isEqualTo(at("11:30"));
+    assertThat(shifts.get(1).getStart()).isEqualTo(at("11:30"));
+    assertThat(shifts.get(1).getEnd()).isEqualTo(at("12:00"));
+    assertThat(swallowed.getStartTime()).isEqualTo(at("10:30"));
+    assertThat(next.getStartTime()).isEqualTo(at("11:00"));
+  }
+
+  @Test
+  void shiftedAppointmentsPushLaterOnesUntilAGap() {
+    Appointment trigger = appointment("t", "10:00", "11:15"); // was 10:00-10:30
+    appointment("a", "10:30", "11:00");
+    appointment("b", "11:00", "11:30");
+    appointment("c", "12:00", "12:30");
+    appointment("d", "13:00", "13:30");
+
+    List<DelayPropagationEngine.Shift> shifts = engine.plan(doctor(), trigger, trigger.getEndTime());
+
+    assertThat(shifts).extracting(s -> s.getAppointment().getId()).containsExactly("a", "b", "c");
+    assertThat(shifts.get(0).getStart()).isEqualTo(at("11:15"));
+    assertThat(shifts.get(1).getStart()).isEqualTo(at("11:45"));
+    assertThat(shifts.get(2).getStart()).isEqualTo(at("12:15"));
+    assertThat(shifts.get(2).getEnd()).isEqualTo(at("12:45"));
+  }
+
+  @Test
+  void gapAbsorbsTheOverrunAndEarlierAppointmentsStay() {
+    Appointment trigger = appointment("t", "10:00", "10:45");
+    appointment("early", "09:00", "09:30");
+    appointment("later", "11:00", "11:30");
+
+    assertThat(engine.plan(doctor(), trigger, trigger.getEndTime())).isEmpty();
+  }
+
+  private Appointment appointment(String id, String start, String end) {
+    Appointment a = new Appointment();
+    a.setId(id);
+    a.setDoctorId("d");
+    a.setStartTime(at(start));
+    a.setEndTime(at(end));
+    a.setStatus(AppointmentStatus.ACCEPTED);
+    schedule.add(a);
+    return a;
+  }
+
+  private static DoctorDto doctor() {
+    WorkingHoursEntry hours = new WorkingHoursEntry();
+    hours.setDay(DayOfWeek.MONDAY);
+    hours.setStartTime(LocalTime.of(9, 0));
+    hours.setEndTime(LocalTime.of(17, 0));
+    DoctorDto d = new DoctorDto();
+    d.setId("d");
+    d.setWorkingHours(List.of(hours));
+    return d;
+  }
+
+  private static Instant at(String time) {
+    return Instant.parse(DAY + time + ":00Z");
+  }
+}
@@ -0,0 +1,43 @@
+package com.hms.service;
+
+import com.hms.IntegrationTest;
+import com.hms.dto.DoctorDto;
+import com.hms.model.Doctor;
+import com.hms.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class DoctorDirectoryTest extends IntegrationTest {
+  @Test
+  void doctorMissingFromTheSnapshotIsReadFromMongo() {
+    Doctor doctor = unlistedDoctor(20);
+    assertThat(doctorDirectory.snapshot().get(doctor.getId())).isNull();
+
+    DoctorDto dto = doctorDirectory.get(doctor.getId());
+
+    assertThat(dto.getSlotDuration()).isEqualTo(20);
+    assertThat(dto.getName()).isEqualTo(mongoTemplate.findById(doctor.getUserId(), User.class).getName());
+    assertThat(doctorDirectory.snapshot().get(doctor.getId())).isNotNull();
+  }
+
+  @Test
+  void unknownDoctorIsNull() {
+    assertThat(doctorDirectory.get("no-such-doctor")).isNull();
+    assertThatThrownBy(() -> doctorDirectory.require("no-such-doctor")).isInstanceOf(NoSuchElementException.class);
+  }
+
+  @Test
+  void slotsOfAnUnlistedDoctorAreServed() throws Exception {
+    Doctor doctor = unlistedDoctor(30);
+    mockMvc.perform(get("/patient/doctors/" + doctor.getId() + "/slots").param("date", day(90).toString().substring(0, 10))
+            .header(HttpHeaders.AUTHORIZATION, bearer(patient())))
+        .andExpect(status().isOk());
+  }
+}
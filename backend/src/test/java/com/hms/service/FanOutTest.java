@@ -0,0 +1,72 @@
+package com.hms.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FanOutTest {
+  private final FanOut fanOut = new FanOut(true, 4, 10_000);
+
+  @AfterEach
+  void shutdown() {
+    fanOut.shutdown();
+  }
+
+  @Test
+  void joinWaitsForEveryFork() {
+    try (FanOut.Scope scope = fanOut.scope()) {
+      Supplier<Integer> slow = scope.fork(() -> { Thread.sleep(100); return 1; });
+      Supplier<Integer> fast = scope.fork(() -> 2);
+      scope.join();
+      assertThat(slow.get() + fast.get()).isEqualTo(3);
+    }
+  }
+
+  @Test
+  void failureOfALaterForkSurfacesWithoutWaitingForAnEarlierOne() throws InterruptedException {
+    CountDownLatch interrupted = new CountDownLatch(1);
+    long started = System.nanoTime();
+    try (FanOut.Scope scope = fanOut.scope()) {
+      scope.fork(() -> {
+        try {
+          Thread.sleep(5_000);
+        } catch (InterruptedException e) {
+          interrupted.countDown();
+        }
+        return null;
+      });
+      scope.fork(() -> { throw new IllegalArgumentException("boom"); });
+      assertThatThrownBy(scope::join).isInstanceOf(IllegalArgumentException.class).hasMessage("boom");
+    }
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isLessThan(2_000);
+    assertThat(interrupted.await(2, TimeUnit.SECONDS)).as("slow fork cancelled").isTrue();
+  }
+
+  @Test
+  void disabledFanOutRunsForksInline() {
+    FanOut inline = new FanOut(false, 4, 10_000);
+    Thread caller = Thread.currentThread();
+    try (FanOut.Scope scope = inline.scope()) {
+      Supplier<Thread> ran = scope.fork(Thread::currentThread);
+      scope.join();
+      assertThat(ran.get()).isSameAs(caller);
+    }
+  }
+
+  @Test
+  void joinTimesOut() {
+    FanOut bounded = new FanOut(true, 2, 100);
+    try (FanOut.Scope scope = bounded.scope()) {
+      scope.fork(() -> { Thread.sleep(5_000); return null; });
+      assertThatThrownBy(scope::join).isInstanceOf(IllegalStateException.class).hasMessage("Fan-out timed out");
+    } finally {
+      bounded.shutdown();
+    }
+  }
+}
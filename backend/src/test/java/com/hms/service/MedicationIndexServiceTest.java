@@ -0,0 +1,108 @@
+package com.hms.service;
+
+import com.hms.IntegrationTest;
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.Doctor;
+import com.hms.model.Medication;
+import com.hms.model.MedicationIndexEntry;
+import com.hms.model.MedicationIndexPending;
+import com.hms.model.MedicationName;
+import com.hms.model.Patient;
+import com.hms.model.Prescription;
+import com.hms.repository.KeysetQueries;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
+
+class MedicationIndexServiceTest extends IntegrationTest {
+  @Autowired
+  private MedicationIndexService medicationIndexService;
+  @Autowired
+  private AdminService adminService;
+  @Autowired
+  private KeysetQueries keysetQueries;
+
+  @Test
+  void failedUpdateIsRetried() {
+    MongoTemplate failing = spy(mongoTemplate);
+    MedicationIndexService service = new MedicationIndexService(failing, keysetQueries, new SimpleMeterRegistry(), 500, 30);
+    String name = "Retrymycin " + UUID.randomUUID();
+    Doctor doctor = doctor(30);
+    Prescription p = prescription(doctor, patient(), name, day(-3));
+
+    doThrow(new DataAccessResourceFailureException("down")).when(failing).bulkOps(any(BulkOperations.BulkMode.class), eq(MedicationName.class));
+    service.onPrescription(p);
+
+    assertThat(entries(name)).hasSize(1);
+    assertThat(mongoTemplate.findById(MedicationIndexService.normalize(name), MedicationName.class)).isNull();
+    assertThat(mongoTemplate.findById(p.getId(), MedicationIndexPending.class)).isNotNull();
+
+    reset(failing);
+    service.retryPending();
+    service.retryPending();
+
+    assertThat(entries(name)).hasSize(1);
+    assertThat(mongoTemplate.findById(MedicationIndexService.normalize(name), MedicationName.class).getPrescriptionCount()).isEqualTo(1);
+    assertThat(mongoTemplate.findById(p.getId(), MedicationIndexPending.class)).isNull();
+  }
+
+  @Test
+  void deletedPatientLeavesTheIndexAndCatalog() {
+    String name = "Deletamol " + UUID.randomUUID();
+    Doctor doctor = doctor(30);
+    Patient deleted = patient();
+    Patient kept = patient();
+    Prescription first = prescription(doctor, deleted, name, day(-9));
+    Prescription second = prescription(doctor, deleted, name, day(-8));
+    Prescription third = prescription(doctor, kept, name, day(-7));
+    for (Prescription p : List.of(first, second, third)) medicationIndexService.onPrescription(p);
+    assertThat(mongoTemplate.findById(MedicationIndexService.normalize(name), MedicationName.class).getPrescriptionCount()).isEqualTo(3);
+
+    adminService.deletePatient(deleted.getId());
+
+    assertThat(entries(name)).extracting(MedicationIndexEntry::getPatientId).containsExactly(kept.getId());
+    MedicationName catalog = mongoTemplate.findById(MedicationIndexService.normalize(name), MedicationName.class);
+    assertThat(catalog.getPrescriptionCount()).isEqualTo(1);
+    assertThat(catalog.getFirstPrescribedAt()).isEqualTo(third.getCreatedAt());
+
+    adminService.deletePatient(kept.getId());
+
+    assertThat(entries(name)).isEmpty();
+    assertThat(mongoTemplate.findById(MedicationIndexService.normalize(name), MedicationName.class)).isNull();
+  }
+
+  private List<MedicationIndexEntry> entries(String name) {
+    return mongoTemplate.find(new Query(Criteria.where("medication").is(MedicationIndexService.normalize(name))), MedicationIndexEntry.class);
+  }
+
+  private Prescription prescription(Doctor doctor, Patient patient, String medication, Instant day) {
+    Appointment visit = appointment(doctor, patient, day.plusSeconds(9 * 3600), 30, AppointmentStatus.VISITED);
+    Medication m = new Medication();
+    m.setName(medication);
+    m.setDuration("7 days");
+    Prescription p = new Prescription();
+    p.setAppointmentId(visit.getId());
+    p.setDoctorId(visit.getDoctorId());
+    p.setPatientId(visit.getPatientId());
+    p.setMedications(List.of(m));
+    p.setCreatedAt(visit.getEndTime());
+    return mongoTemplate.insert(p);
+  }
+}
@@ -0,0 +1,68 @@
+package com.hms.service;
+
+import com.hms.IntegrationTest;
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.Doctor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class OccupancyIndexTest extends IntegrationTest {
+  @Test
+  void appointmentAcrossMidnightOccupiesBothDays() {
+    OccupancyIndex index = new OccupancyIndex(mongoTemplate, 60_000, new SimpleMeterRegistry());
+    Doctor doctor = doctor(30);
+    Instant midnight = day(70);
+    LocalDate before = LocalDate.ofInstant(midnight, ZoneOffset.UTC).minusDays(1);
+    LocalDate after = before.plusDays(1);
+    appointment(doctor, patient(), midnight.minusSeconds(1800), 60, AppointmentStatus.ACCEPTED);
+
+    assertThat(index.day(doctor.getId(), before).isFree(23 * 60 + 30, 24 * 60)).isFalse();
+    assertThat(index.day(doctor.getId(), after).isFree(0, 30)).isFalse();
+    assertThat(index.day(doctor.getId(), after).isFree(30, 60)).isTrue();
+    assertThat(index.range(doctor.getId(), after, after.plusDays(1)).get(after).isFree(0, 30)).isFalse();
+
+    Appointment patched = appointment(doctor, patient(), midnight.plusSeconds(23 * 3600 + 1800), 60, AppointmentStatus.ACCEPTED);
+    index.day(doctor.getId(), after.plusDays(1));
+    index.apply(patched);
+
+    assertThat(index.day(doctor.getId(), after).isFree(23 * 60 + 30, 24 * 60)).isFalse();
+    assertThat(index.day(doctor.getId(), after.plusDays(1)).isFree(0, 30)).isFalse();
+  }
+
+  @Test
+  void loadThatRacesAWriteIsNotCached() {
+    MongoTemplate racing = spy(mongoTemplate);
+    OccupancyIndex index = new OccupancyIndex(racing, 60_000, new SimpleMeterRegistry());
+    Doctor doctor = doctor(30);
+    Instant start = day(71).plusSeconds(9 * 3600);
+    LocalDate date = LocalDate.ofInstant(start, ZoneOffset.UTC);
+    doAnswer(inv -> {
+      Object loaded = inv.callRealMethod();
+      index.apply(appointment(doctor, patient(), start, 30, AppointmentStatus.ACCEPTED));
+      return loaded;
+    }).when(racing).find(any(Query.class), eq(Appointment.class));
+
+    assertThat(index.day(doctor.getId(), date).isFree(9 * 60, 9 * 60 + 30)).isTrue();
+
+    reset(racing);
+    assertThat(index.day(doctor.getId(), date).isFree(9 * 60, 9 * 60 + 30)).isFalse();
+    assertThat(index.day(doctor.getId(), date).isFree(9 * 60, 9 * 60 + 30)).isFalse();
+    verify(racing, times(1)).find(any(Query.class), eq(Appointment.class));
+  }
+}
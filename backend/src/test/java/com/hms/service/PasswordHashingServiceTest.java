@@ -0,0 +1,77 @@
+package com.hms.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PasswordHashingServiceTest {
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Test
+  void rejectPolicyFailsFastWhenThePoolCannotKeepUp() throws Exception {
+    PasswordHashingService hashing = service(PasswordHashingService.Overload.REJECT);
+    List<String> outcomes = burst(hashing, 6);
+    assertThat(outcomes).contains("ok", "Server busy");
+    assertThat(meterRegistry.counter("hms.passwords.rejected").count()).isEqualTo(outcomes.stream().filter("Server busy"::equals).count());
+    hashing.shutdown();
+  }
+
+  @Test
+  void waitPolicyAnswersEveryRequest() throws Exception {
+    PasswordHashingService hashing = service(PasswordHashingService.Overload.WAIT);
+    assertThat(burst(hashing, 6)).containsOnly("ok");
+    assertThat(meterRegistry.counter("hms.passwords.rejected").count()).isZero();
+    hashing.shutdown();
+  }
+
+  // One thread, a queue of one and a 250 ms wait budget against a 100 ms hash.
+  private PasswordHashingService service(PasswordHashingService.Overload overload) {
+    return new PasswordHashingService(new SlowEncoder(), null, meterRegistry, 1, 1, 250, overload, 10);
+  }
+
+  private static List<String> burst(PasswordHashingService hashing, int requests) throws Exception {
+    ExecutorService clients = Executors.newFixedThreadPool(requests);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < requests; i++) {
+        results.add(clients.submit(() -> {
+          try {
+            return hashing.matches("secret", "hash") ? "ok" : "mismatch";
+          } catch (RuntimeException e) {
+            return e.getMessage();
+          }
+        }));
+      }
+      List<String> outcomes = new ArrayList<>();
+      for (Future<String> f : results) outcomes.add(f.get());
+      return outcomes;
+    } finally {
+      clients.shutdown();
+    }
+  }
+
+  private static final class SlowEncoder implements PasswordEncoder {
+    @Override
+    public String encode(CharSequence raw) {
+      return "hash";
+    }
+
+    @Override
+    public boolean matches(CharSequence raw, String encoded) {
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.hms.service;
+
+import com.hms.IntegrationTest;
+import com.hms.config.TokenVersionRegistry;
+import com.hms.dto.LoginResponse;
+import com.hms.model.Role;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RefreshTokenServiceTest extends IntegrationTest {
+  private static final long DAY = 86_400_000L;
+
+  @Autowired
+  private TokenVersionRegistry tokenVersionRegistry;
+
+  @Test
+  void secondTabWithinGraceGetsItsOwnToken() {
+    RefreshTokenService service = service(14 * DAY, 30 * DAY, 10_000);
+    String first = service.issue(user(Role.PATIENT, "Tabs"), null);
+
+    LoginResponse tabA = service.refresh(first);
+    LoginResponse tabB = service.refresh(first);
+
+    assertThat(tabB.getRefreshToken()).isNotEqualTo(tabA.getRefreshToken());
+    assertThat(service.refresh(tabA.getRefreshToken()).getToken()).isNotNull();
+    assertThat(service.refresh(tabB.getRefreshToken()).getToken()).isNotNull();
+  }
+
+  @Test
+  void reuseBeyondTheGraceRevokesTheSession() {
+    RefreshTokenService service = service(14 * DAY, 30 * DAY, 10_000);
+    String first = service.issue(user(Role.PATIENT, "Replay"), null);
+    LoginResponse next = service.refresh(first);
+    service.refresh(first);
+
+    assertThatThrownBy(() -> service.refresh(first)).hasMessage("Invalid refresh token");
+    assertThatThrownBy(() -> service.refresh(next.getRefreshToken())).hasMessage("Invalid refresh token");
+  }
+
+  @Test
+  void reuseWithoutGraceRevokesTheSession() {
+    RefreshTokenService service = service(14 * DAY, 30 * DAY, 0);
+    String first = service.issue(user(Role.PATIENT, "Strict"), null);
+    LoginResponse next = service.refresh(first);
+
+    assertThatThrownBy(() -> service.refresh(first)).hasMessage("Invalid refresh token");
+    assertThatThrownBy(() -> service.refresh(next.getRefreshToken())).hasMessage("Invalid refresh token");
+  }
+
+  @Test
+  void rotationDoesNotOutliveTheFamily() throws InterruptedException {
+    RefreshTokenService service = service(14 * DAY, 300, 0);
+    String token = service.issue(user(Role.PATIENT, "Capped"), null);
+    token = service.refresh(token).getRefreshToken();
+
+    Thread.sleep(400);
+
+    String expired = token;
+    assertThatThrownBy(() -> service.refresh(expired)).hasMessage("Invalid refresh token");
+  }
+
+  private RefreshTokenService service(long ttlMillis, long familyTtlMillis, long graceMillis) {
+    return new RefreshTokenService(mongoTemplate, jwtTokenProvider, tokenVersionRegistry, new SimpleMeterRegistry(), ttlMillis, familyTtlMillis, graceMillis);
+  }
+}
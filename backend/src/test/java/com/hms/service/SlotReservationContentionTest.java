@@ -0,0 +1,158 @@
+package com.hms.service;
+
+import com.hms.IntegrationTest;
+import com.hms.dto.ExtendAppointmentRequest;
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.Doctor;
+import com.hms.model.SlotReservation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SlotReservationContentionTest extends IntegrationTest {
+  @Autowired
+  private AppointmentService appointmentService;
+  @Autowired
+  private SlotReservationService slotReservationService;
+
+  @Test
+  void concurrentAcceptsOfOneSlotHaveExactlyOneWinner() throws Exception {
+    Doctor doctor = doctor(30);
+    Instant start = day(30).plusSeconds(10 * 3600L);
+    List<Appointment> contenders = new ArrayList<>();
+    for (int i = 0; i < 32; i++) contenders.add(appointment(doctor, patient(), start, 30, AppointmentStatus.PENDING));
+
+    AtomicInteger winners = new AtomicInteger();
+    AtomicInteger conflicts = new AtomicInteger();
+    CountDownLatch go = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(contenders.size());
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (Appointment a : contenders) {
+        futures.add(pool.submit(() -> {
+          go.await();
+          try {
+            appointmentService.accept(doctor.getId(), a.getId());
+            winners.incrementAndGet();
+          } catch (RuntimeException e) {
+            assertThat(e).hasMessage("Conflict exists");
+            conflicts.incrementAndGet();
+          }
+          return null;
+        }));
+      }
+      go.countDown();
+      for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+    } finally {
+      pool.shutdownNow();
+    }
+
+    assertThat(winners.get()).isEqualTo(1);
+    assertThat(conflicts.get()).isEqualTo(contenders.size() - 1);
+    assertThat(acceptedStarts(doctor)).containsExactly(Map.entry(start, 1L));
+    SlotReservation day = mongoTemplate.findById(doctor.getId() + ":" + start.toString().substring(0, 10), SlotReservation.class);
+    assertThat(day.getIntervals()).hasSize(1);
+  }
+
+  @ParameterizedTest(name = "{0} clients")
+  @ValueSource(ints = {1, 8, 64})
+  void acceptThroughputWithoutDoubleBookings(int clients) throws Exception {
+    Doctor doctor = doctor(30);
+    int slots = 64;
+    int perSlot = 4;
+    List<Appointment> work = new ArrayList<>();
+    for (int s = 0; s < slots; s++) {
+      Instant start = day(60 + s / 32).plusSeconds((s % 32) * 1800L);
+      for (int c = 0; c < perSlot; c++) work.add(appointment(doctor, patient(), start, 30, AppointmentStatus.PENDING));
+    }
+    Collections.shuffle(work, new Random(clients));
+
+    AtomicInteger next = new AtomicInteger();
+    AtomicInteger winners = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(clients);
+    long started = System.nanoTime();
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < clients; t++) {
+        futures.add(pool.submit(() -> {
+          for (int i = next.getAndIncrement(); i < work.size(); i = next.getAndIncrement()) {
+            try {
+              appointmentService.accept(doctor.getId(), work.get(i).getId());
+              winners.incrementAndGet();
+            } catch (RuntimeException e) {
+              assertThat(e).hasMessage("Conflict exists");
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> f : futures) f.get(120, TimeUnit.SECONDS);
+    } finally {
+      pool.shutdownNow();
+    }
+    double seconds = (System.nanoTime() - started) / 1e9;
+
+    System.out.printf("slot contention, %d clients: %d accepts in %.2f s = %.0f accepts/s, %.0f bookings/s%n",
+        clients, work.size(), seconds, work.size() / seconds, winners.get() / seconds);
+    assertThat(winners.get()).isEqualTo(slots);
+    Map<Instant, Long> accepted = acceptedStarts(doctor);
+    assertThat(accepted).hasSize(slots);
+    assertThat(accepted.values()).containsOnly(1L);
+  }
+
+  @Test
+  void extensionPastMidnightBlocksTheNextDay() {
+    Doctor doctor = doctor(30);
+    Instant midnight = day(90);
+    Appointment late = appointment(doctor, patient(), midnight.minusSeconds(1800), 30, AppointmentStatus.PENDING);
+    appointmentService.accept(doctor.getId(), late.getId());
+    ExtendAppointmentRequest extend = new ExtendAppointmentRequest();
+    extend.setExtraMinutes(45);
+    appointmentService.extend(doctor.getId(), late.getId(), extend);
+
+    assertThat(slotReservationService.isFree(doctor.getId(), midnight, midnight.plusSeconds(1800))).isFalse();
+    Appointment early = appointment(doctor, patient(), midnight, 30, AppointmentStatus.PENDING);
+    assertThatThrownBy(() -> appointmentService.accept(doctor.getId(), early.getId())).hasMessage("Conflict exists");
+    assertThat(slotReservationService.isFree(doctor.getId(), midnight.plusSeconds(3600), midnight.plusSeconds(5400))).isTrue();
+  }
+
+  @Test
+  void reservationCrossingMidnightSeesTheNextDay() {
+    Doctor doctor = doctor(30);
+    Instant midnight = day(91);
+    assertThat(slotReservationService.reserve(doctor.getId(), "next-day", midnight, midnight.plusSeconds(1800))).isTrue();
+    assertThat(slotReservationService.reserve(doctor.getId(), "crossing", midnight.minusSeconds(900), midnight.plusSeconds(900))).isFalse();
+    assertThat(slotReservationService.isFree(doctor.getId(), midnight.minusSeconds(1800), midnight)).isTrue();
+
+    slotReservationService.release(doctor.getId(), "next-day");
+    assertThat(slotReservationService.reserve(doctor.getId(), "crossing", midnight.minusSeconds(900), midnight.plusSeconds(900))).isTrue();
+    assertThat(slotReservationService.isFree(doctor.getId(), midnight.plusSeconds(600), midnight.plusSeconds(1200))).isFalse();
+    assertThat(slotReservationService.isFree(doctor.getId(), midnight.minusSeconds(1200), midnight.minusSeconds(600))).isFalse();
+  }
+
+  private Map<Instant, Long> acceptedStarts(Doctor doctor) {
+    Query q = new Query(Criteria.where("doctorId").is(doctor.getId()).and("status").is(AppointmentStatus.ACCEPTED));
+    return mongoTemplate.find(q, Appointment.class).stream().collect(Collectors.groupingBy(Appointment::getStartTime, Collectors.counting()));
+  }
+}
@@ -0,0 +1,162 @@
+package com.hms.service;
+
+import com.hms.IntegrationTest;
+import com.hms.model.Appointment;
+import com.hms.model.AppointmentStatus;
+import com.hms.model.Doctor;
+import com.hms.model.Medication;
+import com.hms.model.Patient;
+import com.hms.model.Prescription;
+import com.hms.model.TimelineDirty;
+import com.hms.model.TimelineEntry;
+import com.hms.model.User;
+import com.hms.repository.KeysetQueries;
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TimelineServiceTest extends IntegrationTest {
+  @Autowired
+  private TimelineService timelineService;
+  @Autowired
+  private KeysetQueries keysetQueries;
+
+  @Test
+  void failedUpdateFallsBackForThatPatientUntilRepaired() {
+    MongoTemplate failing = spy(mongoTemplate);
+    TimelineService service = new TimelineService(failing, doctorDirectory, keysetQueries, new SimpleMeterRegistry(), 500, false);
+    Doctor doctor = doctor(30);
+    Patient patient = patient();
+    Patient other = patient();
+    Appointment a = appointment(doctor, patient, day(-5).plusSeconds(9 * 3600), 30, AppointmentStatus.ACCEPTED);
+    service.rebuild(null);
+    assertThat(service.isReady(patient.getId())).isTrue();
+
+    doThrow(new DataAccessResourceFailureException("down")).when(failing).upsert(any(Query.class), any(Update.class), eq(TimelineEntry.class));
+    a.setStatus(AppointmentStatus.VISITED);
+    mongoTemplate.save(a);
+    service.onAppointment(a);
+
+    assertThat(service.isReady(patient.getId())).isFalse();
+    assertThat(service.isReady(other.getId())).isTrue();
+    assertThat(mongoTemplate.findById("patient:" + patient.getId(), TimelineDirty.class)).isNotNull();
+
+    reset(failing);
+    service.repairDirty();
+
+    assertThat(service.isReady(patient.getId())).isTrue();
+    assertThat(mongoTemplate.findById(a.getId(), TimelineEntry.class).getStatus()).isEqualTo(AppointmentStatus.VISITED);
+    assertThat(mongoTemplate.findById("patient:" + patient.getId(), TimelineDirty.class)).isNull();
+  }
+
+  @Test
+  void rebuildDoesNotOverwriteALiveUpdate() {
+    MongoTemplate racing = spy(mongoTemplate);
+    TimelineService service = new TimelineService(racing, doctorDirectory, keysetQueries, new SimpleMeterRegistry(), 500, false);
+    Doctor doctor = doctor(30);
+    Patient patient = patient();
+    Appointment a = appointment(doctor, patient, day(-6).plusSeconds(9 * 3600), 30, AppointmentStatus.ACCEPTED);
+    service.onAppointment(a);
+    doAnswer(inv -> {
+      Object prescriptions = inv.callRealMethod();
+      Appointment visited = mongoTemplate.findById(a.getId(), Appointment.class);
+      visited.setStatus(AppointmentStatus.VISITED);
+      mongoTemplate.save(visited);
+      Thread.sleep(2);
+      service.onAppointment(visited);
+      return prescriptions;
+    }).when(racing).find(any(Query.class), eq(Prescription.class));
+
+    service.rebuild(patient.getId());
+
+    assertThat(mongoTemplate.findById(a.getId(), TimelineEntry.class).getStatus()).isEqualTo(AppointmentStatus.VISITED);
+    assertThat(mongoTemplate.findById("patient:" + patient.getId(), TimelineDirty.class)).isNotNull();
+
+    reset(racing);
+    service.repairDirty();
+    assertThat(mongoTemplate.findById("patient:" + patient.getId(), TimelineDirty.class)).isNull();
+  }
+
+  @Test
+  void entryOfADoctorMissingFromTheDirectoryCarriesTheName() {
+    Doctor doctor = unlistedDoctor(30);
+    Appointment a = appointment(doctor, patient(), day(-4).plusSeconds(9 * 3600), 30, AppointmentStatus.VISITED);
+
+    timelineService.onAppointment(a);
+
+    assertThat(mongoTemplate.findById(a.getId(), TimelineEntry.class).getDoctorName()).isEqualTo(mongoTemplate.findById(doctor.getUserId(), User.class).getName());
+  }
+
+  @Test
+  void prescriptionCursorsCarryOverBetweenTimelineAndSource() throws Exception {
+    Doctor doctor = doctor(30);
+    Patient patient = patient();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Appointment visit = appointment(doctor, patient, day(-20 + i).plusSeconds(9 * 3600), 30, AppointmentStatus.VISITED);
+      if (i != 1) expected.add(prescription(visit).getId());
+    }
+    timelineService.rebuild(patient.getId());
+    assertThat(timelineService.isReady(patient.getId())).isTrue();
+
+    MvcResult first = page(patient, null);
+    timelineService.markPatientsDirty(List.of(patient.getId()));
+    MvcResult rest = page(patient, first.getResponse().getHeader("X-Next-Cursor"));
+    assertThat(concat(ids(first), ids(rest))).isEqualTo(expected);
+    assertThat(rest.getResponse().getHeader("X-Next-Cursor")).isNull();
+
+    first = page(patient, null);
+    timelineService.repairDirty();
+    rest = page(patient, first.getResponse().getHeader("X-Next-Cursor"));
+    assertThat(concat(ids(first), ids(rest))).isEqualTo(expected);
+  }
+
+  private MvcResult page(Patient patient, String cursor) throws Exception {
+    var request = get("/patient/prescriptions").param("limit", "2").header(HttpHeaders.AUTHORIZATION, bearer(patient));
+    if (cursor != null) request.param("cursor", cursor);
+    return mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+  }
+
+  private static List<String> ids(MvcResult result) throws Exception {
+    return JsonPath.read(result.getResponse().getContentAsString(), "$[*].id");
+  }
+
+  private static List<String> concat(List<String> a, List<String> b) {
+    List<String> all = new ArrayList<>(a);
+    all.addAll(b);
+    return all;
+  }
+
+  private Prescription prescription(Appointment visit) {
+    Medication m = new Medication();
+    m.setName("Amoxicillin");
+    m.setDosage("500mg");
+    Prescription p = new Prescription();
+    p.setAppointmentId(visit.getId());
+    p.setDoctorId(visit.getDoctorId());
+    p.setPatientId(visit.getPatientId());
+    p.setMedications(List.of(m));
+    p.setCreatedAt(visit.getEndTime());
+    return mongoTemplate.insert(p);
+  }
+}
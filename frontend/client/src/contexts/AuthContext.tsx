@@ -1,5 +1,6 @@
 import { createContext, useContext, useState, useEffect } from 'react';
 import type { AuthResponse, User } from '@shared/schema';
+import { api } from '@/lib/api';
 
 interface AuthContextType {
   user: User | null;
@@ -41,6 +42,7 @@ export function AuthProvider({ children }: { children: React.ReactNode }) {
         // Clear corrupted data
         localStorage.removeItem('user');
         localStorage.removeItem('token');
+        localStorage.removeItem('refreshToken');
       } finally {
         setIsLoading(false);
         console.log('✅ Auth initialization complete');
@@ -62,13 +64,17 @@ export function AuthProvider({ children }: { children: React.ReactNode }) {
     setToken(authData.token);
     localStorage.setItem('user', JSON.stringify(userData));
     localStorage.setItem('token', authData.token);
+    localStorage.setItem('refreshToken', authData.refreshToken);
   };
 
   const logout = () => {
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (refreshToken) api.post('/auth/logout', { refreshToken }).catch(() => undefined);
     setUser(null);
     setToken(null);
     localStorage.removeItem('user');
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
   };
 
   return (
@@ -33,25 +33,78 @@ api.interceptors.request.use((config) => {
   return config;
 });
 
+// Access tokens are short-lived: on a 401, swap the refresh token for a new pair once and replay
+// the request. Concurrent 401s share one refresh call, since a rotated token cannot be reused.
+// Tabs share localStorage, so refreshes across tabs take a Web Lock and a tab that waited reuses
+// the pair the other tab stored. Without Web Locks the server's short reuse grace covers the race.
+let refreshing: Promise<string> | null = null;
+
+function refreshAccessToken(): Promise<string> {
+  if (!refreshing) {
+    const stale = localStorage.getItem('refreshToken');
+    refreshing = withRefreshLock(() => rotate(stale)).finally(() => {
+      refreshing = null;
+    });
+  }
+  return refreshing;
+}
+
+async function rotate(stale: string | null): Promise<string> {
+  const refreshToken = localStorage.getItem('refreshToken');
+  const token = localStorage.getItem('token');
+  if (!refreshToken) throw new Error('No refresh token');
+  if (refreshToken !== stale && token) return token;
+  const res = await axios.post('/auth/refresh', { refreshToken }, { baseURL: API_BASE_URL });
+  localStorage.setItem('token', res.data.token);
+  localStorage.setItem('refreshToken', res.data.refreshToken);
+  return res.data.token as string;
+}
+
+function withRefreshLock<T>(fn: () => Promise<T>): Promise<T> {
+  if (typeof navigator !== 'undefined' && navigator.locks) return navigator.locks.request('hms-auth-refresh', fn);
+  return fn();
+}
+
+function endSession(): never {
+  localStorage.removeItem('token');
+  localStorage.removeItem('refreshToken');
+  localStorage.removeItem('user');
+  window.location.href = '/login';
+  throw new Error('Session expired. Please login again');
+}
+
 // Response interceptor for error handling
 api.interceptors.response.use(
   (response) => response,
-  (error) => {
+  async (error) => {
     if (error.response) {
       const status = error.response.status;
       const message = error.response.data?.message || error.response.data?.error || 'An error occurred';
-      
+      const original = error.config;
+
+      if (status === 401 && original && !original._retried && !original.url?.startsWith('/auth/')) {
+        original._retried = true;
+        let token: string;
+        try {
+          token = await refreshAccessToken();
+        } catch {
+          endSession();
+        }
+        original.headers.Authorization = `Bearer ${token!}`;
+        return api(original);
+      }
+
       if (status === 403) {
         throw new Error("You don't have permission to perform this action");
       } else if (status === 409) {
         throw new Error(message || 'Conflict - resource already exists or unavailable');
       } else if (status === 400) {
         throw new Error(message || 'Validation error');
+      } else if (status === 503) {
+        throw new Error('The server is busy. Please try again in a moment');
       } else if (status === 401) {
-        localStorage.removeItem('token');
-        localStorage.removeItem('user');
-        window.location.href = '/login';
-        throw new Error('Session expired. Please login again');
+        if (original?.url?.startsWith('/auth/')) throw new Error(message);
+        endSession();
       }
     }
     throw error;
@@ -42,7 +42,7 @@ function jwtMiddleware(req: Request, res: Response, next: NextFunction) {
   const isHtmlRequest = typeof acceptHeader === 'string' && acceptHeader.includes('text/html');
 
   // Public endpoints that don't require authentication
-  const publicPaths = ['/auth/login', '/auth/signup-patient'];
+  const publicPaths = ['/auth/login', '/auth/signup-patient', '/auth/refresh', '/auth/logout'];
   const isPublicPath = publicPaths.some(path =>
     req.originalUrl === path || req.originalUrl.startsWith(path + '?')
   );
@@ -23,6 +23,7 @@ export type PatientSignupRequest = z.infer<typeof patientSignupSchema>;
 
 export interface AuthResponse {
   token: string;
+  refreshToken: string;
   id: string;
   name: string;
   role: "ADMIN" | "DOCTOR" | "PATIENT";